@@ -1,6 +1,6 @@
 import type { PageLoad } from './$types';
 import { BaseURL} from '$lib/env';
-import type { Meal, Recommendation, UserPreferences } from '$lib/types';
+import type { Meal, UserPreferences } from '$lib/types';
 import { getCookie, setCookie } from '$lib';
 
 export const ssr = false;
@@ -23,25 +23,23 @@ export const load: PageLoad = async ({ fetch }) => {
     }
 
     // Execute all requests in parallel, don't wait for slow ones to complete
-    const [mealsResult, preferencesResult, recommendationResult] = await Promise.allSettled([
+    // The recommendation is streamed by the page itself, so it does not delay the menu
+    const [mealsResult, preferencesResult] = await Promise.allSettled([
         fetch(`${BaseURL}/mensa-garching/today`).then(res => res.json()),
-        fetch(`${BaseURL}/preferences/${username}`).then(res => res.json()),
-        fetch(`${BaseURL}/recommend/${username}`).then(res => res.json())
+        fetch(`${BaseURL}/preferences/${username}`).then(res => res.json())
     ]);
 
     // Extract successful results or provide defaults
     const meals: Meal[] = mealsResult.status === 'fulfilled' ? mealsResult.value : [];
     const preferences: UserPreferences = preferencesResult.status === 'fulfilled' ? preferencesResult.value : { favoriteMeals: [] };
-    const recommendation: Recommendation | null = recommendationResult.status === 'fulfilled' ? recommendationResult.value : null;
 
     console.log('Meals:', meals);
     console.log('Preferences:', preferences);
-    console.log('Recommendation:', recommendation);
 
     // Set the boolean favorite property for each meal
     meals.forEach((meal: any) => {
         meal.favorite = preferences.favoriteMeals.includes(meal.name);
     });
 
-    return { meals, recommendation };
+    return { meals, username };
 };
\ No newline at end of file
@@ -1,16 +1,30 @@
 import os
 import json
+import asyncio
 import requests
-from typing import Dict, Any, List, Optional
+from typing import Dict, Any, Iterator, List, Optional
 from fastapi import FastAPI, HTTPException
+from fastapi.responses import StreamingResponse
 from pydantic import BaseModel, Field
 from langchain.llms.base import LLM
+from langchain_core.outputs import GenerationChunk
 from langchain_core.prompts import PromptTemplate
 from langchain.callbacks.manager import CallbackManagerForLLMRun
+from opentelemetry import trace
+from opentelemetry.exporter.otlp.proto.http.trace_exporter import OTLPSpanExporter
+from opentelemetry.instrumentation.fastapi import FastAPIInstrumentor
+from opentelemetry.sdk.trace import TracerProvider
+from opentelemetry.sdk.trace.export import BatchSpanProcessor
+from opentelemetry.trace import SpanKind
 
 # Environment configuration
 CHAIR_API_KEY = os.getenv("CHAIR_API_KEY")
 API_URL = "https://gpu.aet.cit.tum.de/api/chat/completions"
+# Maximum number of concurrent model calls for one batch request
+BATCH_CONCURRENCY = int(os.getenv("BATCH_CONCURRENCY", 8))
+# Export traces over OTLP, the endpoint and service name are read from
+# OTEL_EXPORTER_OTLP_ENDPOINT and OTEL_SERVICE_NAME
+TRACING_ENABLED = os.getenv("TRACING_ENABLED", "false").lower() == "true"
 
 # Create FastAPI application instance
 app = FastAPI(
@@ -19,6 +33,16 @@ app = FastAPI(
     version="1.0.0"
 )
 
+if TRACING_ENABLED:
+    tracer_provider = TracerProvider()
+    tracer_provider.add_span_processor(BatchSpanProcessor(OTLPSpanExporter()))
+    trace.set_tracer_provider(tracer_provider)
+    # Server spans continue the caller's trace from the W3C traceparent header
+    FastAPIInstrumentor.instrument_app(app, excluded_urls="health")
+
+# A no-op tracer unless tracing is enabled
+tracer = trace.get_tracer(__name__)
+
 
 class RecommendRequest(BaseModel):
     """
@@ -42,6 +66,42 @@ class RecommendResponse(BaseModel):
     recommendation: str = Field(..., description="Personalized food recommendation")
 
 
+class UserFavorites(BaseModel):
+    """
+    Favorite meals of a single user within a batch request.
+
+    Attributes:
+        name (str): User name, echoed back in the response line
+        favorite_menu (List[str]): User's favorite meal names
+    """
+    name: str = Field(..., description="User name")
+    favorite_menu: List[str] = Field(..., description="User's favorite meal names")
+
+
+class RecommendBatchRequest(BaseModel):
+    """
+    Request schema for the batch recommendation endpoint.
+
+    Attributes:
+        todays_menu (List[str]): Today's available meal names, shared by all users
+        users (List[UserFavorites]): Users to generate recommendations for
+    """
+    todays_menu: List[str] = Field(..., description="Today's available meal names")
+    users: List[UserFavorites] = Field(..., description="Users and their favorite meals")
+
+
+class UserRecommendation(BaseModel):
+    """
+    One line of the batch recommendation stream.
+
+    Attributes:
+        name (str): User name
+        recommendation (str): The personalized recommendation, empty if generation failed
+    """
+    name: str = Field(..., description="User name")
+    recommendation: str = Field(..., description="Personalized food recommendation")
+
+
 class OpenWebUILLM(LLM):
     """
     Custom LangChain LLM wrapper for Open WebUI API.
@@ -98,28 +158,119 @@ class OpenWebUILLM(LLM):
             "messages": messages,
         }
         
+        # The span records the upstream model call, a raised exception marks it as failed
+        with tracer.start_as_current_span(
+            "llm upstream",
+            kind=SpanKind.CLIENT,
+            attributes={"llm.model": self.model_name, "llm.prompt.length": len(prompt)}
+        ) as span:
+            try:
+                response = requests.post(
+                    self.api_url,
+                    headers=headers,
+                    json=payload,
+                    timeout=30
+                )
+                span.set_attribute("http.response.status_code", response.status_code)
+                response.raise_for_status()
+                
+                result = response.json()
+                
+                # Extract the response content
+                if "choices" in result and len(result["choices"]) > 0:
+                    content = result["choices"][0]["message"]["content"]
+                    return content.strip()
+                else:
+                    raise ValueError("Unexpected response format from API")
+                    
+            except requests.RequestException as e:
+                raise Exception(f"API request failed: {str(e)}")
+            except (KeyError, IndexError, ValueError) as e:
+                raise Exception(f"Failed to parse API response: {str(e)}")
+
+    def _stream(
+        self,
+        prompt: str,
+        stop: Optional[List[str]] = None,
+        run_manager: Optional[CallbackManagerForLLMRun] = None,
+        **kwargs: Any,
+    ) -> Iterator[GenerationChunk]:
+        """
+        Call the Open WebUI API in streaming mode and yield tokens as they arrive.
+
+        The API answers with OpenAI-compatible server-sent events, one
+        `data: {...}` line per chunk and a final `data: [DONE]`.
+
+        Args:
+            prompt: The input prompt to send to the model
+            stop: Optional list of stop sequences
+            run_manager: Optional callback manager for LangChain
+            **kwargs: Additional keyword arguments
+
+        Yields:
+            GenerationChunk for every non-empty content delta
+
+        Raises:
+            Exception: If API call fails
+        """
+        if not self.api_key:
+            raise ValueError("CHAIR_API_KEY environment variable is required")
+
+        headers = {
+            "Authorization": f"Bearer {self.api_key}",
+            "Content-Type": "application/json",
+        }
+
+        payload = {
+            "model": self.model_name,
+            "messages": [{"role": "user", "content": prompt}],
+            "stream": True,
+        }
+
+        # Not made current: the generator may be resumed in other contexts between tokens
+        span = tracer.start_span(
+            "llm upstream stream",
+            kind=SpanKind.CLIENT,
+            attributes={"llm.model": self.model_name, "llm.prompt.length": len(prompt)}
+        )
+        first_token = True
         try:
-            response = requests.post(
+            with requests.post(
                 self.api_url,
                 headers=headers,
                 json=payload,
-                timeout=30
-            )
-            response.raise_for_status()
-            
-            result = response.json()
-            
-            # Extract the response content
-            if "choices" in result and len(result["choices"]) > 0:
-                content = result["choices"][0]["message"]["content"]
-                return content.strip()
-            else:
-                raise ValueError("Unexpected response format from API")
-                
+                timeout=30,
+                stream=True
+            ) as response:
+                span.set_attribute("http.response.status_code", response.status_code)
+                response.raise_for_status()
+                for line in response.iter_lines(decode_unicode=True):
+                    if not line or not line.startswith("data:"):
+                        continue
+                    data = line[len("data:"):].strip()
+                    if data == "[DONE]":
+                        break
+                    choices = json.loads(data).get("choices") or []
+                    token = choices[0].get("delta", {}).get("content") if choices else None
+                    if token:
+                        if first_token:
+                            span.add_event("first token")
+                            first_token = False
+                        chunk = GenerationChunk(text=token)
+                        if run_manager:
+                            run_manager.on_llm_new_token(token, chunk=chunk)
+                        yield chunk
+
         except requests.RequestException as e:
+            span.record_exception(e)
+            span.set_status(trace.Status(trace.StatusCode.ERROR))
             raise Exception(f"API request failed: {str(e)}")
         except (KeyError, IndexError, ValueError) as e:
+            span.record_exception(e)
+            span.set_status(trace.Status(trace.StatusCode.ERROR))
             raise Exception(f"Failed to parse API response: {str(e)}")
+        finally:
+            span.end()
 
 
 # Initialize the LLM
@@ -213,6 +364,118 @@ async def recommend(req: RecommendRequest) -> RecommendResponse:
         )
 
 
+@app.post(
+    "/recommend/stream",
+    summary="Stream a personalized food recommendation",
+    description="Same input as /recommend. Streams the model output as server-sent events: "
+                "one `token` event per chunk, then a `done` event with the full recommendation."
+)
+async def recommend_stream(req: RecommendRequest) -> StreamingResponse:
+    """
+    Generate a personalized food recommendation and stream it token by token.
+
+    Args:
+        req: Request containing user's favorite meals and today's menu
+
+    Returns:
+        StreamingResponse of server-sent events (text/event-stream)
+
+    Raises:
+        HTTPException: If the input is invalid
+    """
+    if not req.favorite_menu:
+        raise HTTPException(
+            status_code=400,
+            detail="favorite_menu cannot be empty"
+        )
+
+    if not req.todays_menu:
+        raise HTTPException(
+            status_code=400,
+            detail="todays_menu cannot be empty"
+        )
+
+    def event(name: str, data: Dict[str, Any]) -> str:
+        return f"event: {name}\ndata: {json.dumps(data)}\n\n"
+
+    async def stream():
+        tokens = []
+        try:
+            async for token in recommendation_chain.astream({
+                "favorite_menu": ", ".join(req.favorite_menu),
+                "todays_menu": ", ".join(req.todays_menu)
+            }):
+                tokens.append(token)
+                yield event("token", {"token": token})
+            yield event("done", {"recommendation": "".join(tokens).strip()})
+        except Exception as e:
+            # Headers are already sent, report the failure in-band
+            print(f"Error streaming recommendation: {str(e)}")
+            yield event("error", {"detail": str(e)})
+
+    return StreamingResponse(stream(), media_type="text/event-stream")
+
+
+@app.post(
+    "/recommend/batch",
+    summary="Generate personalized food recommendations for many users",
+    description="Accepts today's menu and a list of users with their favorite meals. "
+                "Streams one JSON object per line (application/x-ndjson) as each recommendation completes."
+)
+async def recommend_batch(req: RecommendBatchRequest) -> StreamingResponse:
+    """
+    Generate recommendations for several users in one request.
+
+    Model calls run concurrently (bounded by BATCH_CONCURRENCY) and each result is
+    written as soon as it is ready, so callers can start consuming before the batch is done.
+
+    Args:
+        req: Request containing today's menu and the users' favorite meals
+
+    Returns:
+        StreamingResponse of newline-delimited UserRecommendation objects
+
+    Raises:
+        HTTPException: If today's menu is empty
+    """
+    if not req.todays_menu:
+        raise HTTPException(
+            status_code=400,
+            detail="todays_menu cannot be empty"
+        )
+
+    todays_meals_str = ", ".join(req.todays_menu)
+    semaphore = asyncio.Semaphore(BATCH_CONCURRENCY)
+
+    async def recommend_user(user: UserFavorites) -> UserRecommendation:
+        if not user.favorite_menu:
+            return UserRecommendation(name=user.name, recommendation="")
+        async with semaphore:
+            try:
+                recommendation = await recommendation_chain.ainvoke({
+                    "favorite_menu": ", ".join(user.favorite_menu),
+                    "todays_menu": todays_meals_str
+                })
+            except Exception as e:
+                # A failing user must not abort the whole batch
+                print(f"Error generating recommendation for {user.name}: {str(e)}")
+                recommendation = ""
+        return UserRecommendation(name=user.name, recommendation=recommendation)
+
+    async def stream():
+        tasks = [asyncio.create_task(recommend_user(user)) for user in req.users]
+        try:
+            for next_done in asyncio.as_completed(tasks):
+                result = await next_done
+                yield result.model_dump_json() + "\n"
+        finally:
+            # Stop outstanding model calls if the client disconnects
+            for task in tasks:
+                task.cancel()
+
+    return StreamingResponse(stream(), media_type="application/x-ndjson")
+
+
 @app.get("/")
 async def root():
     """Root endpoint with service information."""
@@ -223,6 +486,8 @@ async def root():
         "endpoints": {
             "health": "/health",
             "recommend": "/recommend",
+            "recommend_stream": "/recommend/stream",
+            "recommend_batch": "/recommend/batch",
             "docs": "/docs"
         }
     }
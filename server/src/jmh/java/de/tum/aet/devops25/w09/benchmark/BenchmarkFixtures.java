@@ -0,0 +1,82 @@
+package de.tum.aet.devops25.w09.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tum.aet.devops25.w09.cache.TtlCache;
+import de.tum.aet.devops25.w09.service.CanteenService.WeekKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Shared inputs for the benchmarks. Everything is fixed so results stay comparable across commits.
+ */
+final class BenchmarkFixtures {
+
+    static final String CANTEEN = "mensa-garching";
+    static final LocalDate TODAY = LocalDate.of(2025, 5, 8);
+    static final Clock CLOCK = Clock.fixed(TODAY.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * A realistic eat-api week file (week 19 of 2025) including prices, which the server ignores
+     */
+    static byte[] weekJson() {
+        try (InputStream in = BenchmarkFixtures.class.getResourceAsStream("/week.json")) {
+            if (in == null) {
+                throw new IllegalStateException("week.json not found on the benchmark classpath");
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Object mapper configured like Spring Boot's default one
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /**
+     * Cache that always reloads for a zero TTL, since the fixed clock never advances
+     */
+    static <K, V> TtlCache<K, V> cache(Duration ttl) {
+        return new TtlCache<>("benchmark", ttl, Duration.ZERO, 1000, Runnable::run, CLOCK, new SimpleMeterRegistry());
+    }
+
+    static WeekKey weekKey(String canteen) {
+        return WeekKey.of(canteen, TODAY);
+    }
+
+    /**
+     * In-memory stand-in for a Spring Data repository, answering only the given methods
+     */
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        Object stub = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler != null) {
+                return handler.apply(args);
+            }
+            return switch (method.getName()) {
+                case "toString" -> type.getSimpleName() + "Stub";
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                default -> throw new UnsupportedOperationException(method.getName());
+            };
+        });
+        return type.cast(stub);
+    }
+}
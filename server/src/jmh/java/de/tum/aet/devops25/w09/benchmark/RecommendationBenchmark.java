@@ -0,0 +1,78 @@
+package de.tum.aet.devops25.w09.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.RecommendRequest;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.LLMRecommendationService;
+import de.tum.aet.devops25.w09.service.LocalRecommendationEngine;
+import de.tum.aet.devops25.w09.service.RecommendationCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The in-process parts of a recommendation: mapping dishes to names, the local engine
+ * and serializing the request body for the LLM service.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RecommendationBenchmark {
+
+    private List<Dish> todayMeals;
+    private List<String> favoriteMeals;
+    private RecommendRequest request;
+    private ObjectMapper objectMapper;
+    private LLMRecommendationService mappingOnly;
+    private LLMRecommendationService withLocalEngine;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        Week week = objectMapper.readValue(BenchmarkFixtures.weekJson(), Week.class);
+        todayMeals = week.days().stream()
+                .filter(day -> day.date().equals(BenchmarkFixtures.TODAY))
+                .findFirst()
+                .map(Day::dishes)
+                .orElseThrow();
+        // None of these is close enough to be answered locally
+        favoriteMeals = List.of("Pizza Margherita", "Wiener Schnitzel", "Sushi", "Lasagne");
+        request = new RecommendRequest(favoriteMeals, todayMeals.stream().map(Dish::name).toList());
+
+        RecommendationCoalescer constantLlm = new RecommendationCoalescer(null, null) {
+            @Override
+            public String getRecommendation(List<String> favoriteMenu, List<String> todaysMenu) {
+                return todaysMenu.getFirst();
+            }
+        };
+        mappingOnly = new LLMRecommendationService(List.of(), constantLlm, new SimpleMeterRegistry());
+        withLocalEngine = new LLMRecommendationService(List.of(new LocalRecommendationEngine(0.85)), constantLlm, new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public String mapDishNames() {
+        return mappingOnly.getRecommendationFromLLM(favoriteMeals, todayMeals);
+    }
+
+    @Benchmark
+    public String localEngineThenLlm() {
+        return withLocalEngine.getRecommendationFromLLM(favoriteMeals, todayMeals);
+    }
+
+    @Benchmark
+    public byte[] serializeRecommendRequest() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(request);
+    }
+}
@@ -0,0 +1,149 @@
+package de.tum.aet.devops25.w09.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.tum.aet.devops25.w09.DailyRecommendationRepository;
+import de.tum.aet.devops25.w09.UserPreferenceRepository;
+import de.tum.aet.devops25.w09.client.LLMRestClient;
+import de.tum.aet.devops25.w09.controller.RecommendationController;
+import de.tum.aet.devops25.w09.entity.UserPreferences;
+import de.tum.aet.devops25.w09.resilience.CircuitBreaker;
+import de.tum.aet.devops25.w09.resilience.ResiliencePolicy;
+import de.tum.aet.devops25.w09.service.CanteenService;
+import de.tum.aet.devops25.w09.service.DailyRecommendationService;
+import de.tum.aet.devops25.w09.service.DishCatalog;
+import de.tum.aet.devops25.w09.service.DishPopularity;
+import de.tum.aet.devops25.w09.service.DishSearchIndex;
+import de.tum.aet.devops25.w09.service.LLMRecommendationService;
+import de.tum.aet.devops25.w09.service.LocalRecommendationEngine;
+import de.tum.aet.devops25.w09.service.RecommendationCoalescer;
+import de.tum.aet.devops25.w09.service.RecommendationService;
+import de.tum.aet.devops25.w09.service.UserPreferenceService;
+import de.tum.aet.devops25.w09.service.WeekParser;
+import de.tum.aet.devops25.w09.service.WeekSnapshotStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@code GET /recommend/{name}} through the real controller and services,
+ * with the eat-api and the LLM service replaced by an in-process HTTP stub and the
+ * repositories by in-memory stubs. With {@code caching=false} every call reaches the stubs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(8)
+public class RecommendationEndToEndBenchmark {
+
+    private static final byte[] LLM_RESPONSE = "{\"recommendation\":\"Spaghetti Bolognese\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"true", "false"})
+    public boolean caching;
+
+    private HttpServer upstream;
+    private ExecutorService executor;
+    private HttpComponentsClientHttpRequestFactory requestFactory;
+    private RecommendationController controller;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] weekJson = BenchmarkFixtures.weekJson();
+        upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        upstream.createContext("/" + BenchmarkFixtures.CANTEEN + "/", exchange -> respond(exchange, weekJson));
+        upstream.createContext("/recommend", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            respond(exchange, LLM_RESPONSE);
+        });
+        upstream.setExecutor(Executors.newFixedThreadPool(8));
+        upstream.start();
+        String baseUrl = "http://127.0.0.1:" + upstream.getAddress().getPort() + "/";
+
+        executor = Executors.newCachedThreadPool();
+        requestFactory = new HttpComponentsClientHttpRequestFactory();
+        ObjectMapper objectMapper = BenchmarkFixtures.objectMapper();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        Duration ttl = caching ? Duration.ofDays(1) : Duration.ZERO;
+
+        DishCatalog catalog = new DishCatalog(20000);
+        CanteenService canteenService = new CanteenService(RestClient.builder(), requestFactory, BenchmarkFixtures.CLOCK,
+                BenchmarkFixtures.cache(ttl), new WeekSnapshotStore("", false, catalog),
+                new WeekParser(objectMapper), catalog,
+                new DishSearchIndex(50000, 0.5, 0.6), event -> { },
+                executor, baseUrl, 8, Duration.ofSeconds(3));
+        ResiliencePolicy llmResilience = new ResiliencePolicy("llm", new CircuitBreaker("llm", 20, 10, 0.5,
+                Duration.ofSeconds(30), 2, BenchmarkFixtures.CLOCK), 64, Duration.ofSeconds(5), Duration.ofSeconds(35), 2.0,
+                false, executor, meterRegistry);
+        LLMRestClient llmRestClient = new LLMRestClient(RestClient.builder(), requestFactory, objectMapper, llmResilience, baseUrl);
+        LLMRecommendationService llmRecommendationService = new LLMRecommendationService(
+                List.of(new LocalRecommendationEngine(0.85)),
+                new RecommendationCoalescer(llmRestClient, BenchmarkFixtures.cache(ttl)),
+                meterRegistry);
+
+        UserPreferenceRepository userPreferenceRepository = BenchmarkFixtures.repository(UserPreferenceRepository.class, Map.of(
+                "findAllWithFavoriteMealsByNameIn", args -> ((Collection<?>) args[0]).stream()
+                        .map(name -> new UserPreferences((String) name, List.of("Pizza Margherita", "Wiener Schnitzel")))
+                        .toList()));
+        UserPreferenceService userPreferenceService = new UserPreferenceService(userPreferenceRepository, event -> { },
+                BenchmarkFixtures.cache(ttl), new DishPopularity());
+
+        // Nothing is precomputed, so every request takes the on-demand path
+        DailyRecommendationRepository dailyRecommendationRepository = BenchmarkFixtures.repository(DailyRecommendationRepository.class, Map.of(
+                "findById", args -> Optional.empty(),
+                "upsert", args -> 1));
+        DailyRecommendationService dailyRecommendationService = new DailyRecommendationService(dailyRecommendationRepository,
+                userPreferenceService, canteenService, llmRecommendationService, executor, BenchmarkFixtures.CLOCK, meterRegistry, false, 100, 4);
+
+        RecommendationService recommendationService = new RecommendationService(llmRecommendationService, userPreferenceService,
+                canteenService, dailyRecommendationService, executor, BenchmarkFixtures.CLOCK, meterRegistry, ObservationRegistry.NOOP,
+                Duration.ofSeconds(35));
+        controller = new RecommendationController(recommendationService, llmRecommendationService, userPreferenceService,
+                canteenService, executor, Duration.ofMinutes(10), 1000, Duration.ofSeconds(35));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        upstream.stop(0);
+        executor.shutdownNow();
+        requestFactory.destroy();
+    }
+
+    @Benchmark
+    public ResponseEntity<Map<String, String>> recommend() {
+        return controller.getRecommendation("benchmark-user", null, null);
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package de.tum.aet.devops25.w09.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tum.aet.devops25.w09.cache.TtlCache;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.CanteenService;
+import de.tum.aet.devops25.w09.service.CanteenService.WeekKey;
+import de.tum.aet.devops25.w09.service.DishCatalog;
+import de.tum.aet.devops25.w09.service.DishSearchIndex;
+import de.tum.aet.devops25.w09.service.WeekParser;
+import de.tum.aet.devops25.w09.service.WeekSnapshotStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Parsing an eat-api week file and picking today's dishes out of it, by data binding and by the
+ * streaming {@link WeekParser}, compared with restoring the same week from a binary snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WeekParsingBenchmark {
+
+    private byte[] json;
+    private ObjectMapper objectMapper;
+    private CanteenService canteenService;
+    private WeekParser weekParser;
+    private Path snapshotDirectory;
+    private WeekSnapshotStore snapshotStore;
+
+    @Setup
+    public void setUp() throws IOException {
+        json = BenchmarkFixtures.weekJson();
+        objectMapper = BenchmarkFixtures.objectMapper();
+
+        // The week is pre-cached, so getTodayMeals never reaches the (unreachable) upstream
+        weekParser = new WeekParser(objectMapper);
+        DishCatalog catalog = new DishCatalog(20000);
+        TtlCache<WeekKey, Week> weekCache = BenchmarkFixtures.cache(Duration.ofDays(1));
+        weekCache.put(BenchmarkFixtures.weekKey(BenchmarkFixtures.CANTEEN), catalog.intern(objectMapper.readValue(json, Week.class)));
+        canteenService = new CanteenService(RestClient.builder(), new SimpleClientHttpRequestFactory(), BenchmarkFixtures.CLOCK,
+                weekCache, new WeekSnapshotStore("", false, catalog),
+                weekParser, catalog,
+                new DishSearchIndex(50000, 0.5, 0.6), event -> { },
+                Executors.newSingleThreadExecutor(), "http://localhost:1/", 1, Duration.ofSeconds(1));
+
+        snapshotDirectory = Files.createTempDirectory("menu-snapshots");
+        snapshotStore = new WeekSnapshotStore(snapshotDirectory.toString(), true, catalog);
+        snapshotStore.save(BenchmarkFixtures.weekKey(BenchmarkFixtures.CANTEEN), objectMapper.readValue(json, Week.class), null, null);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(snapshotDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Week deserializeWeek() throws IOException {
+        return objectMapper.readValue(json, Week.class);
+    }
+
+    @Benchmark
+    public Week streamWeek() throws IOException {
+        return weekParser.parseWeek(new ByteArrayInputStream(json));
+    }
+
+    @Benchmark
+    public Week loadSnapshot() {
+        return snapshotStore.load(BenchmarkFixtures.weekKey(BenchmarkFixtures.CANTEEN)).orElseThrow().week();
+    }
+
+    @Benchmark
+    public List<Dish> filterTodayMeals() {
+        return canteenService.getTodayMeals(BenchmarkFixtures.CANTEEN);
+    }
+}
@@ -0,0 +1,57 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.entity.DailyRecommendation;
+import de.tum.aet.devops25.w09.entity.DailyRecommendationId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Set;
+
+/*
+    Precomputed recommendations, one row per user, canteen and day.
+ */
+
+public interface DailyRecommendationRepository extends JpaRepository<DailyRecommendation, DailyRecommendationId> {
+
+    @Query("select r.id.userName from DailyRecommendation r where r.id.canteen = :canteen and r.id.date = :date")
+    Set<String> findUserNamesByCanteenAndDate(@Param("canteen") String canteen, @Param("date") LocalDate date);
+
+    /*
+        Insert or replace a row in one PostgreSQL statement. Unlike save, which selects and then inserts,
+        two requests storing the same user's row concurrently cannot fail on the primary key.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into daily_recommendation (user_name, canteen, date, recommendation, created_at)
+            values (:userName, :canteen, :date, :recommendation, :createdAt)
+            on conflict (user_name, canteen, date) do update
+            set recommendation = excluded.recommendation, created_at = excluded.created_at
+            """, nativeQuery = true)
+    int upsert(@Param("userName") String userName, @Param("canteen") String canteen, @Param("date") LocalDate date,
+               @Param("recommendation") String recommendation, @Param("createdAt") Instant createdAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from DailyRecommendation r where r.id.userName = :userName and r.id.date = :date")
+    int deleteByUserNameAndDate(@Param("userName") String userName, @Param("date") LocalDate date);
+
+    /*
+        Also matches rows computed across several canteens, stored under the comma-separated canteen list.
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from DailyRecommendation r where r.id.date = :date "
+            + "and concat(',', r.id.canteen, ',') like concat('%,', :canteen, ',%')")
+    int deleteByCanteenAndDate(@Param("canteen") String canteen, @Param("date") LocalDate date);
+
+    @Modifying
+    @Transactional
+    @Query("delete from DailyRecommendation r where r.id.date < :date")
+    int deleteOlderThan(@Param("date") LocalDate date);
+}
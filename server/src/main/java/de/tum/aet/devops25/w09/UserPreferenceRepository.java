@@ -2,6 +2,13 @@ package de.tum.aet.devops25.w09;
 
 import de.tum.aet.devops25.w09.entity.UserPreferences;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 /*
     Required for interacting with the database.
@@ -10,4 +17,85 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface UserPreferenceRepository extends JpaRepository<UserPreferences, String> {
 
+    /*
+        Loads the users together with their favorite meals in a single query,
+        avoiding one extra query per user for the lazy collection.
+     */
+    @Query("select distinct p from UserPreferences p left join fetch p.favoriteMeals where p.name in :names")
+    List<UserPreferences> findAllWithFavoriteMealsByNameIn(@Param("names") Collection<String> names);
+
+    @Query("select p.name from UserPreferences p order by p.name")
+    List<String> findAllNames();
+
+    /*
+        Number of users per favorite meal, aggregated in the database
+        instead of loading every user with their favorites.
+     */
+    @Query("select m as meal, count(p) as favorites from UserPreferences p join p.favoriteMeals m group by m")
+    List<MealCount> countFavoriteMeals();
+
+    interface MealCount {
+        String getMeal();
+        Long getFavorites();
+    }
+
+    /*
+        The mutations below are single PostgreSQL statements that never load the collection.
+        The unique constraint on (user, meal) makes them idempotent and safe under concurrency:
+        two concurrent adds can no longer overwrite each other.
+     */
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query(value = """
+            with new_user as (
+                insert into user_preferences (name) values (:name) on conflict do nothing
+            )
+            insert into user_preferences_favorite_meals (user_preferences_name, favorite_meals)
+            values (:name, :meal)
+            on conflict do nothing
+            """, nativeQuery = true)
+    int addFavoriteMeal(@Param("name") String name, @Param("meal") String meal);
+
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query(value = "delete from user_preferences_favorite_meals where user_preferences_name = :name and favorite_meals = :meal",
+            nativeQuery = true)
+    int removeFavoriteMeal(@Param("name") String name, @Param("meal") String meal);
+
+    /*
+        Replaces the whole set in one round-trip: meals not in the new set are deleted,
+        missing ones inserted, unchanged rows are left alone.
+        Returns what the statement actually changed, one row per added (added = true) or removed
+        (added = false) meal and a row without meal if the user was created. Concurrent writers
+        cannot make it report a change twice. Being a query rather than an update, it does not clear
+        the persistence context, load the user only afterwards.
+     */
+    @Transactional
+    @Query(value = """
+            with new_user as (
+                insert into user_preferences (name) values (:name) on conflict do nothing
+                returning name
+            ), removed as (
+                delete from user_preferences_favorite_meals
+                where user_preferences_name = :name and favorite_meals <> all(cast(:meals as text[]))
+                returning favorite_meals
+            ), added as (
+                insert into user_preferences_favorite_meals (user_preferences_name, favorite_meals)
+                select :name, meal from unnest(cast(:meals as text[])) as meal
+                on conflict do nothing
+                returning favorite_meals
+            )
+            select favorite_meals as meal, true as added from added
+            union all
+            select favorite_meals, false from removed
+            union all
+            select null, true from new_user
+            """, nativeQuery = true)
+    List<MealChange> replaceFavoriteMeals(@Param("name") String name, @Param("meals") String[] meals);
+
+    interface MealChange {
+        String getMeal();
+        Boolean getAdded();
+    }
 }
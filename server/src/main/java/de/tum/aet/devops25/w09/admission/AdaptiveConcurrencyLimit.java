@@ -0,0 +1,103 @@
+package de.tum.aet.devops25.w09.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to the latency of the downstream the admitted requests queue on.
+ *
+ * Two moving averages of the observed latency are kept: a long-term one approximating the
+ * latency without queueing and a short-term one reflecting the current load. While the
+ * short-term latency stays within a tolerance of the long-term one the limit grows by about
+ * its square root per sample; once requests start queueing downstream the ratio falls below
+ * one and the limit shrinks proportionally, down to halving it. Growth is skipped while less
+ * than half of the limit is in use, so an idle system does not accumulate headroom.
+ *
+ * Acquiring and releasing are lock-free; latency samples update the limit under a lock.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_SMOOTHING = 0.1;
+    private static final double LONG_SMOOTHING = 0.002;
+    private static final double TOLERANCE = 1.5;
+    private static final double LIMIT_SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double shortLatency = -1;
+    private double longLatency = -1;
+
+    /**
+     * @param initialLimit limit until latencies were observed
+     * @param minLimit lower bound of the limit
+     * @param maxLimit upper bound of the limit, e.g. the downstream bulkhead size
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Take a slot if fewer than {@link #getLimit()} requests are in flight
+     * @return whether a slot was taken, it must then be given back with {@link #release()}
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Adapt the limit to a latency observed downstream
+     * @param nanos the latency in nanoseconds
+     */
+    public synchronized void onLatency(long nanos) {
+        if (shortLatency < 0) {
+            shortLatency = nanos;
+            longLatency = nanos;
+            return;
+        }
+        shortLatency += (nanos - shortLatency) * SHORT_SMOOTHING;
+        longLatency += (nanos - longLatency) * LONG_SMOOTHING;
+        if (longLatency > shortLatency * 2) {
+            // Load dropped sharply, let the baseline follow faster than its smoothing allows
+            longLatency *= 0.95;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longLatency / shortLatency));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        if (newLimit > estimatedLimit && inFlight.get() < estimatedLimit / 2) {
+            return;
+        }
+        newLimit = estimatedLimit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,225 @@
+package de.tum.aet.devops25.w09.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Admission control for the recommendation and canteen endpoints.
+ *
+ * Every recommendation request takes a token from the bucket of its client, the user name for
+ * {@code /recommend/{name}} and the client address otherwise; clients over their rate get a 429.
+ * The client address is the first {@code X-Forwarded-For} hop if forwarded headers are trusted, else the
+ * remote address, which behind a proxy or NAT is shared by many clients. Canteen menus are served from
+ * the cache and only count against the global bucket.
+ * Every request then takes a token from the global bucket, and recommendation requests additionally need a
+ * slot of the {@link AdaptiveConcurrencyLimit}, which follows the latency of the LLM service so
+ * that spikes are turned away here instead of queueing upstream. Requests over a global limit are
+ * shed with a 503, except plain recommendation requests, which are let through marked with
+ * {@link #SHED_RETRY_AFTER} to be answered from precomputed, cached or local recommendations only.
+ * Rejections carry a {@code Retry-After} header.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    /**
+     * Request attribute set on shed recommendation requests, holding the Retry-After seconds for a 503
+     */
+    public static final String SHED_RETRY_AFTER = AdmissionFilter.class.getName() + ".shedRetryAfter";
+
+    private static final Pattern RECOMMENDATION = Pattern.compile("/recommend/[^/]+");
+    private static final Pattern CANTEEN = Pattern.compile("(/[^/]+)?/today");
+    private static final long CONCURRENCY_RETRY_AFTER_SECONDS = 1;
+
+    private enum Route { RECOMMENDATION, CANTEEN }
+
+    private final TokenBuckets clientBuckets;
+    private final TokenBucket globalBucket;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final boolean degradeRecommendations;
+    private final boolean trustForwardedFor;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param clientBuckets per-client rate limit
+     * @param globalBucket global rate limit
+     * @param concurrencyLimit global concurrency limit of recommendation requests
+     * @param degradeRecommendations whether shed recommendation requests are passed on marked instead of rejected
+     * @param trustForwardedFor whether clients are identified by the first {@code X-Forwarded-For} hop,
+     *                          only safe behind a proxy that sets the header
+     * @param meterRegistry registry for the {@code admission.*} meters
+     */
+    public AdmissionFilter(TokenBuckets clientBuckets, TokenBucket globalBucket, AdaptiveConcurrencyLimit concurrencyLimit,
+                           boolean degradeRecommendations, boolean trustForwardedFor, MeterRegistry meterRegistry) {
+        this.clientBuckets = clientBuckets;
+        this.globalBucket = globalBucket;
+        this.concurrencyLimit = concurrencyLimit;
+        this.degradeRecommendations = degradeRecommendations;
+        this.trustForwardedFor = trustForwardedFor;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("admission.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit).register(meterRegistry);
+        Gauge.builder("admission.concurrency.in-flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight).register(meterRegistry);
+        Gauge.builder("admission.clients", clientBuckets, TokenBuckets::size).register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return HttpMethod.OPTIONS.matches(request.getMethod()) || route(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Route route = route(request);
+        String path = path(request);
+
+        long clientWait = route == Route.RECOMMENDATION ? clientBuckets.tryAcquire(clientKey(request, path)) : 0;
+        if (clientWait > 0) {
+            reject(response, route, HttpStatus.TOO_MANY_REQUESTS, seconds(clientWait), "client_rate");
+            return;
+        }
+        long globalWait = globalBucket.tryAcquire();
+        if (globalWait > 0) {
+            shed(request, response, chain, route, path, seconds(globalWait), "global_rate");
+            return;
+        }
+        if (route != Route.RECOMMENDATION) {
+            count(route, "admitted");
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            shed(request, response, chain, route, path, CONCURRENCY_RETRY_AFTER_SECONDS, "concurrency");
+            return;
+        }
+
+        count(route, "admitted");
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // Streams and batches hold their slot until the response is complete
+                request.getAsyncContext().addListener(new ReleasingListener());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                concurrencyLimit.release();
+            }
+        }
+    }
+
+    private void shed(HttpServletRequest request, HttpServletResponse response, FilterChain chain, Route route, String path,
+                      long retryAfterSeconds, String reason) throws ServletException, IOException {
+        if (degradeRecommendations && route == Route.RECOMMENDATION && HttpMethod.GET.matches(request.getMethod())
+                && RECOMMENDATION.matcher(path).matches()) {
+            count(route, "degraded");
+            request.setAttribute(SHED_RETRY_AFTER, retryAfterSeconds);
+            chain.doFilter(request, response);
+            return;
+        }
+        reject(response, route, HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds, reason);
+    }
+
+    private void reject(HttpServletResponse response, Route route, HttpStatus status, long retryAfterSeconds, String reason)
+            throws IOException {
+        count(route, "rejected_" + reason);
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"detail\":\"" + status.getReasonPhrase() + "\"}");
+    }
+
+    private void count(Route route, String decision) {
+        Counter.builder("admission.requests")
+                .tag("route", route.name().toLowerCase())
+                .tag("decision", decision)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static Route route(HttpServletRequest request) {
+        String path = path(request);
+        if (path.startsWith("/recommend/")) {
+            return Route.RECOMMENDATION;
+        }
+        return CANTEEN.matcher(path).matches() ? Route.CANTEEN : null;
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private String clientKey(HttpServletRequest request, String path) {
+        if (path.startsWith("/recommend/")) {
+            String rest = path.substring("/recommend/".length());
+            String name = rest.indexOf('/') < 0 ? rest : rest.substring(0, rest.indexOf('/'));
+            boolean batch = name.equals("batch") && HttpMethod.POST.matches(request.getMethod());
+            if (!name.isEmpty() && !batch) {
+                return "user:" + name;
+            }
+        }
+        return "address:" + clientAddress(request);
+    }
+
+    private String clientAddress(HttpServletRequest request) {
+        String forwardedFor = trustForwardedFor ? request.getHeader("X-Forwarded-For") : null;
+        if (forwardedFor != null) {
+            String firstHop = forwardedFor.split(",", 2)[0].trim();
+            if (!firstHop.isEmpty()) {
+                return firstHop;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static long seconds(long micros) {
+        return Math.max(1, TimeUnit.MICROSECONDS.toSeconds(micros + 999_999));
+    }
+
+    private final class ReleasingListener implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                concurrencyLimit.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package de.tum.aet.devops25.w09.admission;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket.
+ *
+ * Implemented as a generic cell rate algorithm: instead of a token count, the bucket stores the
+ * theoretical arrival time at which it would be full again, so taking a token is a single
+ * compare-and-set on one {@link AtomicLong}. A bucket whose arrival time lies in the past is full
+ * and carries no state worth keeping.
+ */
+public class TokenBucket {
+
+    private final long intervalMicros;
+    private final long burstMicros;
+    private final Clock clock;
+    private final AtomicLong fullAt;
+
+    /**
+     * @param ratePerSecond tokens added per second
+     * @param burst bucket capacity, i.e. how many requests may arrive at once
+     * @param clock clock the rate is measured with
+     */
+    public TokenBucket(double ratePerSecond, int burst, Clock clock) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("ratePerSecond and burst must be positive");
+        }
+        this.intervalMicros = Math.max(1, (long) (1_000_000 / ratePerSecond));
+        this.burstMicros = intervalMicros * burst;
+        this.clock = clock;
+        this.fullAt = new AtomicLong(nowMicros());
+    }
+
+    /**
+     * Take one token if available
+     * @return 0 if a token was taken, otherwise the time in microseconds until one is available
+     */
+    public long tryAcquire() {
+        long now = nowMicros();
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalMicros;
+            long wait = next - now - burstMicros;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return whether the bucket is full, i.e. no request was seen for a while
+     */
+    public boolean isIdle() {
+        return fullAt.get() <= nowMicros();
+    }
+
+    private long nowMicros() {
+        Instant now = clock.instant();
+        return now.getEpochSecond() * 1_000_000 + now.getNano() / 1_000;
+    }
+}
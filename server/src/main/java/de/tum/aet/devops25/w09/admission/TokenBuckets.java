@@ -0,0 +1,69 @@
+package de.tum.aet.devops25.w09.admission;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One {@link TokenBucket} per key, e.g. per user.
+ *
+ * Buckets live in a {@link ConcurrentHashMap}, whose bins are locked independently, and are
+ * themselves lock-free. Full buckets are equivalent to absent ones, so once more than
+ * {@code maxKeys} buckets exist the idle ones are swept. If the map is still full afterwards,
+ * new keys are let through untracked rather than rejected, the global limits still apply.
+ */
+public class TokenBuckets {
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final double ratePerSecond;
+    private final int burst;
+    private final int maxKeys;
+    private final Clock clock;
+
+    /**
+     * @param ratePerSecond tokens added per second to each bucket
+     * @param burst capacity of each bucket
+     * @param maxKeys number of buckets kept before idle ones are swept
+     * @param clock clock the rate is measured with
+     */
+    public TokenBuckets(double ratePerSecond, int burst, int maxKeys, Clock clock) {
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.maxKeys = maxKeys;
+        this.clock = clock;
+    }
+
+    /**
+     * Take one token from the bucket of a key
+     * @param key the key, e.g. the user name
+     * @return 0 if a token was taken, otherwise the time in microseconds until one is available
+     */
+    public long tryAcquire(String key) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxKeys && !sweep()) {
+                return 0;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(ratePerSecond, burst, clock));
+        }
+        return bucket.tryAcquire();
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private boolean sweep() {
+        // One sweeping thread is enough, the others go ahead untracked meanwhile
+        if (sweeping.compareAndSet(false, true)) {
+            try {
+                buckets.values().removeIf(TokenBucket::isIdle);
+            } finally {
+                sweeping.set(false);
+            }
+        }
+        return buckets.size() < maxKeys;
+    }
+}
@@ -0,0 +1,72 @@
+package de.tum.aet.devops25.w09.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Hash of response content, used as a strong HTTP entity tag.
+ *
+ * Unlike {@link Object#hashCode()} it is the same on every instance and after restarts, so a client or
+ * CDN revalidating against another replica still gets a 304. Values are length-prefixed and null is
+ * distinguished from empty, so different content cannot produce the same input by concatenation.
+ */
+public final class ContentHash {
+
+    private static final int HASH_BYTES = 16;
+
+    private final MessageDigest digest;
+
+    private ContentHash() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform must support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static ContentHash start() {
+        return new ContentHash();
+    }
+
+    public ContentHash add(String value) {
+        if (value == null) {
+            addInt(-1);
+            return this;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        addInt(bytes.length);
+        digest.update(bytes);
+        return this;
+    }
+
+    public ContentHash add(List<String> values) {
+        if (values == null) {
+            addInt(-1);
+            return this;
+        }
+        addInt(values.size());
+        for (String value : values) {
+            add(value);
+        }
+        return this;
+    }
+
+    public ContentHash addInt(int value) {
+        digest.update((byte) (value >>> 24));
+        digest.update((byte) (value >>> 16));
+        digest.update((byte) (value >>> 8));
+        digest.update((byte) value);
+        return this;
+    }
+
+    /**
+     * @return the first 128 bits of the hash in hex, plenty to tell versions of one resource apart
+     */
+    public String hex() {
+        return HexFormat.of().formatHex(digest.digest(), 0, HASH_BYTES);
+    }
+}
@@ -0,0 +1,413 @@
+package de.tum.aet.devops25.w09.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Small bounded in-memory cache with a time-to-live and stale-while-revalidate.
+ *
+ * Concurrent misses for the same key are coalesced: the first caller loads the value,
+ * all others wait for the same future. Entries older than the TTL but still inside the
+ * stale window are served immediately while a single background refresh replaces them; if the
+ * executor rejects the refresh, the stale value is served and the next caller tries again.
+ * Loaders returning null are not cached. Besides the entry count, the cache can be bounded
+ * by a total weight, e.g. an estimate of the retained bytes.
+ * Gets are counted as {@code cache.gets} by result: {@code hit}, {@code miss}, or {@code coalesced}
+ * for callers that waited for another caller's load, which cost load latency but no extra load.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class TtlCache<K, V> {
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+    private final long staleMillis;
+    private final int maxSize;
+    private final long maxWeight;
+    private final ToLongFunction<? super V> weigher;
+    private final AtomicLong weight = new AtomicLong();
+    private final Executor refreshExecutor;
+    private final Clock clock;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter refreshes;
+    private final Counter evictions;
+
+    /**
+     * Create a cache and register its meters as {@code cache.*} tagged with the cache name
+     * @param name cache name used as the {@code cache} tag
+     * @param ttl how long a loaded value is considered fresh
+     * @param staleWhileRevalidate how long after the TTL a value may still be served while refreshing
+     * @param maxSize maximum number of entries before the oldest one is evicted
+     * @param refreshExecutor executor running background refreshes
+     * @param clock clock used to age entries
+     * @param meterRegistry registry for get, refresh and eviction counters
+     */
+    public TtlCache(String name, Duration ttl, Duration staleWhileRevalidate, int maxSize,
+                    Executor refreshExecutor, Clock clock, MeterRegistry meterRegistry) {
+        this(name, ttl, staleWhileRevalidate, maxSize, Long.MAX_VALUE, value -> 0L, refreshExecutor, clock, meterRegistry);
+    }
+
+    /**
+     * Create a cache bounded by entry count and total weight
+     * @param name cache name used as the {@code cache} tag
+     * @param ttl how long a loaded value is considered fresh
+     * @param staleWhileRevalidate how long after the TTL a value may still be served while refreshing
+     * @param maxSize maximum number of entries before the oldest one is evicted
+     * @param maxWeight maximum total weight before the oldest entries are evicted
+     * @param weigher weight of a value, computed once when it is stored
+     * @param refreshExecutor executor running background refreshes
+     * @param clock clock used to age entries
+     * @param meterRegistry registry for get, refresh and eviction counters
+     */
+    public TtlCache(String name, Duration ttl, Duration staleWhileRevalidate, int maxSize,
+                    long maxWeight, ToLongFunction<? super V> weigher,
+                    Executor refreshExecutor, Clock clock, MeterRegistry meterRegistry) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        if (maxWeight < 1) {
+            throw new IllegalArgumentException("maxWeight must be positive");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.staleMillis = staleWhileRevalidate.toMillis();
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+
+        this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss").register(meterRegistry);
+        this.coalesced = Counter.builder("cache.gets").tag("cache", name).tag("result", "coalesced").register(meterRegistry);
+        this.refreshes = Counter.builder("cache.refreshes").tag("cache", name).register(meterRegistry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", name).register(meterRegistry);
+        Gauge.builder("cache.size", entries, Map::size).tag("cache", name).register(meterRegistry);
+        if (maxWeight < Long.MAX_VALUE) {
+            Gauge.builder("cache.weight", weight, AtomicLong::get).tag("cache", name).register(meterRegistry);
+        }
+    }
+
+    /**
+     * Get the value for a key, loading it with the given loader if absent or expired
+     * @param key the cache key
+     * @param loader loads the value on a miss and on background refreshes
+     * @return the cached or freshly loaded value, or null if the loader returned null
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        while (true) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.future.isDone()) {
+                    // Another caller is loading this key, share its result
+                    coalesced.increment();
+                    return await(entry.future);
+                }
+                long age = clock.millis() - entry.loadedAt;
+                if (age < ttlMillis) {
+                    hits.increment();
+                    return await(entry.future);
+                }
+                if (age < ttlMillis + staleMillis) {
+                    hits.increment();
+                    refresh(key, entry, loader);
+                    return await(entry.future);
+                }
+                if (entries.remove(key, entry)) {
+                    weight.addAndGet(-entry.weight);
+                }
+            }
+
+            Entry<V> loading = new Entry<>(new CompletableFuture<>(), 0L, 0L);
+            if (entries.putIfAbsent(key, loading) != null) {
+                continue; // lost the race, wait for the winner on the next iteration
+            }
+            misses.increment();
+            evictIfFull();
+            return load(key, loading, loader);
+        }
+    }
+
+    /**
+     * Get the values for several keys, loading all missing or expired keys with a single call.
+     * Like {@link #get}, concurrent callers share the loads in flight and a key invalidated while
+     * it is loading is not cached, so a bulk read racing with a write never caches the old value.
+     * @param keys the cache keys
+     * @param loader loads the values of the given keys, keys without a value may be left out
+     * @return the values by key, keys without a value are omitted
+     */
+    public Map<K, V> getAll(Collection<? extends K> keys, Function<? super List<K>, ? extends Map<? extends K, ? extends V>> loader) {
+        Map<K, V> values = new HashMap<>();
+        Map<K, Entry<V>> loading = new HashMap<>();
+        Map<K, CompletableFuture<V>> shared = new HashMap<>();
+        for (K key : keys) {
+            if (values.containsKey(key) || loading.containsKey(key) || shared.containsKey(key)) {
+                continue;
+            }
+            while (true) {
+                Entry<V> entry = entries.get(key);
+                if (entry != null) {
+                    if (!entry.future.isDone()) {
+                        coalesced.increment();
+                        shared.put(key, entry.future);
+                        break;
+                    }
+                    long age = clock.millis() - entry.loadedAt;
+                    if (age < ttlMillis + staleMillis) {
+                        hits.increment();
+                        if (age >= ttlMillis) {
+                            refresh(key, entry, k -> loader.apply(List.of(k)).get(k));
+                        }
+                        values.put(key, entry.future.getNow(null));
+                        break;
+                    }
+                    if (entries.remove(key, entry)) {
+                        weight.addAndGet(-entry.weight);
+                    }
+                }
+
+                Entry<V> placeholder = new Entry<>(new CompletableFuture<>(), 0L, 0L);
+                if (entries.putIfAbsent(key, placeholder) == null) {
+                    misses.increment();
+                    loading.put(key, placeholder);
+                    break;
+                }
+            }
+        }
+
+        if (!loading.isEmpty()) {
+            evictIfFull();
+            Map<? extends K, ? extends V> loaded;
+            try {
+                loaded = loader.apply(new ArrayList<>(loading.keySet()));
+            } catch (RuntimeException e) {
+                loading.forEach((key, placeholder) -> {
+                    entries.remove(key, placeholder);
+                    placeholder.future.completeExceptionally(e);
+                });
+                throw e;
+            }
+            loading.forEach((key, placeholder) -> values.put(key, complete(key, placeholder, loaded.get(key))));
+        }
+        // Our own loads are complete before waiting for others, callers sharing loads cannot deadlock
+        shared.forEach((key, future) -> values.put(key, await(future)));
+        values.values().removeIf(Objects::isNull);
+        return values;
+    }
+
+    /**
+     * Get the value for a key without loading it
+     * @param key the cache key
+     * @return the cached value if present and not past its stale window, otherwise null
+     */
+    public V getIfPresent(K key) {
+        return getIfPresent(key, null);
+    }
+
+    /**
+     * Get the value for a key without blocking on a load. A stale value is returned
+     * and refreshed in the background with the given loader, a miss returns null.
+     * @param key the cache key
+     * @param loader loads the value for background refreshes, may be null to skip refreshing
+     * @return the cached value if present and not past its stale window, otherwise null
+     */
+    public V getIfPresent(K key, Function<? super K, ? extends V> loader) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || !entry.future.isDone() || entry.future.isCompletedExceptionally()) {
+            misses.increment();
+            return null;
+        }
+        long age = clock.millis() - entry.loadedAt;
+        if (age >= ttlMillis + staleMillis) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (age >= ttlMillis && loader != null) {
+            refresh(key, entry, loader);
+        }
+        return entry.future.getNow(null);
+    }
+
+    /**
+     * How long the cached value for a key stays fresh, e.g. to derive HTTP cache lifetimes
+     * @param key the cache key
+     * @return the time until the entry expires, zero if it is absent, loading or already past its TTL
+     */
+    public Duration freshFor(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || !entry.future.isDone() || entry.future.isCompletedExceptionally()) {
+            return Duration.ZERO;
+        }
+        return Duration.ofMillis(Math.max(0, entry.loadedAt + ttlMillis - clock.millis()));
+    }
+
+    /**
+     * Store a value directly, replacing any existing entry
+     * @param key the cache key
+     * @param value the value to store
+     */
+    public void put(K key, V value) {
+        put(key, value, clock.instant());
+    }
+
+    /**
+     * Store a value that was loaded earlier, e.g. restored from disk. It ages from the given instant,
+     * so an old value is served stale and refreshed like any other entry.
+     * @param key the cache key
+     * @param value the value to store
+     * @param loadedAt when the value was originally loaded
+     */
+    public void put(K key, V value, Instant loadedAt) {
+        Entry<V> entry = new Entry<>(CompletableFuture.completedFuture(value), loadedAt.toEpochMilli(), weigher.applyAsLong(value));
+        Entry<V> previous = entries.put(key, entry);
+        weight.addAndGet(entry.weight - (previous == null ? 0L : previous.weight));
+        evictIfFull();
+    }
+
+    /**
+     * Remove the entry for a key. A load in flight for the key is not cached when it completes,
+     * so callers invalidating after a write never see the value from before the write.
+     * @param key the cache key
+     */
+    public void invalidate(K key) {
+        Entry<V> previous = entries.remove(key);
+        if (previous != null) {
+            weight.addAndGet(-previous.weight);
+        }
+    }
+
+    public void invalidateAll() {
+        entries.keySet().forEach(this::invalidate);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the total weight of the cached values, zero if the cache has no weigher
+     */
+    public long weight() {
+        return weight.get();
+    }
+
+    private V load(K key, Entry<V> loading, Function<? super K, ? extends V> loader) {
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException e) {
+            entries.remove(key, loading);
+            loading.future.completeExceptionally(e);
+            throw e;
+        }
+        return complete(key, loading, value);
+    }
+
+    private V complete(K key, Entry<V> loading, V value) {
+        if (value == null) {
+            entries.remove(key, loading);
+        } else {
+            // Replace the placeholder so the entry carries its load time and weight
+            Entry<V> loaded = new Entry<>(loading.future, clock.millis(), weigher.applyAsLong(value));
+            if (entries.replace(key, loading, loaded)) {
+                weight.addAndGet(loaded.weight);
+            }
+        }
+        loading.future.complete(value);
+        evictIfFull();
+        return value;
+    }
+
+    private void refresh(K key, Entry<V> stale, Function<? super K, ? extends V> loader) {
+        if (!stale.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture<V> refresh;
+        try {
+            refresh = CompletableFuture.supplyAsync(() -> loader.apply(key), refreshExecutor);
+        } catch (RejectedExecutionException e) {
+            // No thread to spare, keep serving the stale value and let a later caller try again
+            stale.refreshing.set(false);
+            return;
+        }
+        refreshes.increment();
+        refresh.whenComplete((value, error) -> {
+                    if (error == null && value != null) {
+                        Entry<V> refreshed = new Entry<>(CompletableFuture.completedFuture(value), clock.millis(), weigher.applyAsLong(value));
+                        if (entries.replace(key, stale, refreshed)) {
+                            weight.addAndGet(refreshed.weight - stale.weight);
+                            evictIfFull();
+                        }
+                    } else {
+                        // Keep serving the stale value and allow the next caller to retry
+                        stale.refreshing.set(false);
+                    }
+                });
+    }
+
+    private void evictIfFull() {
+        while (entries.size() > maxSize || weight.get() > maxWeight) {
+            // In-flight loads are never evicted, only completed entries by age
+            Optional<Map.Entry<K, Entry<V>>> oldest = entries.entrySet().stream()
+                    .filter(e -> e.getValue().future.isDone())
+                    .min(Comparator.comparingLong(e -> e.getValue().loadedAt));
+            if (oldest.isEmpty()) {
+                return;
+            }
+            if (entries.remove(oldest.get().getKey(), oldest.get().getValue())) {
+                weight.addAndGet(-oldest.get().getValue().weight);
+                evictions.increment();
+            }
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Entry<V> {
+        private final CompletableFuture<V> future;
+        private final long loadedAt;
+        private final long weight;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private Entry(CompletableFuture<V> future, long loadedAt, long weight) {
+            this.future = future;
+            this.loadedAt = loadedAt;
+            this.weight = weight;
+        }
+    }
+}
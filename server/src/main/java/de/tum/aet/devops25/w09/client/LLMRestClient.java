@@ -1,30 +1,55 @@
 package de.tum.aet.devops25.w09.client;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tum.aet.devops25.w09.dto.RecommendBatchRequest;
 import de.tum.aet.devops25.w09.dto.RecommendRequest;
 import de.tum.aet.devops25.w09.dto.RecommendResponse;
+import de.tum.aet.devops25.w09.dto.UserRecommendation;
+import de.tum.aet.devops25.w09.resilience.ResiliencePolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Component
 public class LLMRestClient {
 
+    private static final Logger log = LoggerFactory.getLogger(LLMRestClient.class);
+
     private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+    private final ResiliencePolicy resilience;
 
-    public LLMRestClient(RestClient.Builder builder, @Value("${llm.service.url:http://localhost:5000}") String llmServiceUrl) {
+    public LLMRestClient(RestClient.Builder builder, @Qualifier("llmRequestFactory") ClientHttpRequestFactory requestFactory,
+                         ObjectMapper objectMapper, ResiliencePolicy llmResilience,
+                         @Value("${llm.service.url:http://localhost:5000}") String llmServiceUrl) {
         this.restClient = builder
+                .requestFactory(requestFactory)
                 .baseUrl(llmServiceUrl)
                 .build();
+        this.objectMapper = objectMapper;
+        this.resilience = llmResilience;
     }
 
     /**
      * Generate recommendations using the REST LLM service
      * @param favoriteMenu list of user's favorite meal names
      * @param todaysMenu list of today's available meal names
-     * @return recommendation string
+     * @return recommendation string, empty if the service failed, timed out or is rejected by the circuit breaker
      */
     public String generateRecommendations(List<String> favoriteMenu, List<String> todaysMenu) {
         try {
@@ -32,19 +57,125 @@ public class LLMRestClient {
             RecommendRequest request = new RecommendRequest(favoriteMenu, todaysMenu);
 
             // TODO Make REST call
-            RecommendResponse response = restClient.post()
+            RecommendResponse response = resilience.call(() -> restClient.post()
                     .uri("/recommend")
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(request)
                     .retrieve()
-                    .body(RecommendResponse.class);
+                    .body(RecommendResponse.class));
 
             // TODO Extract the recommendation
             return response != null ? response.recommendation() : "";
 
         } catch (Exception e) {
-            System.err.println("Error calling LLM REST service: " + e.getMessage());
+            log.warn("Error calling LLM REST service: {}", e.getMessage());
             return "";
         }
     }
+
+    /**
+     * Generate a recommendation using the streaming REST LLM service, relaying tokens as they arrive
+     * @param favoriteMenu list of user's favorite meal names
+     * @param todaysMenu list of today's available meal names
+     * @param onToken called for every generated token
+     * @return the complete recommendation string, empty if the service failed
+     */
+    public String streamRecommendations(List<String> favoriteMenu, List<String> todaysMenu, Consumer<String> onToken) {
+        RecommendRequest request = new RecommendRequest(favoriteMenu, todaysMenu);
+        AtomicReference<String> recommendation = new AtomicReference<>("");
+        // A failing consumer, e.g. a disconnected client, must not count as a failure of the LLM service
+        AtomicReference<RuntimeException> consumerFailure = new AtomicReference<>();
+
+        try {
+            resilience.callWithoutTimeout(() -> restClient.post()
+                    .uri("/recommend/stream")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.TEXT_EVENT_STREAM)
+                    .body(request)
+                    .exchange((clientRequest, response) -> {
+                        if (response.getStatusCode().isError()) {
+                            throw new RestClientResponseException("Streaming recommendation failed", response.getStatusCode(),
+                                    response.getStatusText(), response.getHeaders(), null, null);
+                        }
+                        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                            String event = "message";
+                            String line;
+                            while (consumerFailure.get() == null && (line = reader.readLine()) != null) {
+                                if (line.startsWith("event:")) {
+                                    event = line.substring("event:".length()).trim();
+                                } else if (line.startsWith("data:")) {
+                                    JsonNode data = objectMapper.readTree(line.substring("data:".length()));
+                                    switch (event) {
+                                        case "token" -> accept(onToken, data.path("token").asText(), consumerFailure);
+                                        case "done" -> recommendation.set(data.path("recommendation").asText());
+                                        case "error" -> log.warn("LLM REST service stream failed: {}", data.path("detail").asText());
+                                        default -> { }
+                                    }
+                                } else if (line.isEmpty()) {
+                                    event = "message";
+                                }
+                            }
+                        }
+                        return null;
+                    }));
+        } catch (Exception e) {
+            log.warn("Error calling LLM REST streaming service: {}", e.getMessage());
+        }
+        if (consumerFailure.get() != null) {
+            log.debug("Stopped relaying LLM tokens: {}", consumerFailure.get().getMessage());
+        }
+        return recommendation.get();
+    }
+
+    /**
+     * Generate recommendations for several users with one call to the REST LLM service.
+     * The service answers with one JSON object per line as soon as each user is done.
+     * @param favoritesByUser favorite meal names by user name
+     * @param todaysMenu list of today's available meal names
+     * @param onRecommendation called for every recommendation as it arrives
+     */
+    public void generateBatchRecommendations(Map<String, List<String>> favoritesByUser, List<String> todaysMenu,
+                                             Consumer<UserRecommendation> onRecommendation) {
+        List<RecommendBatchRequest.UserFavorites> users = favoritesByUser.entrySet().stream()
+                .map(entry -> new RecommendBatchRequest.UserFavorites(entry.getKey(), entry.getValue()))
+                .toList();
+        RecommendBatchRequest request = new RecommendBatchRequest(todaysMenu, users);
+        AtomicReference<RuntimeException> consumerFailure = new AtomicReference<>();
+
+        try {
+            resilience.callWithoutTimeout(() -> restClient.post()
+                    .uri("/recommend/batch")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .accept(MediaType.APPLICATION_NDJSON)
+                    .body(request)
+                    .exchange((clientRequest, response) -> {
+                        if (response.getStatusCode().isError()) {
+                            throw new RestClientResponseException("Batch recommendation failed", response.getStatusCode(),
+                                    response.getStatusText(), response.getHeaders(), null, null);
+                        }
+                        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                            String line;
+                            while (consumerFailure.get() == null && (line = reader.readLine()) != null) {
+                                if (!line.isBlank()) {
+                                    accept(onRecommendation, objectMapper.readValue(line, UserRecommendation.class), consumerFailure);
+                                }
+                            }
+                        }
+                        return null;
+                    }));
+        } catch (Exception e) {
+            log.warn("Error calling LLM REST batch service: {}", e.getMessage());
+        }
+        if (consumerFailure.get() != null) {
+            log.debug("Stopped relaying batch recommendations: {}", consumerFailure.get().getMessage());
+        }
+    }
+
+    private static <T> void accept(Consumer<T> consumer, T value, AtomicReference<RuntimeException> failure) {
+        try {
+            consumer.accept(value);
+        } catch (RuntimeException e) {
+            failure.set(e);
+        }
+    }
 }
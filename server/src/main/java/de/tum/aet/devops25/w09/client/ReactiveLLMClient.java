@@ -0,0 +1,55 @@
+package de.tum.aet.devops25.w09.client;
+
+import de.tum.aet.devops25.w09.dto.RecommendRequest;
+import de.tum.aet.devops25.w09.dto.RecommendResponse;
+import de.tum.aet.devops25.w09.resilience.ResiliencePolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link LLMRestClient}, guarded by the same {@link ResiliencePolicy}
+ */
+@Component
+@ConditionalOnProperty(name = "recommendation.mode", havingValue = "reactive")
+public class ReactiveLLMClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveLLMClient.class);
+
+    private final WebClient webClient;
+    private final ResiliencePolicy resilience;
+
+    public ReactiveLLMClient(@Qualifier("llmWebClient") WebClient webClient, ResiliencePolicy llmResilience) {
+        this.webClient = webClient;
+        this.resilience = llmResilience;
+    }
+
+    /**
+     * Generate recommendations using the REST LLM service
+     * @param favoriteMenu list of user's favorite meal names
+     * @param todaysMenu list of today's available meal names
+     * @return recommendation string, empty if the service failed, timed out or was not called because
+     *         its circuit breaker is open or its bulkhead is full
+     */
+    public Mono<String> generateRecommendations(List<String> favoriteMenu, List<String> todaysMenu) {
+        return resilience.callReactive(() -> webClient.post()
+                        .uri("/recommend")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(new RecommendRequest(favoriteMenu, todaysMenu))
+                        .retrieve()
+                        .bodyToMono(RecommendResponse.class))
+                .map(response -> response.recommendation() != null ? response.recommendation() : "")
+                .defaultIfEmpty("")
+                .onErrorResume(e -> {
+                    log.warn("Error calling LLM REST service: {}", e.getMessage());
+                    return Mono.just("");
+                });
+    }
+}
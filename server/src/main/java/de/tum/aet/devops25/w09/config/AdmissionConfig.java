@@ -0,0 +1,53 @@
+package de.tum.aet.devops25.w09.config;
+
+import de.tum.aet.devops25.w09.admission.AdaptiveConcurrencyLimit;
+import de.tum.aet.devops25.w09.admission.AdmissionFilter;
+import de.tum.aet.devops25.w09.admission.TokenBucket;
+import de.tum.aet.devops25.w09.admission.TokenBuckets;
+import de.tum.aet.devops25.w09.resilience.ResiliencePolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Clock;
+
+@Configuration
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+
+    /**
+     * Admission control in front of the recommendation and canteen endpoints.
+     * Clients are told apart by forwarded headers only when {@code server.forward-headers-strategy} says a proxy sets them.
+     * Registered after the observation filter so that rejected requests still show up in {@code http.server.requests}.
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(ResiliencePolicy llmResilience, Clock clock, MeterRegistry meterRegistry,
+                                                                   @Value("${admission.client.rate-per-second:1}") double clientRate,
+                                                                   @Value("${admission.client.burst:10}") int clientBurst,
+                                                                   @Value("${admission.client.max-tracked:100000}") int maxTrackedClients,
+                                                                   @Value("${admission.global.rate-per-second:200}") double globalRate,
+                                                                   @Value("${admission.global.burst:400}") int globalBurst,
+                                                                   @Value("${admission.concurrency.initial-limit:32}") int initialLimit,
+                                                                   @Value("${admission.concurrency.min-limit:4}") int minLimit,
+                                                                   @Value("${admission.concurrency.max-limit:64}") int maxLimit,
+                                                                   @Value("${recommendation.mode:blocking}") String recommendationMode,
+                                                                   @Value("${server.forward-headers-strategy:none}") String forwardHeadersStrategy) {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        // Blocking and reactive clients both call the LLM service through this policy
+        llmResilience.addLatencyListener(concurrencyLimit::onLatency);
+
+        // The reactive route does not know about shed requests, reject them instead
+        AdmissionFilter filter = new AdmissionFilter(
+                new TokenBuckets(clientRate, clientBurst, maxTrackedClients, clock),
+                new TokenBucket(globalRate, globalBurst, clock),
+                concurrencyLimit, !"reactive".equals(recommendationMode), !"none".equalsIgnoreCase(forwardHeadersStrategy),
+                meterRegistry);
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -0,0 +1,57 @@
+package de.tum.aet.devops25.w09.config;
+
+import de.tum.aet.devops25.w09.cache.TtlCache;
+import de.tum.aet.devops25.w09.dto.PreferencesSnapshot;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.CanteenService.WeekKey;
+import de.tum.aet.devops25.w09.service.RecommendationCoalescer.RecommendationKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Cache of parsed eat-api week files, keyed by canteen, year and week number
+     */
+    @Bean
+    public TtlCache<WeekKey, Week> weekCache(ExecutorService backgroundExecutor, Clock clock, MeterRegistry meterRegistry,
+                                             @Value("${canteen.cache.ttl:PT30M}") Duration ttl,
+                                             @Value("${canteen.cache.stale-while-revalidate:PT6H}") Duration staleWhileRevalidate,
+                                             @Value("${canteen.cache.max-size:64}") int maxSize) {
+        return new TtlCache<>("canteen.weeks", ttl, staleWhileRevalidate, maxSize, backgroundExecutor, clock, meterRegistry);
+    }
+
+    /**
+     * Cache of LLM recommendations, keyed by normalized favorites and today's menu
+     */
+    @Bean
+    public TtlCache<RecommendationKey, String> recommendationCache(ExecutorService backgroundExecutor, Clock clock, MeterRegistry meterRegistry,
+                                                                   @Value("${llm.cache.ttl:PT12H}") Duration ttl,
+                                                                   @Value("${llm.cache.max-size:10000}") int maxSize) {
+        // No stale window: a recommendation for an old menu is worthless
+        return new TtlCache<>("llm.recommendations", ttl, Duration.ZERO, maxSize, backgroundExecutor, clock, meterRegistry);
+    }
+
+    /**
+     * Cache of user preference snapshots by user name, empty for unknown users so they do not hit the database either
+     */
+    @Bean
+    public TtlCache<String, Optional<PreferencesSnapshot>> preferenceCache(ExecutorService backgroundExecutor, Clock clock, MeterRegistry meterRegistry,
+                                                                           @Value("${preferences.cache.ttl:PT10M}") Duration ttl,
+                                                                           @Value("${preferences.cache.max-size:100000}") int maxSize,
+                                                                           @Value("${preferences.cache.max-memory:32MB}") DataSize maxMemory) {
+        // Writes invalidate synchronously, the TTL only bounds staleness from other nodes without notifications
+        return new TtlCache<>("user.preferences", ttl, Duration.ZERO, maxSize, maxMemory.toBytes(),
+                snapshot -> snapshot.map(PreferencesSnapshot::estimatedSize).orElse(64L),
+                backgroundExecutor, clock, meterRegistry);
+    }
+}
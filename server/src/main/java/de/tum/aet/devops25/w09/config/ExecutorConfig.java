@@ -0,0 +1,39 @@
+package de.tum.aet.devops25.w09.config;
+
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Shared executor for background work such as cache refreshes and parallel fan-out.
+     * Uses one virtual thread per task when {@code spring.threads.virtual.enabled} is set,
+     * the same switch that moves Tomcat's request threads to virtual threads; those are cheap,
+     * and the bulkheads and connection pools the tasks call bound the work they can do.
+     * Otherwise platform threads are pooled up to {@code background.executor.max-threads}. Tasks never
+     * queue: when all threads are busy a submission fails with a {@link java.util.concurrent.RejectedExecutionException}
+     * and the caller degrades, e.g. serves a stale value or reports a canteen as unavailable. Running the
+     * task on the caller instead would silently drop the timeouts that waiting for it on another thread gives.
+     * Tasks run with the observation of the submitting thread, so their spans join its trace.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService backgroundExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                              @Value("${background.executor.max-threads:256}") int maxThreads) {
+        ExecutorService executor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("background-", 0).factory())
+                : new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                        Thread.ofPlatform().name("background-", 0).daemon(true).factory(), new ThreadPoolExecutor.AbortPolicy());
+        ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+        return ContextExecutorService.wrap(executor, snapshotFactory::captureAll);
+    }
+}
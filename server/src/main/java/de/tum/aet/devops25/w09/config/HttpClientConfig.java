@@ -0,0 +1,74 @@
+package de.tum.aet.devops25.w09.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.time.Duration;
+
+/**
+ * Outbound HTTP clients, one connection pool per upstream.
+ *
+ * Connections are kept alive and reused, gzip responses are decoded transparently
+ * and every pool reports its utilization as {@code httpcomponents.httpclient.pool.*} meters.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public ClientHttpRequestFactory canteenRequestFactory(MeterRegistry meterRegistry,
+                                                          @Value("${http.client.canteen.max-connections:20}") int maxConnections,
+                                                          @Value("${http.client.canteen.connect-timeout:PT2S}") Duration connectTimeout,
+                                                          @Value("${http.client.canteen.read-timeout:PT10S}") Duration readTimeout,
+                                                          @Value("${http.client.canteen.keep-alive:PT1M}") Duration keepAlive) {
+        return pooledRequestFactory("canteen", meterRegistry, maxConnections, connectTimeout, readTimeout, keepAlive);
+    }
+
+    @Bean
+    public ClientHttpRequestFactory llmRequestFactory(MeterRegistry meterRegistry,
+                                                      @Value("${http.client.llm.max-connections:100}") int maxConnections,
+                                                      @Value("${http.client.llm.connect-timeout:PT2S}") Duration connectTimeout,
+                                                      @Value("${http.client.llm.read-timeout:PT35S}") Duration readTimeout,
+                                                      @Value("${http.client.llm.keep-alive:PT1M}") Duration keepAlive) {
+        return pooledRequestFactory("llm", meterRegistry, maxConnections, connectTimeout, readTimeout, keepAlive);
+    }
+
+    private static ClientHttpRequestFactory pooledRequestFactory(String target, MeterRegistry meterRegistry, int maxConnections,
+                                                                 Duration connectTimeout, Duration readTimeout, Duration keepAlive) {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnections)
+                .setMaxConnPerRoute(maxConnections)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeout.toMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .setTimeToLive(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, target).bindTo(meterRegistry);
+
+        // Content compression (Accept-Encoding: gzip, deflate and decoding) is enabled by default
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofMilliseconds(readTimeout.toMillis()))
+                        .setConnectionKeepAlive(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                        .build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAlive.toMillis()))
+                .build();
+        return new HttpComponentsClientHttpRequestFactory(httpClient);
+    }
+}
@@ -0,0 +1,38 @@
+package de.tum.aet.devops25.w09.config;
+
+import de.tum.aet.devops25.w09.service.ReactiveRecommendationService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.function.RouterFunction;
+import org.springframework.web.servlet.function.RouterFunctions;
+import org.springframework.web.servlet.function.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Routes {@code GET /recommend/{name}} to the non-blocking pipeline when {@code recommendation.mode=reactive}.
+ * Functional routes are matched before annotated controllers, so this replaces the blocking endpoint
+ * while the other recommendation endpoints stay untouched.
+ * The pipeline only recommends from the default canteen: requests with a {@code canteens} parameter
+ * are not matched here and fall through to the blocking endpoint.
+ */
+@Configuration
+@ConditionalOnProperty(name = "recommendation.mode", havingValue = "reactive")
+public class ReactiveRoutesConfig {
+
+    @Bean
+    public RouterFunction<ServerResponse> reactiveRecommendationRoute(ReactiveRecommendationService reactiveRecommendationService) {
+        return RouterFunctions.route()
+                .GET("/recommend/{name}", request -> request.param("canteens").isEmpty(), request -> ServerResponse.async(
+                        reactiveRecommendationService.getRecommendation(request.pathVariable("name"))
+                                .map(recommendation -> ServerResponse.ok().body(Map.of("recommendation", recommendation)))
+                                .defaultIfEmpty(ServerResponse.noContent().build())
+                                .onErrorResume(TimeoutException.class,
+                                        e -> Mono.just(ServerResponse.status(HttpStatus.GATEWAY_TIMEOUT).build()))))
+                .build();
+    }
+}
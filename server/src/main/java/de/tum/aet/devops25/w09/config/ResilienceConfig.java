@@ -0,0 +1,37 @@
+package de.tum.aet.devops25.w09.config;
+
+import de.tum.aet.devops25.w09.resilience.CircuitBreaker;
+import de.tum.aet.devops25.w09.resilience.ResiliencePolicy;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+@Configuration
+public class ResilienceConfig {
+
+    /**
+     * Circuit breaker, bulkhead and adaptive timeout around the calls to the LLM service
+     */
+    @Bean
+    public ResiliencePolicy llmResilience(ExecutorService backgroundExecutor, Clock clock, MeterRegistry meterRegistry,
+                                          @Value("${llm.resilience.circuit-breaker.window-size:20}") int windowSize,
+                                          @Value("${llm.resilience.circuit-breaker.minimum-calls:10}") int minimumCalls,
+                                          @Value("${llm.resilience.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                                          @Value("${llm.resilience.circuit-breaker.open-duration:PT30S}") Duration openDuration,
+                                          @Value("${llm.resilience.circuit-breaker.half-open-probes:2}") int halfOpenProbes,
+                                          @Value("${llm.resilience.bulkhead.max-concurrent-calls:64}") int maxConcurrentCalls,
+                                          @Value("${llm.resilience.timeout.min:PT5S}") Duration minTimeout,
+                                          @Value("${llm.resilience.timeout.max:PT35S}") Duration maxTimeout,
+                                          @Value("${llm.resilience.timeout.multiplier:2.0}") double timeoutMultiplier,
+                                          @Value("${llm.resilience.hedging.enabled:false}") boolean hedging) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("llm", windowSize, minimumCalls, failureRateThreshold,
+                openDuration, halfOpenProbes, clock);
+        return new ResiliencePolicy("llm", circuitBreaker, maxConcurrentCalls, minTimeout, maxTimeout, timeoutMultiplier,
+                hedging, backgroundExecutor, meterRegistry);
+    }
+}
@@ -0,0 +1,26 @@
+package de.tum.aet.devops25.w09.config;
+
+import io.micrometer.observation.ObservationPredicate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+
+/**
+ * Tracing is switched on at runtime with {@code management.tracing.sampling.probability}; the tracing
+ * beans are always created, so the AOT-processed image honours the setting. Sampled traces are exported
+ * over OTLP, which ones are kept is decided by tail sampling in the collector, see {@code otel-collector.yaml}.
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Skip observations of actuator requests: probes and scrapes would otherwise start a trace every few seconds
+     */
+    @Bean
+    public ObservationPredicate noActuatorObservations(@Value("${server.servlet.context-path:}") String contextPath) {
+        String actuatorPath = contextPath + "/actuator";
+        return (name, context) -> !(context instanceof ServerRequestObservationContext serverContext
+                && serverContext.getCarrier().getRequestURI().startsWith(actuatorPath));
+    }
+}
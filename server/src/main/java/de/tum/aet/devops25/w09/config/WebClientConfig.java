@@ -0,0 +1,52 @@
+package de.tum.aet.devops25.w09.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking client for the reactive recommendation mode. Menus are loaded through the blocking
+ * {@code CanteenService} in both modes, so only the LLM service gets a WebClient.
+ *
+ * The pool bounds the number of connections and of requests waiting for one; requests beyond
+ * that fail fast instead of queueing, which is the backpressure of the reactive path.
+ */
+@Configuration
+@ConditionalOnProperty(name = "recommendation.mode", havingValue = "reactive")
+public class WebClientConfig {
+
+    @Bean
+    public WebClient llmWebClient(WebClient.Builder builder,
+                                  @Value("${llm.service.url:http://localhost:5000}") String llmServiceUrl,
+                                  @Value("${http.client.llm.max-connections:100}") int maxConnections,
+                                  @Value("${http.client.llm.connect-timeout:PT2S}") Duration connectTimeout,
+                                  @Value("${http.client.llm.read-timeout:PT35S}") Duration readTimeout) {
+        return builder.clone()
+                .baseUrl(llmServiceUrl)
+                .clientConnector(connector("llm", maxConnections, connectTimeout, readTimeout))
+                .build();
+    }
+
+    private static ReactorClientHttpConnector connector(String target, int maxConnections, Duration connectTimeout, Duration readTimeout) {
+        ConnectionProvider provider = ConnectionProvider.builder(target)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(maxConnections * 10)
+                .pendingAcquireTimeout(connectTimeout)
+                .maxIdleTime(Duration.ofMinutes(1))
+                .metrics(true)
+                .build();
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(readTimeout)
+                .compress(true);
+        return new ReactorClientHttpConnector(httpClient);
+    }
+}
@@ -1,17 +1,30 @@
 package de.tum.aet.devops25.w09.controller;
 
+import de.tum.aet.devops25.w09.cache.ContentHash;
+import de.tum.aet.devops25.w09.dto.CanteenMenus;
 import de.tum.aet.devops25.w09.dto.Dish;
 import de.tum.aet.devops25.w09.service.CanteenService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
 
 @RestController
 public class CanteenController {
 
+    static final int MAX_CANTEENS = 16;
+    static final Pattern CANTEEN_ID = Pattern.compile("[a-z0-9-]+");
+    static final int MAX_LABELS = 16;
+    static final Pattern LABEL = Pattern.compile("[A-Z0-9_]+");
+
     private final CanteenService canteenService;
 
     public CanteenController(CanteenService canteenService) {
@@ -19,18 +32,81 @@ public class CanteenController {
     }
 
     /**
-     * Get today's meals for a specific canteen
+     * Get today's meals for a specific canteen, optionally filtered by labels
      * @param canteenName the ID of the canteen (e.g., "mensa-garching")
-     * @return list of dishes available today at the specified canteen
+     * @param labels comma-separated labels every dish must have (e.g., "VEGAN,GLUTEN_FREE")
+     * @param excludeLabels comma-separated labels no dish may have (e.g., "PORK")
+     * @return list of dishes available today at the specified canteen, or 304 if the client's copy is current
      */
     @GetMapping("/{canteenName}/today")
-    public ResponseEntity<List<Dish>> getTodayMeals(@PathVariable("canteenName") String canteenName) {
-        List<Dish> todayMeals = canteenService.getTodayMeals(canteenName);
+    public ResponseEntity<List<Dish>> getTodayMeals(@PathVariable("canteenName") String canteenName,
+                                                    @RequestParam(name = "labels", required = false) List<String> labels,
+                                                    @RequestParam(name = "excludeLabels", required = false) List<String> excludeLabels) {
+        if (!validLabels(labels) || !validLabels(excludeLabels)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        List<Dish> todayMeals = labels == null && excludeLabels == null
+                ? canteenService.getTodayMeals(canteenName)
+                : canteenService.getTodayMeals(canteenName, labels, excludeLabels);
         
         if (todayMeals.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
         
-        return ResponseEntity.ok(todayMeals);
+        // A matching If-None-Match is answered with 304 by Spring, based on the ETag
+        return ResponseEntity.ok()
+                .eTag(menuHash(ContentHash.start(), todayMeals).hex())
+                .cacheControl(menuCacheControl(canteenService.todayMenuFreshFor(canteenName)))
+                .body(todayMeals);
+    }
+
+    /**
+     * Get today's meals for several canteens with one request
+     * @param canteens comma-separated canteen IDs (e.g., "mensa-garching,mensa-arcisstr")
+     * @return dishes by canteen; canteens that did not answer in time are listed as unavailable
+     *         and make the response uncacheable, since they may answer on the next request
+     */
+    @GetMapping("/today")
+    public ResponseEntity<CanteenMenus> getTodayMeals(@RequestParam("canteens") List<String> canteens) {
+        if (canteens.isEmpty() || canteens.size() > MAX_CANTEENS
+                || !canteens.stream().allMatch(canteen -> CANTEEN_ID.matcher(canteen).matches())) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        CanteenMenus menus = canteenService.getTodayMeals(canteens);
+        if (menus.menus().isEmpty()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(menus);
+        }
+        ContentHash hash = ContentHash.start();
+        Duration freshFor = null;
+        for (Map.Entry<String, List<Dish>> menu : menus.menus().entrySet()) {
+            menuHash(hash.add(menu.getKey()), menu.getValue());
+            Duration canteenFreshFor = canteenService.todayMenuFreshFor(menu.getKey());
+            freshFor = freshFor == null || canteenFreshFor.compareTo(freshFor) < 0 ? canteenFreshFor : freshFor;
+        }
+        hash.add(menus.unavailable());
+        return ResponseEntity.ok()
+                .eTag(hash.hex())
+                .cacheControl(menuCacheControl(menus.unavailable().isEmpty() ? freshFor : Duration.ZERO))
+                .body(menus);
+    }
+
+    private static ContentHash menuHash(ContentHash hash, List<Dish> dishes) {
+        hash.addInt(dishes.size());
+        for (Dish dish : dishes) {
+            hash.add(dish.name()).add(dish.dish_type()).add(dish.labels());
+        }
+        return hash;
+    }
+
+    private static CacheControl menuCacheControl(Duration freshFor) {
+        // Menus are the same for everyone, so shared caches such as a CDN may store them too
+        return CacheControl.maxAge(freshFor).cachePublic();
+    }
+
+    private static boolean validLabels(List<String> labels) {
+        return labels == null || (labels.size() <= MAX_LABELS
+                && labels.stream().allMatch(label -> LABEL.matcher(label).matches()));
     }
 }
@@ -0,0 +1,65 @@
+package de.tum.aet.devops25.w09.controller;
+
+import de.tum.aet.devops25.w09.dto.DishSuggestion;
+import de.tum.aet.devops25.w09.dto.PopularDish;
+import de.tum.aet.devops25.w09.service.CanteenService;
+import de.tum.aet.devops25.w09.service.DishPopularity;
+import de.tum.aet.devops25.w09.service.DishSearchIndex;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/dishes")
+public class DishController {
+
+    static final int MAX_QUERY_LENGTH = 100;
+    static final int MAX_LIMIT = 50;
+
+    private final DishSearchIndex searchIndex;
+    private final DishPopularity popularity;
+    private final CanteenService canteenService;
+
+    public DishController(DishSearchIndex searchIndex, DishPopularity popularity, CanteenService canteenService) {
+        this.searchIndex = searchIndex;
+        this.popularity = popularity;
+        this.canteenService = canteenService;
+    }
+
+    /**
+     * Autocomplete dish names from all menus seen so far, tolerating typos
+     * @param query the text typed so far (e.g., "schnitz")
+     * @param limit the maximum number of suggestions
+     * @return matching dishes, best match first; an empty list if nothing matches
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<DishSuggestion>> search(@RequestParam("q") String query,
+                                                       @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        if (query.isBlank() || query.length() > MAX_QUERY_LENGTH || limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(searchIndex.search(query, limit));
+    }
+
+    /**
+     * The dishes most users have among their favorite meals
+     * @param canteen the ID of a canteen to rank today's menu of (e.g., "mensa-garching"), all favorites if absent
+     * @param limit the maximum number of dishes
+     * @return the dishes favorited at least once, most favorited first
+     */
+    @GetMapping("/popular")
+    public ResponseEntity<List<PopularDish>> popular(@RequestParam(name = "canteen", required = false) String canteen,
+                                                     @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        if ((canteen != null && !CanteenController.CANTEEN_ID.matcher(canteen).matches()) || limit < 1 || limit > MAX_LIMIT) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (canteen == null) {
+            return ResponseEntity.ok(popularity.top(limit));
+        }
+        return ResponseEntity.ok(popularity.top(canteen, canteenService.getTodayMeals(canteen), limit));
+    }
+}
@@ -1,53 +1,217 @@
 package de.tum.aet.devops25.w09.controller;
 
-import de.tum.aet.devops25.w09.entity.UserPreferences;
+import de.tum.aet.devops25.w09.admission.AdmissionFilter;
 import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.UserRecommendation;
 import de.tum.aet.devops25.w09.service.CanteenService;
 import de.tum.aet.devops25.w09.service.LLMRecommendationService;
+import de.tum.aet.devops25.w09.service.RecommendationService;
 import de.tum.aet.devops25.w09.service.UserPreferenceService;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 public class RecommendationController {
+    private final RecommendationService recommendationService;
     private final LLMRecommendationService llmRecommendationService;
     private final UserPreferenceService userPreferenceService;
     private final CanteenService canteenService;
+    private final ExecutorService backgroundExecutor;
+    private final Duration batchTimeout;
+    private final int maxBatchSize;
+    private final Duration streamTimeout;
 
-    public RecommendationController(LLMRecommendationService llmRecommendationService, UserPreferenceService userPreferenceService, CanteenService canteenService) {
+    public RecommendationController(RecommendationService recommendationService, LLMRecommendationService llmRecommendationService,
+                                    UserPreferenceService userPreferenceService, CanteenService canteenService, ExecutorService backgroundExecutor,
+                                    @Value("${recommendation.batch.timeout:PT10M}") Duration batchTimeout,
+                                    @Value("${recommendation.batch.max-size:1000}") int maxBatchSize,
+                                    @Value("${recommendation.deadline:PT35S}") Duration deadline) {
+        this.recommendationService = recommendationService;
         this.llmRecommendationService = llmRecommendationService;
         this.userPreferenceService = userPreferenceService;
         this.canteenService = canteenService;
+        this.backgroundExecutor = backgroundExecutor;
+        this.batchTimeout = batchTimeout;
+        this.maxBatchSize = maxBatchSize;
+        // Leave room for the final event after the recommendation deadline
+        this.streamTimeout = deadline.plusSeconds(5);
     }
 
+    /**
+     * Get a recommendation based on today's menu
+     * @param name the user name
+     * @param canteens optional comma-separated canteen IDs to recommend across, defaults to mensa-garching
+     * @param shedRetryAfter set by admission control if the LLM service must not be called for this request
+     * @return the recommendation, 204 if none is available, 504 if it could not be computed in time,
+     *         503 if the request was shed and no recommendation is available without the LLM service
+     */
     @GetMapping("/recommend/{name}")
-    public ResponseEntity<Map<String, String>> getRecommendation(@PathVariable String name) {
+    public ResponseEntity<Map<String, String>> getRecommendation(@PathVariable String name,
+                                                                 @RequestParam(name = "canteens", required = false) List<String> canteens,
+                                                                 @RequestAttribute(name = AdmissionFilter.SHED_RETRY_AFTER, required = false) Long shedRetryAfter) {
+        if (!isValid(canteens)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (shedRetryAfter != null) {
+            return recommendationService.getDegradedRecommendation(name, canteensOrDefault(canteens))
+                    .map(recommendation -> ResponseEntity.ok(Map.of("recommendation", recommendation)))
+                    .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                            .header(HttpHeaders.RETRY_AFTER, shedRetryAfter.toString())
+                            .build());
+        }
+        try {
+            // Preference lookup and menu fetch run in parallel, then the LLM call, which has its own timeout
+            return recommendationService.getRecommendation(name, canteensOrDefault(canteens))
+                    .map(recommendation -> ResponseEntity.ok(Map.of("recommendation", recommendation)))
+                    .orElseGet(() -> ResponseEntity.noContent().build());
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        }
+    }
 
-        //Get the favorite meal from database
-        UserPreferences userPreferences = userPreferenceService.getPreferences(name);
+    /**
+     * Stream a recommendation as server-sent events while the LLM generates it.
+     * Emits one {@code token} event per chunk and a final {@code done} event with the full recommendation,
+     * which is empty if the user has no favorites or no recommendation is available.
+     * Once the client disconnects, no further events are produced and the LLM stream is abandoned.
+     * @param name the user name
+     * @param canteens optional comma-separated canteen IDs to recommend across, defaults to mensa-garching
+     * @return the event stream, 503 if no background thread is free to run it
+     */
+    @GetMapping(value = "/recommend/{name}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamRecommendation(@PathVariable String name,
+                                           @RequestParam(name = "canteens", required = false) List<String> canteens) {
+        if (!isValid(canteens)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid canteens");
+        }
+        List<String> selectedCanteens = canteensOrDefault(canteens);
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        // Set once the client is gone or the stream timed out, the next token then stops the LLM stream
+        AtomicBoolean closed = new AtomicBoolean();
+        emitter.onError(e -> closed.set(true));
+        emitter.onTimeout(() -> closed.set(true));
+        emitter.onCompletion(() -> closed.set(true));
+        // One task per stream: the LLM stream runs on it, only the menu fetch, usually a cache hit, takes another
+        execute(() -> {
+            if (closed.get()) {
+                return; // Gone while the task was queued
+            }
+            try {
+                Optional<String> recommendation = recommendationService.streamRecommendation(name, selectedCanteens,
+                        token -> sendEvent(emitter, closed, "token", Map.of("token", token)));
+                sendEvent(emitter, closed, "done", Map.of("recommendation", recommendation.orElse("")));
+                emitter.complete();
+            } catch (TimeoutException e) {
+                sendEvent(emitter, closed, "error", Map.of("detail", "Recommendation timed out"));
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
 
-        if (userPreferences == null || userPreferences.getFavoriteMeals() == null || userPreferences.getFavoriteMeals().isEmpty()) {
-            return ResponseEntity.noContent().build(); // No favorites found
+    /**
+     * Get recommendations for many users at once.
+     * Preferences are loaded with one query, the menu is fetched once and the LLM service is called once.
+     * @param names the user names, at most {@code recommendation.batch.max-size}
+     * @return newline-delimited JSON, one {@link UserRecommendation} per user as soon as it is available,
+     *         400 if there are too many names or a name is blank, 503 if no background thread is free to run it
+     */
+    @PostMapping(value = "/recommend/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseBodyEmitter getBatchRecommendations(@RequestBody List<String> names) {
+        if (names.size() > maxBatchSize || names.stream().anyMatch(name -> name == null || name.isBlank())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxBatchSize + " non-blank names expected");
         }
+        Set<String> distinctNames = new LinkedHashSet<>(names);
+        Map<String, List<String>> favoritesByUser = userPreferenceService.getFavoriteMeals(distinctNames);
 
-        //Get the today's menu from canteenService.getTodayMeals
-        List<Dish> todaysMeals = canteenService.getTodayMeals("mensa-garching");
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeout.toMillis());
+        execute(() -> {
+            try {
+                // Users without favorites are answered right away
+                distinctNames.stream()
+                        .filter(name -> !favoritesByUser.containsKey(name))
+                        .forEach(name -> send(emitter, new UserRecommendation(name, "")));
 
-        // TODO call LLM service to get recommendation based on the user's favorites
-        String responseFromLLMService = llmRecommendationService.getRecommendationFromLLM(userPreferences.getFavoriteMeals(), todaysMeals);
+                if (!favoritesByUser.isEmpty()) {
+                    List<Dish> todaysMeals = canteenService.getTodayMeals(RecommendationService.DEFAULT_CANTEEN);
+                    llmRecommendationService.streamRecommendationsFromLLM(favoritesByUser, todaysMeals, rec -> send(emitter, rec));
+                }
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
 
-        if (responseFromLLMService.isEmpty()) {
-            return ResponseEntity.noContent().build();
+    private void execute(Runnable task) {
+        try {
+            backgroundExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Running it on the request thread would block a servlet thread for the whole stream
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "No capacity to start the stream", e);
         }
+    }
 
-        return ResponseEntity.ok(Map.of("recommendation", responseFromLLMService));
+    private static boolean isValid(List<String> canteens) {
+        return canteens == null
+                || (!canteens.isEmpty() && canteens.size() <= CanteenController.MAX_CANTEENS
+                    && canteens.stream().allMatch(canteen -> CanteenController.CANTEEN_ID.matcher(canteen).matches()));
     }
 
-    
+    private static List<String> canteensOrDefault(List<String> canteens) {
+        return canteens == null ? List.of(RecommendationService.DEFAULT_CANTEEN) : canteens;
+    }
+
+    private static void send(ResponseBodyEmitter emitter, UserRecommendation recommendation) {
+        try {
+            emitter.send(recommendation, MediaType.APPLICATION_JSON);
+            emitter.send("\n", MediaType.TEXT_PLAIN);
+        } catch (IOException e) {
+            // The client went away, stop producing
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void sendEvent(SseEmitter emitter, AtomicBoolean closed, String name, Map<String, String> data) {
+        if (closed.get()) {
+            throw new IllegalStateException("Event stream already closed");
+        }
+        try {
+            // JSON payloads keep leading spaces and newlines of tokens intact
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            // The client went away, stop producing
+            throw new UncheckedIOException(e);
+        }
+    }
 }
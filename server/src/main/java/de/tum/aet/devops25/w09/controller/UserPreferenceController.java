@@ -1,32 +1,68 @@
 package de.tum.aet.devops25.w09.controller;
 
-import de.tum.aet.devops25.w09.entity.UserPreferences;
+import de.tum.aet.devops25.w09.dto.PreferencesSnapshot;
+import de.tum.aet.devops25.w09.service.DishSearchIndex;
 import de.tum.aet.devops25.w09.service.UserPreferenceService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/preferences")
 public class UserPreferenceController {
 
     //private final UserPreferenceRepository repository;
     private final UserPreferenceService userPreferenceService;
+    private final DishSearchIndex searchIndex;
 
-    public UserPreferenceController(UserPreferenceService userPreferenceService) {
+    public UserPreferenceController(UserPreferenceService userPreferenceService, DishSearchIndex searchIndex) {
         this.userPreferenceService = userPreferenceService;
+        this.searchIndex = searchIndex;
     }
 
+    /**
+     * Get a user's preferences
+     * @param name the user name
+     * @return the preferences with their version as ETag, or 304 if the client's copy is current
+     */
     @GetMapping("/{name}")
-    public UserPreferences getPreferences(@PathVariable String name) {
-        return userPreferenceService.getPreferences(name);
+    public ResponseEntity<PreferencesSnapshot> getPreferences(@PathVariable String name) {
+        PreferencesSnapshot preferences = userPreferenceService.getPreferences(name);
+        if (preferences == null) {
+            return ResponseEntity.ok().build();
+        }
+        // Preferences change with every write, so caches must revalidate, which costs a 304 at most
+        return ResponseEntity.ok()
+                .eTag(preferences.version())
+                .cacheControl(CacheControl.noCache())
+                .body(preferences);
     }
 
+    /**
+     * Add a favorite meal
+     * @param name the user name
+     * @param meal the meal as typed by the user
+     * @param resolve whether to store the name of the most similar dish served so far instead, if there is one
+     * @return the updated preferences
+     */
     @PostMapping("/{name}")
-    public UserPreferences addPreference(@PathVariable String name, @RequestParam String meal) {
-        return userPreferenceService.addPreferences(name, meal);
+    public PreferencesSnapshot addPreference(@PathVariable String name, @RequestParam String meal,
+                                             @RequestParam(defaultValue = "false") boolean resolve) {
+        String favorite = resolve
+                ? searchIndex.resolve(meal).map(suggestion -> suggestion.dish().name()).orElse(meal)
+                : meal;
+        return userPreferenceService.addPreferences(name, favorite);
+    }
+
+    @PutMapping("/{name}")
+    public PreferencesSnapshot replacePreferences(@PathVariable String name, @RequestBody List<String> meals) {
+        return userPreferenceService.replacePreferences(name, meals);
     }
 
     @DeleteMapping("/{name}")
-    public UserPreferences removePreference(@PathVariable String name, @RequestParam String meal) {
+    public PreferencesSnapshot removePreference(@PathVariable String name, @RequestParam String meal) {
         return userPreferenceService.removePreference(name, meal);
     }
 }
@@ -0,0 +1,15 @@
+package de.tum.aet.devops25.w09.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Today's dishes of several canteens. Canteens whose week file could not be loaded
+ * in time are listed as unavailable instead of failing the whole response.
+ */
+public record CanteenMenus(
+    @JsonProperty("menus") Map<String, List<Dish>> menus,
+    @JsonProperty("unavailable") List<String> unavailable
+) {}
@@ -0,0 +1,20 @@
+package de.tum.aet.devops25.w09.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * A dish from past or current menus matching a search
+ * @param dish the dish as last served
+ * @param canteens the canteens that served it
+ * @param lastServed the latest date it was on a menu
+ * @param score how well it matches the query, between 0 and 1
+ */
+public record DishSuggestion(
+    @JsonProperty("dish") Dish dish,
+    @JsonProperty("canteens") List<String> canteens,
+    @JsonProperty("last_served") LocalDate lastServed,
+    @JsonProperty("score") double score
+) {}
@@ -0,0 +1,15 @@
+package de.tum.aet.devops25.w09.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A dish with the number of users who have it among their favorite meals
+ * @param name the dish name, as on the menu or as first favorited
+ * @param favorites the number of favorites
+ * @param dish the dish as on today's menu, null in the overall ranking
+ */
+public record PopularDish(
+    @JsonProperty("name") String name,
+    @JsonProperty("favorites") long favorites,
+    @JsonProperty("dish") Dish dish
+) {}
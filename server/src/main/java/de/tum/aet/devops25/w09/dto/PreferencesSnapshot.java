@@ -0,0 +1,44 @@
+package de.tum.aet.devops25.w09.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import de.tum.aet.devops25.w09.cache.ContentHash;
+import de.tum.aet.devops25.w09.entity.UserPreferences;
+
+import java.util.List;
+
+/**
+ * Immutable copy of a user's preferences, safe to cache and share between threads.
+ * Serializes like the {@link UserPreferences} entity.
+ */
+public record PreferencesSnapshot(
+    @JsonProperty("name") String name,
+    @JsonProperty("favoriteMeals") List<String> favoriteMeals
+) {
+
+    public PreferencesSnapshot {
+        favoriteMeals = List.copyOf(favoriteMeals);
+    }
+
+    public static PreferencesSnapshot of(UserPreferences userPreferences) {
+        return new PreferencesSnapshot(userPreferences.getName(), List.copyOf(userPreferences.getFavoriteMeals()));
+    }
+
+    /**
+     * Version of the preferences derived from their content, used as HTTP entity tag.
+     * It changes with every change of the favorites and is the same on every instance.
+     */
+    public String version() {
+        return ContentHash.start().add(name).add(favoriteMeals).hex();
+    }
+
+    /**
+     * Rough number of retained bytes, used to bound the preference cache by memory
+     */
+    public long estimatedSize() {
+        long size = 96 + 2L * name.length();
+        for (String meal : favoriteMeals) {
+            size += 56 + 2L * meal.length();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,16 @@
+package de.tum.aet.devops25.w09.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public record RecommendBatchRequest(
+    @JsonProperty("todays_menu") List<String> todaysMenu,
+    @JsonProperty("users") List<UserFavorites> users
+) {
+
+    public record UserFavorites(
+        @JsonProperty("name") String name,
+        @JsonProperty("favorite_menu") List<String> favoriteMenu
+    ) {}
+}
@@ -0,0 +1,11 @@
+package de.tum.aet.devops25.w09.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One line of a batch recommendation stream
+ */
+public record UserRecommendation(
+    @JsonProperty("name") String name,
+    @JsonProperty("recommendation") String recommendation
+) {}
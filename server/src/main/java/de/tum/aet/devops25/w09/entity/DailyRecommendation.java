@@ -0,0 +1,44 @@
+package de.tum.aet.devops25.w09.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "daily_recommendation")
+public class DailyRecommendation {
+    @EmbeddedId
+    private DailyRecommendationId id;
+
+    // Unbounded, LLM answers have no fixed maximum length
+    @Column(nullable = false, columnDefinition = "text")
+    private String recommendation;
+
+    private Instant createdAt;
+
+    // Default constructor required by JPA
+    public DailyRecommendation() {}
+
+    // Constructor for convenience
+    public DailyRecommendation(DailyRecommendationId id, String recommendation, Instant createdAt) {
+        this.id = id;
+        this.recommendation = recommendation;
+        this.createdAt = createdAt;
+    }
+
+    // Getters
+    public DailyRecommendationId getId() {
+        return id;
+    }
+
+    public String getRecommendation() {
+        return recommendation;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,10 @@
+package de.tum.aet.devops25.w09.entity;
+
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+public record DailyRecommendationId(String userName, String canteen, LocalDate date) implements Serializable {
+}
@@ -1,11 +1,18 @@
 package de.tum.aet.devops25.w09.entity;
 
+import jakarta.persistence.CollectionTable;
+import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
-import java.util.List;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 @Entity
 @Table(name = "user_preferences")
@@ -13,16 +20,24 @@ public class UserPreferences {
     @Id
     private String name;
     
+    // Table and column names are fixed because UserPreferenceRepository mutates them with native statements.
+    // The unique constraint is created by schema.sql, which removes duplicates of older tables first
     @ElementCollection
-    private List<String> favoriteMeals;
+    @CollectionTable(name = "user_preferences_favorite_meals",
+            joinColumns = @JoinColumn(name = "user_preferences_name"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_user_preferences_favorite_meals",
+                    columnNames = {"user_preferences_name", "favorite_meals"}))
+    @Column(name = "favorite_meals")
+    @OrderBy
+    private Set<String> favoriteMeals = new LinkedHashSet<>();
     
     // Default constructor required by JPA
     public UserPreferences() {}
     
     // Constructor for convenience
-    public UserPreferences(String name, List<String> favoriteMeals) {
+    public UserPreferences(String name, Collection<String> favoriteMeals) {
         this.name = name;
-        this.favoriteMeals = favoriteMeals;
+        this.favoriteMeals = new LinkedHashSet<>(favoriteMeals);
     }
     
     // Getters and setters
@@ -34,7 +49,7 @@ public class UserPreferences {
         this.name = name;
     }
     
-    public List<String> getFavoriteMeals() {
+    public Set<String> getFavoriteMeals() {
         return favoriteMeals;
     }
 }
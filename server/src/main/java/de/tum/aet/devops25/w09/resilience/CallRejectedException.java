@@ -0,0 +1,12 @@
+package de.tum.aet.devops25.w09.resilience;
+
+/**
+ * Thrown without calling the dependency because its circuit breaker is open, its bulkhead is full
+ * or the executor has no free thread to run the call on
+ */
+public class CallRejectedException extends RuntimeException {
+
+    public CallRejectedException(String message) {
+        super(message);
+    }
+}
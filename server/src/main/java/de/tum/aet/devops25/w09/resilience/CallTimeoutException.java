@@ -0,0 +1,11 @@
+package de.tum.aet.devops25.w09.resilience;
+
+/**
+ * Thrown when a call did not complete within the current adaptive timeout
+ */
+public class CallTimeoutException extends RuntimeException {
+
+    public CallTimeoutException(String message) {
+        super(message);
+    }
+}
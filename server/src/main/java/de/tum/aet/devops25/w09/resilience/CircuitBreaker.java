@@ -0,0 +1,165 @@
+package de.tum.aet.devops25.w09.resilience;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Count-based circuit breaker.
+ *
+ * While closed, the outcomes of the last {@code windowSize} calls are kept; once at least
+ * {@code minimumCalls} were recorded and the failure rate reaches the threshold, the breaker opens
+ * and rejects calls for {@code openDuration}. It then lets {@code halfOpenProbes} calls through:
+ * if all succeed it closes again, a single failure opens it for another period.
+ *
+ * Each permission carries the breaker's generation, so outcomes of calls started before a
+ * state change do not count towards the new state.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMillis;
+    private final int halfOpenProbes;
+    private final Clock clock;
+
+    private final boolean[] window;
+    private int windowIndex;
+    private int bufferedCalls;
+    private int failedCalls;
+
+    private State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    /**
+     * @param name name used in rejection messages
+     * @param windowSize number of recent calls the failure rate is computed over
+     * @param minimumCalls calls required in the window before the breaker may open
+     * @param failureRateThreshold failure rate between 0 and 1 at which the breaker opens
+     * @param openDuration how long calls are rejected before probing
+     * @param halfOpenProbes number of successful probes required to close again
+     * @param clock clock used to time the open state
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          Duration openDuration, int halfOpenProbes, Clock clock) {
+        if (windowSize < 1 || minimumCalls < 1 || halfOpenProbes < 1) {
+            throw new IllegalArgumentException("windowSize, minimumCalls and halfOpenProbes must be positive");
+        }
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMillis = openDuration.toMillis();
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+    }
+
+    /**
+     * Ask for permission to call the dependency
+     * @return a permit to report the outcome with
+     * @throws CallRejectedException if the breaker is open or all probes are in flight
+     */
+    public synchronized long acquirePermission() {
+        if (state == State.OPEN) {
+            if (clock.millis() - openedAt < openMillis) {
+                throw new CallRejectedException(name + " circuit breaker is open");
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                throw new CallRejectedException(name + " circuit breaker is half-open, probes in flight");
+            }
+            probesInFlight++;
+        }
+        return generation;
+    }
+
+    public synchronized void onSuccess(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            probesInFlight--;
+            if (++probeSuccesses >= halfOpenProbes) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure(long permit) {
+        if (permit != generation) {
+            return;
+        }
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+            return;
+        }
+        record(true);
+        if (bufferedCalls >= minimumCalls && failureRate() >= failureRateThreshold) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * Give a permit back without an outcome, e.g. because the call was rejected by a bulkhead
+     * @param permit the permit
+     */
+    public synchronized void release(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            probesInFlight--;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.millis() - openedAt >= openMillis) {
+            return State.HALF_OPEN; // the next call will probe
+        }
+        return state;
+    }
+
+    public synchronized double failureRate() {
+        return bufferedCalls == 0 ? 0.0 : (double) failedCalls / bufferedCalls;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return bufferedCalls;
+    }
+
+    private void record(boolean failed) {
+        if (bufferedCalls == window.length) {
+            if (window[windowIndex]) {
+                failedCalls--;
+            }
+        } else {
+            bufferedCalls++;
+        }
+        window[windowIndex] = failed;
+        if (failed) {
+            failedCalls++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void transition(State next) {
+        state = next;
+        generation++;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+        if (next == State.OPEN) {
+            openedAt = clock.millis();
+        }
+        if (next == State.CLOSED) {
+            windowIndex = 0;
+            bufferedCalls = 0;
+            failedCalls = 0;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package de.tum.aet.devops25.w09.resilience;
+
+import java.util.Arrays;
+
+/**
+ * Latencies of the most recent successful calls, used to derive timeouts and hedging delays
+ */
+public class LatencyTracker {
+
+    private final long[] samples;
+    private int index;
+    private int size;
+
+    public LatencyTracker(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long nanos) {
+        samples[index] = nanos;
+        index = (index + 1) % samples.length;
+        size = Math.min(size + 1, samples.length);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return the latency at the given percentile in nanoseconds, or -1 without samples
+     */
+    public long percentile(double percentile) {
+        long[] sorted;
+        synchronized (this) {
+            if (size == 0) {
+                return -1;
+            }
+            sorted = Arrays.copyOf(samples, size);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,30 @@
+package de.tum.aet.devops25.w09.resilience;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Exposes the state of every {@link ResiliencePolicy} at {@code /actuator/resilience}
+ */
+@Component
+@Endpoint(id = "resilience")
+public class ResilienceEndpoint {
+
+    private final List<ResiliencePolicy> policies;
+
+    public ResilienceEndpoint(List<ResiliencePolicy> policies) {
+        this.policies = policies;
+    }
+
+    @ReadOperation
+    public Map<String, ResiliencePolicy.Status> policies() {
+        Map<String, ResiliencePolicy.Status> status = new TreeMap<>();
+        policies.forEach(policy -> status.put(policy.getName(), policy.status()));
+        return status;
+    }
+}
@@ -0,0 +1,360 @@
+package de.tum.aet.devops25.w09.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Protects the callers of one dependency from its failures and slowness.
+ *
+ * A call first needs a permission from the {@link CircuitBreaker}, then a permit from the
+ * bulkhead, which rejects immediately instead of queueing once the concurrency limit is reached.
+ * Bounded calls run on the executor and are abandoned after an adaptive timeout: the configured
+ * maximum until enough latencies were observed, then a multiple of the 99th percentile, clamped
+ * between minimum and maximum. With hedging enabled, a second attempt is started when the first
+ * one is slower than the 95th percentile, and the first successful answer wins.
+ *
+ * Reactive clients get the same protection through {@link #callReactive}, which applies the timeout to
+ * the Mono instead of a thread, so both modes feed the same breaker, bulkhead and latency listeners.
+ *
+ * Bulkhead permits are held until the underlying call really finishes, so an abandoned call keeps
+ * counting against the limit. Meters are registered as {@code resilience.*} tagged with the policy name.
+ */
+public class ResiliencePolicy {
+
+    private static final int MIN_SAMPLES = 20;
+    private static final double TIMEOUT_PERCENTILE = 0.99;
+    private static final double HEDGE_PERCENTILE = 0.95;
+
+    private final String name;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final LatencyTracker latencies = new LatencyTracker(200);
+    private final long minTimeoutNanos;
+    private final long maxTimeoutNanos;
+    private final double timeoutMultiplier;
+    private final boolean hedging;
+    private final ExecutorService executor;
+    private final List<LongConsumer> latencyListeners = new CopyOnWriteArrayList<>();
+
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter timeouts;
+    private final Counter rejections;
+    private final Counter hedges;
+
+    /**
+     * @param name policy name used as the {@code policy} tag and in error messages
+     * @param circuitBreaker breaker guarding the dependency
+     * @param maxConcurrentCalls bulkhead size
+     * @param minTimeout lower bound of the adaptive timeout
+     * @param maxTimeout upper bound of the adaptive timeout, used until enough latencies were observed
+     * @param timeoutMultiplier factor applied to the 99th percentile latency
+     * @param hedging whether slow calls are hedged with a second attempt
+     * @param executor executor running bounded calls
+     * @param meterRegistry registry for call outcome counters and state gauges
+     */
+    public ResiliencePolicy(String name, CircuitBreaker circuitBreaker, int maxConcurrentCalls,
+                            Duration minTimeout, Duration maxTimeout, double timeoutMultiplier, boolean hedging,
+                            ExecutorService executor, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.minTimeoutNanos = minTimeout.toNanos();
+        this.maxTimeoutNanos = maxTimeout.toNanos();
+        this.timeoutMultiplier = timeoutMultiplier;
+        this.hedging = hedging;
+        this.executor = executor;
+
+        this.successes = outcome(meterRegistry, "success");
+        this.failures = outcome(meterRegistry, "failure");
+        this.timeouts = outcome(meterRegistry, "timeout");
+        this.rejections = outcome(meterRegistry, "rejected");
+        this.hedges = Counter.builder("resilience.hedges").tag("policy", name).register(meterRegistry);
+        Gauge.builder("resilience.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .tag("policy", name).description("0 closed, 1 open, 2 half-open").register(meterRegistry);
+        Gauge.builder("resilience.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .tag("policy", name).register(meterRegistry);
+        Gauge.builder("resilience.timeout", this, policy -> policy.currentTimeout().toMillis() / 1000.0)
+                .tag("policy", name).baseUnit("seconds").register(meterRegistry);
+    }
+
+    /**
+     * Call the dependency with circuit breaker, bulkhead, adaptive timeout and optional hedging
+     * @param call the call, must be safe to run twice if hedging is enabled
+     * @return the result of the first successful attempt
+     * @throws CallRejectedException if the circuit breaker is open, the bulkhead is full or the executor has no free thread
+     * @throws CallTimeoutException if no attempt completed within the timeout
+     */
+    public <T> T call(Supplier<T> call) {
+        long permit = acquirePermission();
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + currentTimeout().toNanos();
+        List<Attempt<T>> attempts = new ArrayList<>(2);
+        try {
+            attempts.add(start(call).orElseThrow(() -> new CallRejectedException(name + " bulkhead or executor is full")));
+            T result = hedging ? awaitHedged(call, attempts, deadlineNanos) : await(attempts, deadlineNanos);
+            circuitBreaker.onSuccess(permit);
+            successes.increment();
+            return result;
+        } catch (CallRejectedException e) {
+            circuitBreaker.release(permit);
+            rejections.increment();
+            throw e;
+        } catch (CallTimeoutException e) {
+            circuitBreaker.onFailure(permit);
+            timeouts.increment();
+            // The real latency is unknown but at least this long
+            notifyListeners(System.nanoTime() - startNanos);
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(permit);
+            failures.increment();
+            throw e;
+        } finally {
+            attempts.forEach(this::abandon);
+        }
+    }
+
+    /**
+     * Non-blocking variant of {@link #call} for reactive clients, with the same circuit breaker, bulkhead,
+     * adaptive timeout and latency listeners but without hedging. The permit is taken on subscription and
+     * given back when the call completes or is cancelled, a cancelled call does not count against the circuit.
+     * @param call creates the call, subscribed to once per subscription of the result
+     * @return the result, or a {@link CallRejectedException} or {@link CallTimeoutException} error
+     */
+    public <T> Mono<T> callReactive(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            long permit = acquirePermission();
+            if (!bulkhead.tryAcquire()) {
+                circuitBreaker.release(permit);
+                rejections.increment();
+                return Mono.error(new CallRejectedException(name + " bulkhead is full"));
+            }
+            long startNanos = System.nanoTime();
+            Duration timeout = currentTimeout();
+            return Mono.defer(call)
+                    .timeout(timeout, Mono.error(() -> new CallTimeoutException(name + " did not answer within " + timeout.toMillis() + " ms")))
+                    .doOnSuccess(value -> {
+                        long latency = System.nanoTime() - startNanos;
+                        latencies.record(latency);
+                        notifyListeners(latency);
+                        circuitBreaker.onSuccess(permit);
+                        successes.increment();
+                    })
+                    .doOnError(e -> {
+                        circuitBreaker.onFailure(permit);
+                        if (e instanceof CallTimeoutException) {
+                            timeouts.increment();
+                            // The real latency is unknown but at least this long
+                            notifyListeners(System.nanoTime() - startNanos);
+                        } else {
+                            failures.increment();
+                        }
+                    })
+                    .doOnCancel(() -> circuitBreaker.release(permit))
+                    .doFinally(signal -> bulkhead.release());
+        });
+    }
+
+    /**
+     * Call the dependency on the calling thread with circuit breaker and bulkhead only,
+     * for long-running calls such as streams whose duration says nothing about the dependency's health
+     * @param call the call
+     * @return the result
+     * @throws CallRejectedException if the circuit breaker is open or the bulkhead is full
+     */
+    public <T> T callWithoutTimeout(Supplier<T> call) {
+        long permit = acquirePermission();
+        if (!bulkhead.tryAcquire()) {
+            circuitBreaker.release(permit);
+            rejections.increment();
+            throw new CallRejectedException(name + " bulkhead is full");
+        }
+        try {
+            T result = call.get();
+            circuitBreaker.onSuccess(permit);
+            successes.increment();
+            return result;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(permit);
+            failures.increment();
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Register a listener for the latency of bounded calls, e.g. to adapt admission limits.
+     * It is called with the latency of every completed attempt and with the elapsed time of timed out calls.
+     * @param listener called with the latency in nanoseconds
+     */
+    public void addLatencyListener(LongConsumer listener) {
+        latencyListeners.add(listener);
+    }
+
+    /**
+     * @return the timeout applied to the next bounded call
+     */
+    public Duration currentTimeout() {
+        if (latencies.size() < MIN_SAMPLES) {
+            return Duration.ofNanos(maxTimeoutNanos);
+        }
+        long adaptive = (long) (latencies.percentile(TIMEOUT_PERCENTILE) * timeoutMultiplier);
+        return Duration.ofNanos(Math.max(minTimeoutNanos, Math.min(maxTimeoutNanos, adaptive)));
+    }
+
+    /**
+     * @return the current state, e.g. for the actuator
+     */
+    public Status status() {
+        long p99 = latencies.percentile(TIMEOUT_PERCENTILE);
+        return new Status(circuitBreaker.getState(), circuitBreaker.failureRate(), circuitBreaker.getBufferedCalls(),
+                bulkhead.availablePermits(), maxConcurrentCalls, currentTimeout().toMillis(),
+                p99 < 0 ? null : TimeUnit.NANOSECONDS.toMillis(p99), hedging);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * State of a policy as exposed by the actuator
+     */
+    public record Status(CircuitBreaker.State circuitState, double failureRate, int bufferedCalls,
+                         int availableConcurrentCalls, int maxConcurrentCalls, long timeoutMillis,
+                         Long p99LatencyMillis, boolean hedging) {}
+
+    private long acquirePermission() {
+        try {
+            return circuitBreaker.acquirePermission();
+        } catch (CallRejectedException e) {
+            rejections.increment();
+            throw e;
+        }
+    }
+
+    private <T> T awaitHedged(Supplier<T> call, List<Attempt<T>> attempts, long deadlineNanos) {
+        if (latencies.size() < MIN_SAMPLES) {
+            return await(attempts, deadlineNanos);
+        }
+        long hedgeAtNanos = System.nanoTime() + latencies.percentile(HEDGE_PERCENTILE);
+        try {
+            return await(attempts, Math.min(hedgeAtNanos, deadlineNanos));
+        } catch (CallTimeoutException e) {
+            if (hedgeAtNanos >= deadlineNanos) {
+                throw e;
+            }
+        }
+        // The first attempt is slow: race it against a second one if the bulkhead has room
+        start(call).ifPresent(hedge -> {
+            attempts.add(hedge);
+            hedges.increment();
+        });
+        return await(attempts, deadlineNanos);
+    }
+
+    private <T> Optional<Attempt<T>> start(Supplier<T> call) {
+        if (!bulkhead.tryAcquire()) {
+            return Optional.empty();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return; // abandoned before it started, the caller gave the permit back
+                }
+                long start = System.nanoTime();
+                try {
+                    T value = call.get();
+                    long latency = System.nanoTime() - start;
+                    latencies.record(latency);
+                    notifyListeners(latency);
+                    // Release before completing so a caller issuing its next call right away finds the permit
+                    bulkhead.release();
+                    result.complete(value);
+                } catch (Throwable t) {
+                    bulkhead.release();
+                    result.completeExceptionally(t);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Running the attempt on the caller would bypass the timeout and hedging
+            bulkhead.release();
+            return Optional.empty();
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            throw e;
+        }
+        return Optional.of(new Attempt<>(task, result, claimed));
+    }
+
+    private void abandon(Attempt<?> attempt) {
+        if (attempt.claimed().compareAndSet(false, true)) {
+            bulkhead.release();
+        }
+        attempt.task().cancel(true);
+    }
+
+    private <T> T await(List<Attempt<T>> attempts, long deadlineNanos) {
+        // Completes with the first success, or with the last failure once every attempt failed
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (Attempt<T> attempt : attempts) {
+            attempt.result().whenComplete((value, error) -> {
+                if (error == null) {
+                    winner.complete(value);
+                } else if (failed.incrementAndGet() == attempts.size()) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        try {
+            return winner.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            throw new CallTimeoutException(name + " did not answer within " + currentTimeout().toMillis() + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CallTimeoutException(name + " call interrupted");
+        }
+    }
+
+    private void notifyListeners(long nanos) {
+        latencyListeners.forEach(listener -> listener.accept(nanos));
+    }
+
+    private Counter outcome(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("resilience.calls").tag("policy", name).tag("outcome", outcome).register(meterRegistry);
+    }
+
+    private record Attempt<T>(Future<?> task, CompletableFuture<T> result, AtomicBoolean claimed) {}
+}
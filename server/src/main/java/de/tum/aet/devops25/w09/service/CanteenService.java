@@ -1,29 +1,123 @@
 package de.tum.aet.devops25.w09.service;
 
+import de.tum.aet.devops25.w09.cache.TtlCache;
+import de.tum.aet.devops25.w09.dto.CanteenMenus;
 import de.tum.aet.devops25.w09.dto.Day;
 import de.tum.aet.devops25.w09.dto.Dish;
 import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.WeekSnapshotStore.Snapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class CanteenService {
 
+    private static final Logger log = LoggerFactory.getLogger(CanteenService.class);
+    private static final int LAST_FETCHED_MAX_SIZE = 256;
+
     private final RestClient restClient;
     private final Clock clock;
+    private final TtlCache<WeekKey, Week> weekCache;
+    private final ExecutorService backgroundExecutor;
+    private final Semaphore fetchPermits;
+    private final Duration fetchTimeout;
+    private final WeekSnapshotStore snapshotStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DishCatalog catalog;
+    private final DishSearchIndex searchIndex;
+    private final WeekParser weekParser;
+    // Last fetched version and validators of each week, bounded like the week cache
+    private final Map<WeekKey, Snapshot> lastFetched = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<WeekKey, Snapshot> eldest) {
+            return size() > LAST_FETCHED_MAX_SIZE;
+        }
+    });
 
-    public CanteenService(RestClient.Builder builder, Clock clock,
-                          @Value("${canteen.api.base-url:https://tum-dev.github.io/eat-api/}") String baseUrl) {
-        this.restClient = builder.baseUrl(baseUrl).build();
+    public CanteenService(RestClient.Builder builder, @Qualifier("canteenRequestFactory") ClientHttpRequestFactory requestFactory,
+                          Clock clock, TtlCache<WeekKey, Week> weekCache, WeekSnapshotStore snapshotStore, WeekParser weekParser,
+                          DishCatalog catalog, DishSearchIndex searchIndex,
+                          ApplicationEventPublisher eventPublisher, ExecutorService backgroundExecutor,
+                          @Value("${canteen.api.base-url:https://tum-dev.github.io/eat-api/}") String baseUrl,
+                          @Value("${canteen.fetch.concurrency:8}") int fetchConcurrency,
+                          @Value("${canteen.fetch.timeout:PT3S}") Duration fetchTimeout) {
+        this.restClient = builder.requestFactory(requestFactory).baseUrl(baseUrl).build();
         this.clock = clock;
+        this.weekCache = weekCache;
+        this.backgroundExecutor = backgroundExecutor;
+        this.fetchPermits = new Semaphore(fetchConcurrency);
+        this.fetchTimeout = fetchTimeout;
+        this.snapshotStore = snapshotStore;
+        this.eventPublisher = eventPublisher;
+        this.catalog = catalog;
+        this.searchIndex = searchIndex;
+        this.weekParser = weekParser;
+    }
+
+    /**
+     * Fill the week cache from the snapshot store before the application reports ready.
+     * Snapshots age from the time they were fetched, so outdated ones are refreshed in the background.
+     * Snapshots of other weeks only feed the dish search index, also in the background.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void warmUp() {
+        LocalDate today = LocalDate.now(clock);
+        List<WeekKey> history = new ArrayList<>();
+        for (WeekKey key : snapshotStore.keys()) {
+            if (key.equals(WeekKey.of(key.canteen(), today))) {
+                snapshotStore.load(key).ifPresent(snapshot -> {
+                    lastFetched.put(key, snapshot);
+                    weekCache.put(key, snapshot.week(), snapshot.savedAt());
+                    searchIndex.add(key.canteen(), snapshot.week());
+                    try {
+                        backgroundExecutor.execute(() -> weekCache.get(key, this::fetchWeek));
+                    } catch (RejectedExecutionException e) {
+                        // The snapshot is served until the first request refreshes it
+                        log.warn("No background thread free to refresh the snapshot of {}", key);
+                    }
+                });
+            } else {
+                history.add(key);
+            }
+        }
+        if (!history.isEmpty()) {
+            backgroundExecutor.execute(() -> history.forEach(key ->
+                    snapshotStore.load(key).ifPresent(snapshot -> searchIndex.add(key.canteen(), snapshot.week()))));
+        }
     }
 
     /**
@@ -33,28 +127,177 @@ public class CanteenService {
      */
     public List<Dish> getTodayMeals(String canteenName) {
         LocalDate today = LocalDate.now(clock);
-        int year = today.getYear();
-        int weekNumber = today.get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear());
-        String weekStr = String.format("%02d", weekNumber);
-        
+
         try {
-            Week week = restClient.get()
-                    .uri(canteenName + "/" + year + "/" + weekStr + ".json")
-                    .retrieve()
-                    .body(Week.class);
-            
-            if (week != null && week.days() != null) {
-                Optional<Day> todayMenu = week.days().stream()
-                        .filter(day -> day.date().equals(today))
-                        .findFirst();
-                
-                return todayMenu.map(Day::dishes).orElse(List.of());
-            }
+            return todayMeals(canteenName, today);
         } catch (Exception e) {
-            // Log the exception or handle it as appropriate
-            System.err.println("Error fetching meals: " + e.getMessage());
+            log.warn("Error fetching meals for {}: {}", canteenName, e.getMessage());
         }
         
         return List.of();
     }
+
+    /**
+     * Get today's meals for a specific canteen that carry all of some labels and none of others
+     * @param canteenName the name of the canteen, e.g., "mensa-garching"
+     * @param labels labels every dish must have, e.g. "VEGAN", may be empty
+     * @param excludedLabels labels no dish may have, e.g. "PORK", may be empty
+     * @return the matching dishes available today in menu order, or empty list if none match
+     */
+    public List<Dish> getTodayMeals(String canteenName, Collection<String> labels, Collection<String> excludedLabels) {
+        return catalog.filter(getTodayMeals(canteenName), catalog.labelFilter(labels, excludedLabels));
+    }
+
+    /**
+     * How long today's menu of a canteen stays as it is served now: until the cached week file expires,
+     * but at most until midnight, when today's menu becomes another day's
+     * @param canteenName the name of the canteen, e.g., "mensa-garching"
+     * @return the remaining time, zero if the week file is not cached
+     */
+    public Duration todayMenuFreshFor(String canteenName) {
+        LocalDate today = LocalDate.now(clock);
+        Duration untilMidnight = Duration.between(clock.instant(), today.plusDays(1).atStartOfDay(clock.getZone()));
+        Duration cached = weekCache.freshFor(WeekKey.of(canteenName, today));
+        return cached.compareTo(untilMidnight) < 0 ? cached : untilMidnight;
+    }
+
+    /**
+     * Get today's meals for several canteens, fetching their week files in parallel.
+     * At most {@code canteen.fetch.concurrency} fetches run at once and the call returns after
+     * {@code canteen.fetch.timeout} at the latest, so it takes as long as the slowest canteen
+     * rather than the sum of all. Fetches missing the timeout keep running and fill the week cache.
+     * @param canteenNames the canteen names, duplicates are ignored
+     * @return today's dishes by canteen in request order, canteens that failed, timed out or found no free
+     *         background thread are listed as unavailable
+     */
+    public CanteenMenus getTodayMeals(Collection<String> canteenNames) {
+        LocalDate today = LocalDate.now(clock);
+        long deadlineNanos = System.nanoTime() + fetchTimeout.toNanos();
+
+        Map<String, Future<List<Dish>>> fetches = new LinkedHashMap<>();
+        for (String canteenName : new LinkedHashSet<>(canteenNames)) {
+            try {
+                fetches.put(canteenName, backgroundExecutor.submit(() -> todayMealsWithPermit(canteenName, today)));
+            } catch (RejectedExecutionException e) {
+                // Fetching it on this thread would not be bounded by the timeout
+                fetches.put(canteenName, CompletableFuture.failedFuture(e));
+            }
+        }
+
+        Map<String, List<Dish>> menus = new LinkedHashMap<>();
+        List<String> unavailable = new ArrayList<>();
+        for (Map.Entry<String, Future<List<Dish>>> fetch : fetches.entrySet()) {
+            try {
+                menus.put(fetch.getKey(), fetch.getValue().get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                unavailable.add(fetch.getKey());
+            } catch (ExecutionException e) {
+                log.warn("Error fetching meals for {}: {}", fetch.getKey(), e.getCause().getMessage());
+                unavailable.add(fetch.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                unavailable.add(fetch.getKey());
+            }
+        }
+        return new CanteenMenus(menus, unavailable);
+    }
+
+    private List<Dish> todayMealsWithPermit(String canteenName, LocalDate today) throws InterruptedException {
+        fetchPermits.acquire();
+        try {
+            return todayMeals(canteenName, today);
+        } finally {
+            fetchPermits.release();
+        }
+    }
+
+    private List<Dish> todayMeals(String canteenName, LocalDate today) {
+        Week week = weekCache.get(WeekKey.of(canteenName, today), this::fetchWeek);
+        if (week == null || week.days() == null) {
+            return List.of();
+        }
+        for (Day day : week.days()) {
+            if (today.equals(day.date())) {
+                return day.dishes() != null ? day.dishes() : List.of();
+            }
+        }
+        return List.of();
+    }
+
+    /**
+     * Fetch and parse a week file from the eat-api, bypassing the cache.
+     * Refetches are conditional on the validators of the previous fetch; a week that did change is diffed
+     * against the previous version and published as a {@link MenuChangedEvent}. Fetched weeks are saved to
+     * the snapshot store; if the eat-api fails, the last known version is served.
+     * @param key canteen, year and week number to fetch
+     * @return the parsed week, or null if the upstream returned no body
+     */
+    Week fetchWeek(WeekKey key) {
+        String weekStr = String.format("%02d", key.week());
+        Snapshot previous = lastFetched.get(key);
+        ResponseEntity<Week> response;
+        try {
+            response = restClient.get()
+                    .uri("{canteen}/{year}/{week}.json", key.canteen(), key.year(), weekStr)
+                    .headers(headers -> {
+                        // Conditional request: an unchanged week costs a 304 without body instead of a full download and parse
+                        if (previous != null && previous.etag() != null) {
+                            headers.setIfNoneMatch(previous.etag());
+                        }
+                        if (previous != null && previous.lastModified() != null) {
+                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, previous.lastModified());
+                        }
+                    })
+                    .exchange((request, clientResponse) -> {
+                        if (clientResponse.getStatusCode().isError()) {
+                            throw new RestClientResponseException("Fetching week failed", clientResponse.getStatusCode(),
+                                    clientResponse.getStatusText(), clientResponse.getHeaders(), null, null);
+                        }
+                        // Parsed straight from the response stream, skipping the prices the records do not hold
+                        Week body = clientResponse.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)
+                                ? null : weekParser.parseWeek(clientResponse.getBody());
+                        return ResponseEntity.status(clientResponse.getStatusCode()).headers(clientResponse.getHeaders()).body(body);
+                    });
+        } catch (RuntimeException e) {
+            // Last known menu while the upstream is down, the next refresh tries the eat-api again
+            Optional<Snapshot> lastKnown = previous != null ? Optional.of(previous) : snapshotStore.load(key);
+            lastKnown.ifPresent(snapshot -> lastFetched.put(key, snapshot));
+            return lastKnown.map(Snapshot::week).orElseThrow(() -> e);
+        }
+
+        if (response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) && previous != null) {
+            snapshotStore.touch(key, clock.instant());
+            return previous.week();
+        }
+        if (response.getBody() == null) {
+            return null;
+        }
+
+        String etag = response.getHeaders().getETag();
+        String lastModified = response.getHeaders().getFirst(HttpHeaders.LAST_MODIFIED);
+        Week week = snapshotStore.save(key, response.getBody(), etag, lastModified);
+        lastFetched.put(key, new Snapshot(week, etag, lastModified, clock.instant()));
+        searchIndex.add(key.canteen(), week);
+
+        if (previous != null) {
+            List<MenuChangedEvent.DayChange> changes = MenuChangedEvent.diff(previous.week(), week);
+            if (!changes.isEmpty()) {
+                eventPublisher.publishEvent(new MenuChangedEvent(key.canteen(), changes));
+            }
+        }
+        return week;
+    }
+
+    /**
+     * Identifies one eat-api week file
+     */
+    public record WeekKey(String canteen, int year, int week) {
+
+        /**
+         * Key of the week file containing the given date
+         */
+        public static WeekKey of(String canteen, LocalDate date) {
+            return new WeekKey(canteen, date.getYear(), date.get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear()));
+        }
+    }
 }
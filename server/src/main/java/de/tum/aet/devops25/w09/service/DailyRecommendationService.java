@@ -0,0 +1,314 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.DailyRecommendationRepository;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.entity.DailyRecommendation;
+import de.tum.aet.devops25.w09.entity.DailyRecommendationId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Materializes each user's recommendation for the day into the {@code daily_recommendation} table.
+ *
+ * The scheduled job polls until the day's menu is published, then computes the missing rows in
+ * batches, each batch being one call to the LLM batch endpoint, with a bounded number of batches
+ * in flight. Rows are recomputed individually when a user's preferences change, and all rows
+ * of the default canteen when its menu changes.
+ *
+ * Only the default canteen is precomputed. Rows for other canteens and for sets of canteens are stored
+ * by on-demand requests; a change of the menu or the preferences deletes them, and the user's next
+ * request computes them again.
+ *
+ * A row may be computed from preferences that change before it is saved, after the change already
+ * deleted the user's rows. Every write is therefore checked against the current preferences once
+ * saved, rows computed from outdated favorites are deleted again instead of being served all day.
+ *
+ * Storing is best-effort: a row that cannot be written is logged, counted as
+ * {@code recommendation.store.failures} and skipped, the recommendation itself is still returned.
+ */
+@Service
+public class DailyRecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyRecommendationService.class);
+
+    private final DailyRecommendationRepository repository;
+    private final UserPreferenceService userPreferenceService;
+    private final CanteenService canteenService;
+    private final LLMRecommendationService llmRecommendationService;
+    private final ExecutorService backgroundExecutor;
+    private final Clock clock;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int concurrency;
+    private final Counter storeFailures;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Set<String> requested = ConcurrentHashMap.newKeySet();
+
+    public DailyRecommendationService(DailyRecommendationRepository repository, UserPreferenceService userPreferenceService,
+                                      CanteenService canteenService, LLMRecommendationService llmRecommendationService,
+                                      ExecutorService backgroundExecutor, Clock clock, MeterRegistry meterRegistry,
+                                      @Value("${recommendation.precompute.enabled:true}") boolean enabled,
+                                      @Value("${recommendation.precompute.batch-size:100}") int batchSize,
+                                      @Value("${recommendation.precompute.concurrency:4}") int concurrency) {
+        this.repository = repository;
+        this.userPreferenceService = userPreferenceService;
+        this.canteenService = canteenService;
+        this.llmRecommendationService = llmRecommendationService;
+        this.backgroundExecutor = backgroundExecutor;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.storeFailures = Counter.builder("recommendation.store.failures")
+                .description("Recommendations that could not be stored")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get today's precomputed recommendation for a user
+     * @param name the user name
+     * @param canteen the canteen the recommendation was computed for
+     * @return the recommendation, or empty if none was precomputed yet
+     */
+    public Optional<String> getPrecomputed(String name, String canteen) {
+        return repository.findById(new DailyRecommendationId(name, canteen, LocalDate.now(clock)))
+                .map(DailyRecommendation::getRecommendation);
+    }
+
+    /**
+     * Store a recommendation computed on demand so later requests are served from the table
+     * @param name the user name
+     * @param canteen the canteen the recommendation was computed for
+     * @param date the day of the menu the recommendation is based on
+     * @param favoriteMeals the favorite meals the recommendation was computed from
+     * @param recommendation the recommendation
+     * @return false if the favorites changed in the meantime or the row could not be written, the recommendation was not kept
+     */
+    public boolean store(String name, String canteen, LocalDate date, List<String> favoriteMeals, String recommendation) {
+        DailyRecommendation row = new DailyRecommendation(new DailyRecommendationId(name, canteen, date), recommendation, clock.instant());
+        try {
+            return saveIfCurrent(List.of(row), Map.of(name, favoriteMeals)) == 1;
+        } catch (RuntimeException e) {
+            // The recommendation was computed already, the next request just computes it again
+            log.warn("Error storing recommendation for {}: {}", name, e.getMessage());
+            storeFailures.increment();
+            return false;
+        }
+    }
+
+    @Scheduled(cron = "${recommendation.precompute.cron:0 */15 6-11 * * MON-FRI}")
+    public void precomputeToday() {
+        if (enabled) {
+            precompute(RecommendationService.DEFAULT_CANTEEN);
+        }
+    }
+
+    /**
+     * Compute today's recommendations for all users that do not have one yet.
+     * Only one run is active at a time. A call during a run is not dropped: the running one computes
+     * the canteen once more before it finishes, so rows deleted meanwhile, e.g. after a menu change,
+     * are recomputed right away rather than at the next scheduled run.
+     * @param canteen the canteen whose menu is used
+     * @return number of stored recommendations, 0 if the call was handed to the run in progress
+     */
+    public int precompute(String canteen) {
+        requested.add(canteen);
+        int stored = 0;
+        // Checked again after releasing the guard, a request arriving just before the release is not lost
+        while (!requested.isEmpty() && running.compareAndSet(false, true)) {
+            try {
+                for (String next = nextRequested(); next != null; next = nextRequested()) {
+                    stored += precomputeOnce(next);
+                }
+            } finally {
+                running.set(false);
+            }
+        }
+        return stored;
+    }
+
+    /**
+     * Drop the user's rows for today, for all canteen selections, and recompute the default canteen in the background
+     * @param event the preference change
+     */
+    @EventListener
+    public void onPreferencesChanged(UserPreferencesChangedEvent event) {
+        String canteen = RecommendationService.DEFAULT_CANTEEN;
+        LocalDate today = LocalDate.now(clock);
+        repository.deleteByUserNameAndDate(event.name(), today);
+        if (enabled) {
+            try {
+                backgroundExecutor.execute(() -> {
+                    try {
+                        List<Dish> todaysMeals = canteenService.getTodayMeals(canteen);
+                        if (!todaysMeals.isEmpty()) {
+                            precomputeBatch(List.of(event.name()), canteen, today, todaysMeals);
+                        }
+                    } catch (Exception e) {
+                        log.warn("Error recomputing recommendation for {}: {}", event.name(), e.getMessage());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The user's next request computes it on demand
+                log.warn("No background thread free to recompute recommendation for {}", event.name());
+            }
+        }
+    }
+
+    /**
+     * Drop today's rows computed against a menu that has changed since, including rows of canteen sets
+     * containing the canteen. Only rows of the default canteen are recomputed in the background, the
+     * others only for users requesting them again (see the class comment).
+     * @param event the menu change
+     */
+    @EventListener
+    public void onMenuChanged(MenuChangedEvent event) {
+        LocalDate today = LocalDate.now(clock);
+        if (!event.affects(today)) {
+            return; // changes to other days do not invalidate anything yet
+        }
+        repository.deleteByCanteenAndDate(event.canteen(), today);
+        if (enabled && event.canteen().equals(RecommendationService.DEFAULT_CANTEEN)) {
+            try {
+                backgroundExecutor.execute(() -> precompute(event.canteen()));
+            } catch (RejectedExecutionException e) {
+                // Requests compute on demand until the next scheduled run
+                log.warn("No background thread free to precompute recommendations for {}", event.canteen());
+            }
+        }
+    }
+
+    private String nextRequested() {
+        for (String canteen : requested) {
+            if (requested.remove(canteen)) {
+                return canteen;
+            }
+        }
+        return null;
+    }
+
+    private int precomputeOnce(String canteen) {
+        LocalDate today = LocalDate.now(clock);
+        List<Dish> todaysMeals = canteenService.getTodayMeals(canteen);
+        if (todaysMeals.isEmpty()) {
+            return 0; // menu not published yet, the next run retries
+        }
+
+        Set<String> done = repository.findUserNamesByCanteenAndDate(canteen, today);
+        List<String> pending = userPreferenceService.getAllNames().stream()
+                .filter(name -> !done.contains(name))
+                .toList();
+
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<Integer>> batches = new ArrayList<>();
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<String> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            permits.acquireUninterruptibly();
+            try {
+                batches.add(backgroundExecutor.submit(() -> {
+                    try {
+                        return precomputeBatch(batch, canteen, today, todaysMeals);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // Users not reached are computed on demand, or by the next run, which skips the stored ones
+                permits.release();
+                log.warn("No background thread free, precomputed {} of {} users for {}", from, pending.size(), canteen);
+                break;
+            }
+        }
+
+        int stored = 0;
+        for (Future<Integer> batch : batches) {
+            try {
+                stored += batch.get();
+            } catch (ExecutionException e) {
+                log.error("Error precomputing recommendations", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        repository.deleteOlderThan(today);
+        return stored;
+    }
+
+    private int precomputeBatch(List<String> names, String canteen, LocalDate date, List<Dish> todaysMeals) {
+        Map<String, List<String>> favoritesByUser = userPreferenceService.getFavoriteMeals(names);
+        if (favoritesByUser.isEmpty()) {
+            return 0;
+        }
+
+        List<DailyRecommendation> rows = new ArrayList<>();
+        llmRecommendationService.streamRecommendationsFromLLM(favoritesByUser, todaysMeals, recommendation -> {
+            if (!recommendation.recommendation().isEmpty()) {
+                rows.add(new DailyRecommendation(new DailyRecommendationId(recommendation.name(), canteen, date),
+                        recommendation.recommendation(), clock.instant()));
+            }
+        });
+        return saveIfCurrent(rows, favoritesByUser);
+    }
+
+    /**
+     * Save rows, then delete those whose user's favorites changed since they were computed.
+     * A preference change invalidates the cached preferences before it deletes the user's rows, so either
+     * that delete runs after the save, or the check below already sees the new favorites.
+     * Every row is written in its own transaction, a row that fails is skipped without losing the others.
+     * @return number of rows kept
+     */
+    private int saveIfCurrent(List<DailyRecommendation> candidates, Map<String, List<String>> favoritesByUser) {
+        List<DailyRecommendation> rows = new ArrayList<>(candidates.size());
+        for (DailyRecommendation row : candidates) {
+            DailyRecommendationId id = row.getId();
+            try {
+                repository.upsert(id.userName(), id.canteen(), id.date(), row.getRecommendation(), row.getCreatedAt());
+                rows.add(row);
+            } catch (RuntimeException e) {
+                log.warn("Error storing recommendation for {}: {}", id.userName(), e.getMessage());
+                storeFailures.increment();
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, List<String>> current = userPreferenceService.getFavoriteMeals(favoritesByUser.keySet());
+        List<DailyRecommendationId> outdated = rows.stream()
+                .map(DailyRecommendation::getId)
+                .filter(id -> !sameMeals(favoritesByUser.get(id.userName()), current.get(id.userName())))
+                .toList();
+        if (!outdated.isEmpty()) {
+            repository.deleteAllById(outdated);
+            log.debug("Dropped {} recommendations computed from outdated preferences", outdated.size());
+        }
+        return rows.size() - outdated.size();
+    }
+
+    private static boolean sameMeals(List<String> computedFrom, List<String> current) {
+        return computedFrom != null && current != null && Set.copyOf(computedFrom).equals(Set.copyOf(current));
+    }
+}
@@ -0,0 +1,339 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical in-memory catalog of every dish seen on a menu.
+ *
+ * Each distinct dish (name, type and labels) is held once and gets an integer ID; interned weeks
+ * store the menu of every day as an array of these IDs behind a read-only {@link DishList}.
+ * Labels get one bit each, so the labels of a dish are a single {@code long} and label filters
+ * are bit operations. The normalized name and trigrams used by {@link LocalRecommendationEngine}
+ * are computed once per dish instead of on every recommendation.
+ *
+ * The first 64 distinct labels are indexed, later ones are handled by scanning label lists.
+ * IDs belong to a generation: once it holds {@code canteen.catalog.max-dishes} dishes a new one is
+ * started, and weeks interned before keep using the old one until they leave the cache.
+ */
+@Component
+public class DishCatalog {
+
+    private static final int MAX_LABELS = Long.SIZE;
+
+    private final int maxDishes;
+    // Label bits are shared by all generations, there are only a few dozen labels
+    private final Map<String, Integer> labelBits = new ConcurrentHashMap<>();
+    private final Map<String, Long> normalizedLabelMasks = new ConcurrentHashMap<>();
+    private volatile boolean labelsOverflowed;
+    private volatile Generation generation = new Generation();
+
+    public DishCatalog(@Value("${canteen.catalog.max-dishes:20000}") int maxDishes) {
+        this.maxDishes = maxDishes;
+    }
+
+    /**
+     * A dish with everything derived from it that is needed on the hot path
+     * @param dish the canonical dish
+     * @param labels bits of its indexed labels
+     * @param fullyIndexed whether all of its labels are indexed, otherwise its label list must be scanned
+     * @param normalizedName the name as compared by {@link LocalRecommendationEngine}
+     * @param trigrams trigrams of the normalized name
+     */
+    public record Entry(Dish dish, long labels, boolean fullyIndexed, String normalizedName, Set<String> trigrams) {}
+
+    /**
+     * Labels a dish must and must not have
+     * @param required bits of required indexed labels
+     * @param excluded bits of excluded indexed labels
+     * @param unindexedRequired required labels without a bit
+     * @param unindexedExcluded excluded labels without a bit
+     */
+    public record LabelFilter(long required, long excluded, List<String> unindexedRequired, List<String> unindexedExcluded) {
+
+        public boolean isEmpty() {
+            return required == 0 && excluded == 0 && unindexedRequired.isEmpty() && unindexedExcluded.isEmpty();
+        }
+    }
+
+    /**
+     * Copy a week, replacing its dishes with canonical instances and every day's menu with a {@link DishList}
+     * @param week the week, e.g. as parsed from the eat-api
+     * @return the interned week
+     */
+    public Week intern(Week week) {
+        if (week.days() == null) {
+            return week;
+        }
+        Generation current = current();
+        List<Day> days = new ArrayList<>(week.days().size());
+        for (Day day : week.days()) {
+            if (day.dishes() == null || day.dishes() instanceof DishList) {
+                days.add(day);
+                continue;
+            }
+            int[] ids = day.dishes().stream()
+                    .filter(Objects::nonNull)
+                    .mapToInt(dish -> current.intern(dish, this))
+                    .toArray();
+            days.add(new Day(day.date(), new DishList(this, current, ids)));
+        }
+        return new Week(week.number(), week.year(), days);
+    }
+
+    /**
+     * Build a label filter. Labels no dish ever had are treated as indexed labels nobody has.
+     * @param required labels a dish must have, may be null
+     * @param excluded labels a dish must not have, may be null
+     * @return the filter
+     */
+    public LabelFilter labelFilter(Collection<String> required, Collection<String> excluded) {
+        long requiredBits = 0;
+        long excludedBits = 0;
+        List<String> unindexedRequired = new ArrayList<>();
+        List<String> unindexedExcluded = new ArrayList<>();
+        if (required != null) {
+            for (String label : required) {
+                Integer bit = labelBits.get(label);
+                if (bit != null) {
+                    requiredBits |= 1L << bit;
+                } else {
+                    unindexedRequired.add(label);
+                }
+            }
+        }
+        if (excluded != null) {
+            for (String label : excluded) {
+                Integer bit = labelBits.get(label);
+                if (bit != null) {
+                    excludedBits |= 1L << bit;
+                } else if (labelsOverflowed) {
+                    unindexedExcluded.add(label);
+                }
+            }
+        }
+        return new LabelFilter(requiredBits, excludedBits, unindexedRequired, unindexedExcluded);
+    }
+
+    /**
+     * Keep the dishes matching a label filter
+     * @param dishes the dishes, preferably a {@link DishList}
+     * @param filter the filter
+     * @return the matching dishes in their original order
+     */
+    public List<Dish> filter(List<Dish> dishes, LabelFilter filter) {
+        if (filter.isEmpty()) {
+            return dishes;
+        }
+        if (!filter.unindexedRequired().isEmpty() && !labelsOverflowed) {
+            return List.of(); // A label no dish ever had
+        }
+        if (dishes instanceof DishList list) {
+            int[] matching = new int[list.size()];
+            int count = 0;
+            for (int i = 0; i < list.size(); i++) {
+                Entry entry = list.entry(i);
+                if (matches(entry.labels(), entry.dish(), filter)) {
+                    matching[count++] = list.ids[i];
+                }
+            }
+            return new DishList(this, list.generation, Arrays.copyOf(matching, count));
+        }
+        return dishes.stream()
+                .filter(dish -> matches(bits(dish.labels()), dish, filter))
+                .toList();
+    }
+
+    /**
+     * Bits of the labels a favorite's words name, as compared by {@link LocalRecommendationEngine}
+     * @param normalizedTokens the normalized words of a favorite
+     * @return the bits of all labels whose normalized form equals one of the words
+     */
+    public long labelMask(String[] normalizedTokens) {
+        long mask = 0;
+        for (String token : normalizedTokens) {
+            mask |= normalizedLabelMasks.getOrDefault(token, 0L);
+        }
+        return mask;
+    }
+
+    /**
+     * @return the number of dishes in the current generation
+     */
+    public int size() {
+        return generation.size;
+    }
+
+    private static boolean matches(long labels, Dish dish, LabelFilter filter) {
+        if ((labels & filter.required()) != filter.required() || (labels & filter.excluded()) != 0) {
+            return false;
+        }
+        List<String> dishLabels = dish.labels() != null ? dish.labels() : List.of();
+        return dishLabels.containsAll(filter.unindexedRequired())
+                && filter.unindexedExcluded().stream().noneMatch(dishLabels::contains);
+    }
+
+    private long bits(List<String> labels) {
+        long bits = 0;
+        if (labels != null) {
+            for (String label : labels) {
+                Integer bit = labelBits.get(label);
+                if (bit != null) {
+                    bits |= 1L << bit;
+                }
+            }
+        }
+        return bits;
+    }
+
+    private synchronized Integer assignBit(String label) {
+        Integer bit = labelBits.get(label);
+        if (bit != null || labelBits.size() >= MAX_LABELS) {
+            labelsOverflowed |= bit == null;
+            return bit;
+        }
+        bit = labelBits.size();
+        normalizedLabelMasks.merge(LocalRecommendationEngine.normalize(label), 1L << bit, (a, b) -> a | b);
+        labelBits.put(label, bit);
+        return bit;
+    }
+
+    private Generation current() {
+        Generation current = generation;
+        if (current.size < maxDishes) {
+            return current;
+        }
+        synchronized (this) {
+            if (generation == current) {
+                generation = new Generation();
+            }
+            return generation;
+        }
+    }
+
+    /**
+     * Dishes interned since the catalog last started over, indexed by ID
+     */
+    static final class Generation {
+
+        private final Map<Dish, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<String, String> strings = new ConcurrentHashMap<>();
+        private final Map<List<String>, List<String>> labelLists = new ConcurrentHashMap<>();
+        private volatile Entry[] entries = new Entry[256];
+        private volatile int size;
+
+        Entry entry(int id) {
+            return entries[id];
+        }
+
+        int intern(Dish dish, DishCatalog catalog) {
+            Integer id = ids.get(dish);
+            if (id != null) {
+                return id;
+            }
+            synchronized (this) {
+                id = ids.get(dish);
+                if (id != null) {
+                    return id;
+                }
+                Dish canonical = new Dish(string(dish.name()), string(dish.dish_type()), labels(dish.labels()));
+                long labels = 0;
+                boolean fullyIndexed = true;
+                if (canonical.labels() != null) {
+                    for (String label : canonical.labels()) {
+                        Integer bit = label != null ? catalog.assignBit(label) : null;
+                        if (bit != null) {
+                            labels |= 1L << bit;
+                        } else {
+                            fullyIndexed = false;
+                        }
+                    }
+                }
+                String normalizedName = LocalRecommendationEngine.normalize(canonical.name());
+                Entry entry = new Entry(canonical, labels, fullyIndexed, normalizedName,
+                        Set.copyOf(LocalRecommendationEngine.trigrams(normalizedName)));
+
+                int next = size;
+                Entry[] current = entries;
+                if (next == current.length) {
+                    current = Arrays.copyOf(current, next * 2);
+                }
+                current[next] = entry;
+                entries = current;
+                size = next + 1;
+                // Published last, readers finding the ID also find the entry
+                ids.put(canonical, next);
+                return next;
+            }
+        }
+
+        private String string(String value) {
+            if (value == null) {
+                return null;
+            }
+            String existing = strings.putIfAbsent(value, value);
+            return existing != null ? existing : value;
+        }
+
+        private List<String> labels(List<String> labels) {
+            if (labels == null) {
+                return null;
+            }
+            List<String> interned = Arrays.asList(labels.stream().map(this::string).toArray(String[]::new));
+            List<String> existing = labelLists.putIfAbsent(interned, interned);
+            return existing != null ? existing : interned;
+        }
+    }
+
+    /**
+     * Read-only menu of one day, stored as dish IDs
+     */
+    public static final class DishList extends AbstractList<Dish> implements RandomAccess {
+
+        private final DishCatalog catalog;
+        private final Generation generation;
+        private final int[] ids;
+
+        DishList(DishCatalog catalog, Generation generation, int[] ids) {
+            this.catalog = catalog;
+            this.generation = generation;
+            this.ids = ids;
+        }
+
+        @Override
+        public Dish get(int index) {
+            return entry(index).dish();
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+
+        /**
+         * @param index position in this list
+         * @return the catalog entry of the dish at that position
+         */
+        public Entry entry(int index) {
+            return generation.entry(ids[index]);
+        }
+
+        public DishCatalog catalog() {
+            return catalog;
+        }
+    }
+}
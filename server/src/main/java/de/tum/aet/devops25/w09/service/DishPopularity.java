@@ -0,0 +1,220 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.PopularDish;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Favorite counts per dish, kept in memory and ranked so that the most favorited dishes are read in O(k).
+ *
+ * {@link UserPreferenceService} reports every favorite it adds or removes. Names are normalized like in
+ * {@link LocalRecommendationEngine}, so spellings differing in case or accents count for the same dish.
+ * Changes made by other instances are not reported, so the counts are periodically replaced by the
+ * counts in the database. Local changes made while the database is queried are not replayed: whether the
+ * query saw them is unknown, replaying could count a favorite twice. Such a change may be missing until
+ * the next reconciliation, the counts lag by at most one interval.
+ *
+ * Today's ranking of a canteen joins its menu with the counts. It is computed once per menu and per
+ * change of the counts, repeated requests only copy the first k entries.
+ */
+@Component
+public class DishPopularity {
+
+    private static final Comparator<Counter> RANKING = Comparator.comparingLong(Counter::count).reversed()
+            .thenComparing(Counter::key);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> ranking = new TreeSet<>(RANKING);
+    private final Map<String, MenuRanking> menuRankings = new ConcurrentHashMap<>();
+    private final AtomicBoolean reconciling = new AtomicBoolean();
+    private volatile long version;
+
+    /**
+     * Count a favorite added by a user
+     * @param meal the favorite meal
+     */
+    public void added(String meal) {
+        update(List.of(new Change(meal, 1)));
+    }
+
+    /**
+     * Count a favorite removed by a user
+     * @param meal the favorite meal
+     */
+    public void removed(String meal) {
+        update(List.of(new Change(meal, -1)));
+    }
+
+    /**
+     * Count several favorites added and removed at once, e.g. when a user replaces all favorites
+     * @param added the favorite meals added
+     * @param removed the favorite meals removed
+     */
+    public void changed(Collection<String> added, Collection<String> removed) {
+        List<Change> changes = new ArrayList<>(added.size() + removed.size());
+        removed.forEach(meal -> changes.add(new Change(meal, -1)));
+        added.forEach(meal -> changes.add(new Change(meal, 1)));
+        update(changes);
+    }
+
+    /**
+     * Replace all counts with authoritative ones, e.g. from the database
+     * @param loader supplies the number of favorites by meal, called without holding the lock
+     * @return false if another reconciliation is still running and nothing was done
+     */
+    public boolean reconcile(Supplier<Map<String, Long>> loader) {
+        if (!reconciling.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            Map<String, Long> counts = loader.get();
+            lock.writeLock().lock();
+            try {
+                counters.clear();
+                ranking.clear();
+                counts.forEach(this::apply);
+                version++;
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            reconciling.set(false);
+        }
+    }
+
+    /**
+     * @param meal a dish name
+     * @return the number of favorites of the dish, 0 if nobody favorited it
+     */
+    public long favorites(String meal) {
+        lock.readLock().lock();
+        try {
+            Counter counter = counters.get(LocalRecommendationEngine.normalize(meal));
+            return counter != null ? counter.count() : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The most favorited dishes overall
+     * @param limit the maximum number of dishes
+     * @return the dishes, most favorited first
+     */
+    public List<PopularDish> top(int limit) {
+        List<PopularDish> top = new ArrayList<>(Math.min(limit, 64));
+        lock.readLock().lock();
+        try {
+            Iterator<Counter> iterator = ranking.iterator();
+            while (top.size() < limit && iterator.hasNext()) {
+                Counter counter = iterator.next();
+                top.add(new PopularDish(counter.name(), counter.count(), null));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top;
+    }
+
+    /**
+     * The most favorited dishes of a canteen's menu
+     * @param canteen the canteen, used to reuse the ranking while menu and counts are unchanged
+     * @param menu today's dishes of the canteen
+     * @param limit the maximum number of dishes
+     * @return the dishes favorited at least once, most favorited first and in menu order on ties
+     */
+    public List<PopularDish> top(String canteen, List<Dish> menu, int limit) {
+        if (menu.isEmpty()) {
+            return List.of();
+        }
+        MenuRanking menuRanking = menuRankings.get(canteen);
+        if (menuRanking == null || menuRanking.menu() != menu || menuRanking.version() != version) {
+            menuRanking = rank(menu);
+            menuRankings.put(canteen, menuRanking);
+        }
+        List<PopularDish> dishes = menuRanking.dishes();
+        return dishes.subList(0, Math.min(limit, dishes.size()));
+    }
+
+    private MenuRanking rank(List<Dish> menu) {
+        List<PopularDish> dishes = new ArrayList<>();
+        long rankedVersion;
+        lock.readLock().lock();
+        try {
+            rankedVersion = version;
+            for (int i = 0; i < menu.size(); i++) {
+                Dish dish = menu.get(i);
+                // Interned menus carry the normalized names already
+                String key = menu instanceof DishCatalog.DishList interned
+                        ? interned.entry(i).normalizedName()
+                        : LocalRecommendationEngine.normalize(dish.name());
+                Counter counter = counters.get(key);
+                if (counter != null) {
+                    dishes.add(new PopularDish(dish.name(), counter.count(), dish));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // Stable sort, ties stay in menu order
+        dishes.sort(Comparator.comparingLong(PopularDish::favorites).reversed());
+        return new MenuRanking(menu, rankedVersion, List.copyOf(dishes));
+    }
+
+    private void update(List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            for (Change change : changes) {
+                apply(change.meal(), change.delta());
+            }
+            version++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(String meal, long delta) {
+        String key = LocalRecommendationEngine.normalize(meal);
+        if (key.isEmpty()) {
+            return;
+        }
+        Counter old = counters.get(key);
+        if (old != null) {
+            ranking.remove(old);
+        }
+        long count = (old != null ? old.count() : 0) + delta;
+        if (count <= 0) {
+            // Below zero only if a change of another instance was missed, the next reconciliation fixes it
+            counters.remove(key);
+            return;
+        }
+        Counter counter = new Counter(key, old != null ? old.name() : meal, count);
+        counters.put(key, counter);
+        ranking.add(counter);
+    }
+
+    private record Change(String meal, long delta) {}
+
+    /**
+     * Immutable so that it can be removed from and added to the ranking safely
+     */
+    private record Counter(String key, String name, long count) {}
+
+    private record MenuRanking(List<Dish> menu, long version, List<PopularDish> dishes) {}
+}
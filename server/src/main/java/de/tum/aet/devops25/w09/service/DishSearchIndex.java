@@ -0,0 +1,246 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.DishSuggestion;
+import de.tum.aet.devops25.w09.dto.Week;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index of every dish name served by any canteen, for autocomplete and for resolving
+ * free-text favorites to the names the eat-api uses.
+ *
+ * Names are normalized like in {@link LocalRecommendationEngine} and indexed by their character
+ * trigrams. A query is split into trigrams as well, without padding at its end so that a word being
+ * typed matches the dishes it is a prefix of. Dishes are scored by the share of query trigrams they
+ * contain, averaged with the Dice coefficient so that closer names rank first; a missing or wrong
+ * letter only costs a few trigrams, which makes the search typo tolerant.
+ *
+ * {@link CanteenService} adds every week it fetches or loads from a snapshot. Dishes are never
+ * removed, but the index stops growing at {@code dishes.search.max-dishes} names.
+ */
+@Component
+public class DishSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(DishSearchIndex.class);
+    private static final int RESOLVE_CANDIDATES = 10;
+
+    private final int maxDishes;
+    private final double minScore;
+    private final double resolveThreshold;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<Document> documents = new ArrayList<>();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private boolean full;
+
+    public DishSearchIndex(@Value("${dishes.search.max-dishes:50000}") int maxDishes,
+                           @Value("${dishes.search.min-score:0.5}") double minScore,
+                           @Value("${dishes.search.resolve-threshold:0.6}") double resolveThreshold) {
+        this.maxDishes = maxDishes;
+        this.minScore = minScore;
+        this.resolveThreshold = resolveThreshold;
+    }
+
+    /**
+     * Index the dishes of a week
+     * @param canteen the canteen serving the week
+     * @param week the week
+     */
+    public void add(String canteen, Week week) {
+        if (week == null || week.days() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Day day : week.days()) {
+                if (day.dishes() == null) {
+                    continue;
+                }
+                for (Dish dish : day.dishes()) {
+                    add(canteen, day.date(), dish);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the dishes best matching a free-text query
+     * @param query the query, e.g. the beginning of a dish name with typos
+     * @param limit the maximum number of results
+     * @return the matching dishes, best match first
+     */
+    public List<DishSuggestion> search(String query, int limit) {
+        String normalized = LocalRecommendationEngine.normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Set<String> queryTrigrams = queryTrigrams(normalized);
+
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // Count the query trigrams every dish shares, then score only the dishes sharing enough
+            int[] common = new int[documents.size()];
+            for (String trigram : queryTrigrams) {
+                Postings dishes = postings.get(trigram);
+                if (dishes != null) {
+                    for (int i = 0; i < dishes.size; i++) {
+                        common[dishes.ids[i]]++;
+                    }
+                }
+            }
+            for (int id = 0; id < common.length; id++) {
+                double containment = (double) common[id] / queryTrigrams.size();
+                if (common[id] > 0 && containment >= minScore) {
+                    Document document = documents.get(id);
+                    double dice = 2.0 * common[id] / (queryTrigrams.size() + document.trigramCount);
+                    double score = normalized.equals(document.normalizedName) ? 1 : (containment + dice) / 2;
+                    hits.add(new Hit(document, score));
+                }
+            }
+            return hits.stream()
+                    .sorted(Comparator.comparingDouble(Hit::score).reversed()
+                            .thenComparing(hit -> hit.document().lastServed, Comparator.nullsLast(Comparator.reverseOrder())))
+                    .limit(limit)
+                    .map(hit -> hit.document().suggestion(hit.score()))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Resolve a free-text favorite to the dish it most likely means. Unlike a search, the whole
+     * favorite must match: candidates are compared like {@link LocalRecommendationEngine} compares names.
+     * @param favorite the favorite as typed by a user
+     * @return the most similar dish, or empty if none is similar enough
+     */
+    public Optional<DishSuggestion> resolve(String favorite) {
+        Set<String> favoriteTrigrams = LocalRecommendationEngine.trigrams(LocalRecommendationEngine.normalize(favorite));
+        DishSuggestion best = null;
+        double bestSimilarity = resolveThreshold;
+        for (DishSuggestion candidate : search(favorite, RESOLVE_CANDIDATES)) {
+            Set<String> dishTrigrams = LocalRecommendationEngine.trigrams(LocalRecommendationEngine.normalize(candidate.dish().name()));
+            long common = favoriteTrigrams.stream().filter(dishTrigrams::contains).count();
+            double similarity = 2.0 * common / (favoriteTrigrams.size() + dishTrigrams.size());
+            if (similarity >= bestSimilarity) {
+                best = candidate;
+                bestSimilarity = similarity;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    /**
+     * @return the number of indexed dish names
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(String canteen, LocalDate date, Dish dish) {
+        String normalizedName = LocalRecommendationEngine.normalize(dish.name());
+        if (normalizedName.isEmpty()) {
+            return;
+        }
+        Integer id = ids.get(normalizedName);
+        if (id == null) {
+            if (documents.size() >= maxDishes) {
+                if (!full) {
+                    full = true;
+                    log.warn("Dish search index is full at {} dishes, new dishes are not searchable", maxDishes);
+                }
+                return;
+            }
+            id = documents.size();
+            Set<String> trigrams = LocalRecommendationEngine.trigrams(normalizedName);
+            documents.add(new Document(normalizedName, trigrams.size()));
+            ids.put(normalizedName, id);
+            for (String trigram : trigrams) {
+                postings.computeIfAbsent(trigram, key -> new Postings()).add(id);
+            }
+        }
+        documents.get(id).served(canteen, date, dish);
+    }
+
+    private static Set<String> queryTrigrams(String normalized) {
+        // Leading padding only: "schni" must match "schnitzel", whose trigrams do not contain "ni "
+        String padded = "  " + normalized;
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private record Hit(Document document, double score) {}
+
+    /**
+     * One indexed dish name, guarded by the index lock
+     */
+    private static final class Document {
+
+        private final String normalizedName;
+        private final int trigramCount;
+        private final Set<String> canteens = new LinkedHashSet<>();
+        private Dish dish;
+        private LocalDate lastServed;
+
+        Document(String normalizedName, int trigramCount) {
+            this.normalizedName = normalizedName;
+            this.trigramCount = trigramCount;
+        }
+
+        void served(String canteen, LocalDate date, Dish dish) {
+            canteens.add(canteen);
+            if (this.dish == null || (date != null && (lastServed == null || !date.isBefore(lastServed)))) {
+                this.dish = dish;
+                this.lastServed = date;
+            }
+        }
+
+        DishSuggestion suggestion(double score) {
+            return new DishSuggestion(dish, List.copyOf(canteens), lastServed, Math.round(score * 1000) / 1000.0);
+        }
+    }
+
+    /**
+     * Growable array of dish IDs sharing one trigram
+     */
+    private static final class Postings {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+    }
+}
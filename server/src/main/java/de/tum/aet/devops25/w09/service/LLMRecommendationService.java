@@ -1,41 +1,165 @@
 package de.tum.aet.devops25.w09.service;
 
-import de.tum.aet.devops25.w09.client.LLMRestClient;
 import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.UserRecommendation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 public class LLMRecommendationService {
 
-    private final LLMRestClient llmRestClient;
+    private static final Logger log = LoggerFactory.getLogger(LLMRecommendationService.class);
 
-    public LLMRecommendationService(LLMRestClient llmRestClient) {
-        this.llmRestClient = llmRestClient;
+    private static final String LLM_ENGINE = "llm";
+
+    private final List<RecommendationEngine> engines;
+    private final RecommendationCoalescer recommendationCoalescer;
+    private final MeterRegistry meterRegistry;
+
+    public LLMRecommendationService(List<RecommendationEngine> engines, RecommendationCoalescer recommendationCoalescer,
+                                    MeterRegistry meterRegistry) {
+        this.engines = engines;
+        this.recommendationCoalescer = recommendationCoalescer;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
-     * Get recommendation from LLM service using REST API
+     * Get recommendation from LLM service using REST API.
+     * Local engines are asked first, the LLM service only if none of them is confident.
      * @param favoriteMeals list of user's favorite meal names
      * @param todayMeals list of today's available dishes
      * @return recommendation as a string
      */
     public String getRecommendationFromLLM(List<String> favoriteMeals, List<Dish> todayMeals) {
         try {
+            Optional<String> local = recommendLocally(favoriteMeals, todayMeals);
+            if (local.isPresent()) {
+                return local.get();
+            }
+
             // Convert today's dishes to meal names
             List<String> todayMealNames = todayMeals.stream()
                     .map(Dish::name)
                     .collect(Collectors.toList());
 
-            // TODO Call REST service
-            return llmRestClient.generateRecommendations(favoriteMeals, todayMealNames);
+            // Identical concurrent requests share one call to the REST service
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String recommendation = recommendationCoalescer.getRecommendation(favoriteMeals, todayMealNames);
+            sample.stop(engineTimer(LLM_ENGINE, recommendation.isEmpty() ? "empty" : "answered"));
+            return recommendation;
 
         } catch (Exception e) {
-            System.err.println("Error fetching recommendation from LLM service: " + e.getMessage());
+            log.warn("Error fetching recommendation from LLM service: {}", e.getMessage());
             return "";
         }
     }
 
+    /**
+     * Stream a recommendation from the LLM service token by token.
+     * Answers from local engines or the cache are emitted as a single token.
+     * @param favoriteMeals list of user's favorite meal names
+     * @param todayMeals list of today's available dishes
+     * @param onToken called for every token as it arrives
+     * @return the complete recommendation as a string
+     */
+    public String streamRecommendationFromLLM(List<String> favoriteMeals, List<Dish> todayMeals, Consumer<String> onToken) {
+        try {
+            Optional<String> local = recommendLocally(favoriteMeals, todayMeals);
+            if (local.isPresent()) {
+                onToken.accept(local.get());
+                return local.get();
+            }
+
+            List<String> todayMealNames = todayMeals.stream()
+                    .map(Dish::name)
+                    .collect(Collectors.toList());
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String recommendation = recommendationCoalescer.streamRecommendation(favoriteMeals, todayMealNames, onToken);
+            sample.stop(engineTimer(LLM_ENGINE, recommendation.isEmpty() ? "empty" : "answered"));
+            return recommendation;
+
+        } catch (Exception e) {
+            log.warn("Error streaming recommendation from LLM service: {}", e.getMessage());
+            return "";
+        }
+    }
+
+    /**
+     * Get recommendations for several users from the LLM service in one batched call.
+     * Users answered by a local engine are emitted right away and not sent upstream.
+     * @param favoritesByUser favorite meal names by user name
+     * @param todayMeals list of today's available dishes
+     * @param onRecommendation called once per user as soon as the recommendation is available
+     */
+    public void streamRecommendationsFromLLM(Map<String, List<String>> favoritesByUser, List<Dish> todayMeals,
+                                             Consumer<UserRecommendation> onRecommendation) {
+        Map<String, List<String>> escalated = new LinkedHashMap<>();
+        favoritesByUser.forEach((name, favorites) -> recommendLocally(favorites, todayMeals).ifPresentOrElse(
+                recommendation -> onRecommendation.accept(new UserRecommendation(name, recommendation)),
+                () -> escalated.put(name, favorites)));
+        if (escalated.isEmpty()) {
+            return;
+        }
+
+        List<String> todayMealNames = todayMeals.stream()
+                .map(Dish::name)
+                .collect(Collectors.toList());
+
+        recommendationCoalescer.getRecommendations(escalated, todayMealNames, onRecommendation);
+    }
+
+    /**
+     * Get a recommendation without calling the LLM service, from the local engines or an earlier LLM answer
+     * @param favoriteMeals list of user's favorite meal names
+     * @param todayMeals list of today's available dishes
+     * @return the recommendation, or empty if only the LLM service could give one
+     */
+    public Optional<String> recommendWithoutLLM(List<String> favoriteMeals, List<Dish> todayMeals) {
+        Optional<String> local = recommendLocally(favoriteMeals, todayMeals);
+        if (local.isPresent()) {
+            return local;
+        }
+        List<String> todayMealNames = todayMeals.stream()
+                .map(Dish::name)
+                .collect(Collectors.toList());
+        return Optional.ofNullable(recommendationCoalescer.getCachedRecommendation(favoriteMeals, todayMealNames));
+    }
+
+    /**
+     * Ask the local engines only, in order
+     * @param favoriteMeals list of user's favorite meal names
+     * @param todayMeals list of today's available dishes
+     * @return the first confident answer, or empty if the LLM service is needed
+     */
+    public Optional<String> recommendLocally(List<String> favoriteMeals, List<Dish> todayMeals) {
+        for (RecommendationEngine engine : engines) {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            Optional<String> recommendation = engine.recommend(favoriteMeals, todayMeals);
+            sample.stop(engineTimer(engine.name(), recommendation.isPresent() ? "answered" : "escalated"));
+            if (recommendation.isPresent()) {
+                return recommendation;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Timer engineTimer(String engine, String outcome) {
+        return Timer.builder("recommendation.engine")
+                .description("Time spent per recommendation engine, counted by decision")
+                .tag("engine", engine)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 }
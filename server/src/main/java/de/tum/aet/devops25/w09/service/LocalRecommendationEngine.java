@@ -0,0 +1,159 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.dto.Dish;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-process engine for the trivial case: a favorite appears (almost) verbatim in today's menu.
+ *
+ * Names are compared by the Dice coefficient of their character trigrams after normalizing case,
+ * accents and punctuation. A favorite that mentions one of the dish's labels (e.g. "vegan curry")
+ * adds a small bonus. Anything below the threshold is left to the LLM.
+ */
+@Component
+@Order(0)
+public class LocalRecommendationEngine implements RecommendationEngine {
+
+    private static final double LABEL_BONUS = 0.1;
+
+    private final double threshold;
+
+    public LocalRecommendationEngine(@Value("${recommendation.local.threshold:0.85}") double threshold) {
+        this.threshold = threshold;
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public Optional<String> recommend(List<String> favoriteMeals, List<Dish> todayMeals) {
+        List<Favorite> favorites = favoriteMeals.stream().map(Favorite::of).toList();
+        Dish best = null;
+        double bestScore = 0;
+        if (todayMeals instanceof DishCatalog.DishList dishes) {
+            // Interned menu: dish names are normalized once in the catalog and labels compared as bits
+            long[] labelMasks = favorites.stream().mapToLong(favorite -> dishes.catalog().labelMask(favorite.tokens())).toArray();
+            for (int i = 0; i < dishes.size(); i++) {
+                DishCatalog.Entry dish = dishes.entry(i);
+                if (dish.dish().name() == null) {
+                    continue;
+                }
+                for (int f = 0; f < favorites.size(); f++) {
+                    Favorite favorite = favorites.get(f);
+                    boolean mentionsLabel = (labelMasks[f] & dish.labels()) != 0
+                            || (!dish.fullyIndexed() && favorite.mentionsAny(normalizedLabels(dish.dish())));
+                    double score = score(favorite, dish.normalizedName(), dish.trigrams(), mentionsLabel);
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = dish.dish();
+                    }
+                }
+            }
+        } else {
+            for (Dish dish : todayMeals) {
+                if (dish.name() == null) {
+                    continue;
+                }
+                String dishName = normalize(dish.name());
+                Set<String> dishTrigrams = trigrams(dishName);
+                Set<String> dishLabels = normalizedLabels(dish);
+                for (Favorite favorite : favorites) {
+                    double score = score(favorite, dishName, dishTrigrams, favorite.mentionsAny(dishLabels));
+                    if (score > bestScore) {
+                        bestScore = score;
+                        best = dish;
+                    }
+                }
+            }
+        }
+        return best != null && bestScore >= threshold ? Optional.of(best.name()) : Optional.empty();
+    }
+
+    /**
+     * Similarity of a favorite and a dish in [0, 1]
+     * @param favorite a favorite meal name
+     * @param dish a dish from today's menu
+     * @return 1 for a verbatim match, lower the less the names have in common
+     */
+    public static double similarity(String favorite, Dish dish) {
+        String dishName = normalize(dish.name());
+        Favorite normalized = Favorite.of(favorite);
+        return score(normalized, dishName, trigrams(dishName), normalized.mentionsAny(normalizedLabels(dish)));
+    }
+
+    private static double score(Favorite favorite, String dishName, Set<String> dishTrigrams, boolean mentionsLabel) {
+        if (favorite.name().isEmpty() || dishName.isEmpty()) {
+            return 0;
+        }
+        if (favorite.name().equals(dishName)) {
+            return 1;
+        }
+        int common = 0;
+        for (String trigram : favorite.trigrams()) {
+            if (dishTrigrams.contains(trigram)) {
+                common++;
+            }
+        }
+        double dice = 2.0 * common / (favorite.trigrams().size() + dishTrigrams.size());
+        return Math.min(1, dice + (mentionsLabel ? LABEL_BONUS : 0));
+    }
+
+    /**
+     * A favorite prepared once per recommendation rather than once per dish
+     */
+    private record Favorite(String name, Set<String> trigrams, String[] tokens) {
+
+        static Favorite of(String favorite) {
+            String name = normalize(favorite);
+            return new Favorite(name, LocalRecommendationEngine.trigrams(name), name.split(" "));
+        }
+
+        boolean mentionsAny(Set<String> normalizedLabels) {
+            for (String token : tokens) {
+                if (normalizedLabels.contains(token)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String withoutAccents = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutAccents.toLowerCase(Locale.ROOT).replaceAll("[^\\p{Alnum}]+", " ").trim();
+    }
+
+    static Set<String> trigrams(String normalized) {
+        // Pad so that short words and word boundaries produce trigrams too
+        String padded = "  " + normalized + " ";
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+
+    private static Set<String> normalizedLabels(Dish dish) {
+        Set<String> labels = new HashSet<>();
+        if (dish.labels() != null) {
+            for (String label : dish.labels()) {
+                labels.add(normalize(label));
+            }
+        }
+        return labels;
+    }
+}
@@ -0,0 +1,70 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Published by {@link CanteenService} when a refetched week file differs from the previous version of the same week
+ * @param canteen the canteen whose menu changed
+ * @param changes the changed days in date order, unchanged days are omitted
+ */
+public record MenuChangedEvent(String canteen, List<DayChange> changes) {
+
+    /**
+     * Dishes added to and removed from one day. A day that appeared or disappeared has all its dishes added or removed.
+     */
+    public record DayChange(LocalDate date, List<Dish> added, List<Dish> removed) {}
+
+    public boolean affects(LocalDate date) {
+        return changes.stream().anyMatch(change -> change.date().equals(date));
+    }
+
+    /**
+     * Compare two versions of a week day by day; reordered dishes are not a change
+     * @param previous the previously fetched week
+     * @param current the newly fetched week
+     * @return the changed days in date order
+     */
+    public static List<DayChange> diff(Week previous, Week current) {
+        Map<LocalDate, List<Dish>> before = dishesByDate(previous);
+        Map<LocalDate, List<Dish>> after = dishesByDate(current);
+        Set<LocalDate> dates = new TreeSet<>(before.keySet());
+        dates.addAll(after.keySet());
+
+        List<DayChange> changes = new ArrayList<>();
+        for (LocalDate date : dates) {
+            List<Dish> old = before.getOrDefault(date, List.of());
+            List<Dish> now = after.getOrDefault(date, List.of());
+            Set<Dish> oldSet = new HashSet<>(old);
+            Set<Dish> nowSet = new HashSet<>(now);
+            List<Dish> added = now.stream().filter(dish -> !oldSet.contains(dish)).toList();
+            List<Dish> removed = old.stream().filter(dish -> !nowSet.contains(dish)).toList();
+            if (!added.isEmpty() || !removed.isEmpty()) {
+                changes.add(new DayChange(date, added, removed));
+            }
+        }
+        return changes;
+    }
+
+    private static Map<LocalDate, List<Dish>> dishesByDate(Week week) {
+        Map<LocalDate, List<Dish>> dishesByDate = new LinkedHashMap<>();
+        if (week != null && week.days() != null) {
+            for (Day day : week.days()) {
+                if (day.date() != null) {
+                    dishesByDate.put(day.date(), day.dishes() != null ? day.dishes() : List.of());
+                }
+            }
+        }
+        return dishesByDate;
+    }
+}
@@ -0,0 +1,138 @@
+package de.tum.aet.devops25.w09.service;
+
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Keeps the preference caches of several server instances coherent through PostgreSQL LISTEN/NOTIFY,
+ * enabled with {@code preferences.cache.notify.enabled=true}.
+ *
+ * Every local change is announced on a channel, every other instance drops its cached entry for
+ * that user. The listener holds its own connection outside the pool and reconnects on failure;
+ * after a reconnect the whole cache is dropped because notifications may have been missed.
+ */
+@Component
+@ConditionalOnProperty(name = "preferences.cache.notify.enabled", havingValue = "true")
+public class PreferenceInvalidationChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(PreferenceInvalidationChannel.class);
+
+    static final String CHANNEL = "user_preferences_changed";
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final JdbcTemplate jdbcTemplate;
+    private final UserPreferenceService userPreferenceService;
+    private final ExecutorService backgroundExecutor;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final Duration retryDelay;
+
+    private volatile boolean running = true;
+    private volatile Connection connection;
+
+    public PreferenceInvalidationChannel(JdbcTemplate jdbcTemplate,
+                                         UserPreferenceService userPreferenceService,
+                                         ExecutorService backgroundExecutor,
+                                         @Value("${spring.datasource.url}") String url,
+                                         @Value("${spring.datasource.username}") String username,
+                                         @Value("${spring.datasource.password}") String password,
+                                         @Value("${preferences.cache.notify.retry-delay:PT5S}") Duration retryDelay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userPreferenceService = userPreferenceService;
+        this.backgroundExecutor = backgroundExecutor;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.retryDelay = retryDelay;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        backgroundExecutor.submit(this::listen);
+    }
+
+    /**
+     * Announce a local change to the other instances
+     */
+    @EventListener
+    public void onPreferencesChanged(UserPreferencesChangedEvent event) {
+        try {
+            jdbcTemplate.query("select pg_notify(?, ?)", resultSet -> { }, CHANNEL, nodeId + ":" + event.name());
+        } catch (RuntimeException e) {
+            // Other instances fall back to the cache TTL
+            log.warn("Error publishing preference change for {}: {}", event.name(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws SQLException {
+        running = false;
+        Connection current = connection;
+        if (current != null) {
+            current.close(); // unblocks getNotifications
+        }
+    }
+
+    /**
+     * Evict the user named in a notification of another instance
+     * @param payload the notification payload, {@code <node id>:<user name>}
+     */
+    public void handle(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return; // malformed, or our own change which is already invalidated
+        }
+        userPreferenceService.evict(payload.substring(separator + 1));
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection listening = DriverManager.getConnection(url, username, password)) {
+                connection = listening;
+                try (Statement statement = listening.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                userPreferenceService.evictAll();
+
+                PGConnection pgConnection = listening.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) retryDelay.toMillis());
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            handle(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Preference invalidation channel disconnected: {}", e.getMessage());
+                try {
+                    Thread.sleep(retryDelay.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
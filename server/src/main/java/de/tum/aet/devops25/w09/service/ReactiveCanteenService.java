@@ -0,0 +1,65 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.cache.TtlCache;
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.CanteenService.WeekKey;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link CanteenService}, sharing its week cache.
+ *
+ * Cached weeks are served without leaving the calling thread. Misses are loaded by the blocking
+ * {@link CanteenService} on the bounded elastic scheduler, so both modes share the conditional
+ * requests, the snapshot fallback, the {@link MenuChangedEvent}s and the single-flight loads of the cache.
+ */
+@Service
+@ConditionalOnProperty(name = "recommendation.mode", havingValue = "reactive")
+public class ReactiveCanteenService {
+
+    private final CanteenService canteenService;
+    private final TtlCache<WeekKey, Week> weekCache;
+    private final Clock clock;
+
+    public ReactiveCanteenService(CanteenService canteenService, TtlCache<WeekKey, Week> weekCache, Clock clock) {
+        this.canteenService = canteenService;
+        this.weekCache = weekCache;
+        this.clock = clock;
+    }
+
+    /**
+     * Get today's meals for a specific canteen
+     * @param canteenName the name of the canteen, e.g., "mensa-garching"
+     * @return list of dishes available today, or empty list if no data found
+     */
+    public Mono<List<Dish>> getTodayMeals(String canteenName) {
+        LocalDate today = LocalDate.now(clock);
+
+        // Stale weeks are served as-is and refreshed in the background by the blocking fetcher
+        Week cached = weekCache.getIfPresent(WeekKey.of(canteenName, today), canteenService::fetchWeek);
+        if (cached != null) {
+            return Mono.just(todayMeals(cached, today));
+        }
+        return Mono.fromCallable(() -> canteenService.getTodayMeals(canteenName))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static List<Dish> todayMeals(Week week, LocalDate today) {
+        if (week.days() == null) {
+            return List.of();
+        }
+        return week.days().stream()
+                .filter(day -> today.equals(day.date()))
+                .findFirst()
+                .map(Day::dishes)
+                .orElse(List.of());
+    }
+}
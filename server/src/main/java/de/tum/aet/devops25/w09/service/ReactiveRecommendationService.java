@@ -0,0 +1,169 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.client.ReactiveLLMClient;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.service.RecommendationCoalescer.RecommendationKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non-blocking counterpart of {@link RecommendationService}, enabled with {@code recommendation.mode=reactive}.
+ * It only recommends from {@link RecommendationService#DEFAULT_CANTEEN}; multi-canteen requests stay on the blocking path.
+ *
+ * The LLM service is called through WebClient, menus through the cache of {@link CanteenService}. JPA has no non-blocking driver, so
+ * the preference and precomputed-row lookups run on a scheduler bounded to the connection pool size:
+ * they never occupy more threads than there are connections to use. Cancelling the returned
+ * Mono, e.g. when the client disconnects, cancels the outstanding upstream calls.
+ *
+ * Steps are observed as {@code recommendation.stage} and requests counted as {@code recommendation.results}
+ * with the same tags as in {@link RecommendationService}, so dashboards cover both modes; a step cancelled
+ * by the deadline or the client ends with outcome {@code cancelled}.
+ */
+@Service
+@ConditionalOnProperty(name = "recommendation.mode", havingValue = "reactive")
+public class ReactiveRecommendationService {
+
+    private final ReactiveCanteenService reactiveCanteenService;
+    private final ReactiveLLMClient reactiveLLMClient;
+    private final UserPreferenceService userPreferenceService;
+    private final DailyRecommendationService dailyRecommendationService;
+    private final LLMRecommendationService llmRecommendationService;
+    private final RecommendationCoalescer recommendationCoalescer;
+    private final Clock clock;
+    private final Duration deadline;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+    private final Scheduler jdbcScheduler;
+    private final Map<RecommendationKey, Mono<String>> inFlight = new ConcurrentHashMap<>();
+
+    public ReactiveRecommendationService(ReactiveCanteenService reactiveCanteenService, ReactiveLLMClient reactiveLLMClient,
+                                         UserPreferenceService userPreferenceService, DailyRecommendationService dailyRecommendationService,
+                                         LLMRecommendationService llmRecommendationService, RecommendationCoalescer recommendationCoalescer,
+                                         Clock clock, MeterRegistry meterRegistry, ObservationRegistry observationRegistry,
+                                         @Value("${recommendation.deadline:PT35S}") Duration deadline,
+                                         @Value("${spring.datasource.hikari.maximum-pool-size:10}") int jdbcThreads) {
+        this.reactiveCanteenService = reactiveCanteenService;
+        this.reactiveLLMClient = reactiveLLMClient;
+        this.userPreferenceService = userPreferenceService;
+        this.dailyRecommendationService = dailyRecommendationService;
+        this.llmRecommendationService = llmRecommendationService;
+        this.recommendationCoalescer = recommendationCoalescer;
+        this.clock = clock;
+        this.deadline = deadline;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+        this.jdbcScheduler = Schedulers.newBoundedElastic(jdbcThreads, Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "jdbc");
+    }
+
+    /**
+     * Get a recommendation for a user based on today's menu of the default canteen
+     * @param name the user name
+     * @return the recommendation, empty if the user has no favorites or the LLM service returned none,
+     *         or a {@link java.util.concurrent.TimeoutException} error if the deadline passed
+     */
+    public Mono<String> getRecommendation(String name) {
+        String canteen = RecommendationService.DEFAULT_CANTEEN;
+        LocalDate today = LocalDate.now(clock);
+
+        Mono<String> onDemand = Mono.zip(
+                        timed("preferences", blocking(() -> userPreferenceService.getFavoriteMeals(List.of(name)).getOrDefault(name, List.of()))),
+                        timed("menu", reactiveCanteenService.getTodayMeals(canteen)))
+                .flatMap(preferencesAndMenu -> {
+                    List<String> favoriteMeals = preferencesAndMenu.getT1();
+                    if (favoriteMeals.isEmpty()) {
+                        result("no_favorites");
+                        return Mono.empty(); // No favorites found
+                    }
+                    return timed("llm", recommend(favoriteMeals, preferencesAndMenu.getT2()))
+                            .filter(recommendation -> !recommendation.isEmpty())
+                            .switchIfEmpty(Mono.fromRunnable(() -> result("empty")))
+                            .flatMap(recommendation -> timed("store", blocking(() -> {
+                                dailyRecommendationService.store(name, canteen, today, favoriteMeals, recommendation);
+                                return recommendation;
+                            })))
+                            .doOnNext(recommendation -> result("generated"));
+                });
+
+        return timed("precomputed", blocking(() -> dailyRecommendationService.getPrecomputed(name, canteen)))
+                .flatMap(precomputed -> precomputed.map(recommendation -> {
+                    result("precomputed");
+                    return Mono.just(recommendation);
+                }).orElse(onDemand))
+                .timeout(deadline)
+                .doOnError(e -> result(e instanceof TimeoutException ? "timeout" : "failed"));
+    }
+
+    private Mono<String> recommend(List<String> favoriteMeals, List<Dish> todayMeals) {
+        Optional<String> local = llmRecommendationService.recommendLocally(favoriteMeals, todayMeals);
+        if (local.isPresent()) {
+            return Mono.just(local.get());
+        }
+
+        List<String> todayMealNames = todayMeals.stream().map(Dish::name).toList();
+        String cached = recommendationCoalescer.getCachedRecommendation(favoriteMeals, todayMealNames);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        // Identical in-flight requests share one upstream call, which is cancelled once nobody waits for it
+        RecommendationKey key = RecommendationKey.of(favoriteMeals, todayMealNames);
+        return inFlight.computeIfAbsent(key, k -> reactiveLLMClient.generateRecommendations(favoriteMeals, todayMealNames)
+                .doOnNext(recommendation -> recommendationCoalescer.cacheRecommendation(favoriteMeals, todayMealNames, recommendation))
+                .doFinally(signal -> inFlight.remove(k))
+                .share());
+    }
+
+    private <T> Mono<T> timed(String stage, Mono<T> step) {
+        return Mono.defer(() -> {
+            Observation observation = Observation.createNotStarted("recommendation.stage", observationRegistry)
+                    .contextualName("recommendation " + stage)
+                    .lowCardinalityKeyValue("stage", stage)
+                    .lowCardinalityKeyValue("outcome", "error")
+                    .start();
+            return step
+                    .doOnSuccess(value -> observation.lowCardinalityKeyValue("outcome", "success"))
+                    .doOnError(observation::error)
+                    .doOnCancel(() -> observation.lowCardinalityKeyValue("outcome", "cancelled"))
+                    .doFinally(signal -> observation.stop())
+                    // Makes database queries and outbound calls of the step its children
+                    .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation));
+        });
+    }
+
+    private void result(String outcome) {
+        Counter.builder("recommendation.results")
+                .description("Recommendation requests by how they ended")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(jdbcScheduler);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jdbcScheduler.dispose();
+    }
+}
@@ -0,0 +1,155 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.cache.TtlCache;
+import de.tum.aet.devops25.w09.client.LLMRestClient;
+import de.tum.aet.devops25.w09.dto.UserRecommendation;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Single-flight layer in front of {@link LLMRestClient}.
+ *
+ * Requests are keyed by the normalized favorite list and today's menu, so identical
+ * in-flight requests share one upstream call and repeats are served from the cache.
+ * Entries for different menus, e.g. of several canteens, live side by side; those of
+ * past menus are no longer requested and age out with the cache TTL.
+ */
+@Component
+public class RecommendationCoalescer {
+
+    private final LLMRestClient llmRestClient;
+    private final TtlCache<RecommendationKey, String> recommendationCache;
+
+    public RecommendationCoalescer(LLMRestClient llmRestClient, TtlCache<RecommendationKey, String> recommendationCache) {
+        this.llmRestClient = llmRestClient;
+        this.recommendationCache = recommendationCache;
+    }
+
+    /**
+     * Get a recommendation, joining an identical in-flight request or serving a cached one
+     * @param favoriteMenu list of user's favorite meal names
+     * @param todaysMenu list of today's available meal names
+     * @return recommendation string, empty if the LLM service returned none
+     */
+    public String getRecommendation(List<String> favoriteMenu, List<String> todaysMenu) {
+        RecommendationKey key = RecommendationKey.of(favoriteMenu, todaysMenu);
+        // Empty answers are failures of the LLM service and must not be cached
+        String recommendation = recommendationCache.get(key, k -> {
+            String response = llmRestClient.generateRecommendations(favoriteMenu, todaysMenu);
+            return response == null || response.isEmpty() ? null : response;
+        });
+        return recommendation != null ? recommendation : "";
+    }
+
+    /**
+     * Stream a recommendation token by token. A cached recommendation is emitted as a single token.
+     * Streams are not shared between callers, but their result is cached for later requests.
+     * @param favoriteMenu list of user's favorite meal names
+     * @param todaysMenu list of today's available meal names
+     * @param onToken called for every token
+     * @return the complete recommendation, empty if the LLM service returned none
+     */
+    public String streamRecommendation(List<String> favoriteMenu, List<String> todaysMenu, Consumer<String> onToken) {
+        String cached = getCachedRecommendation(favoriteMenu, todaysMenu);
+        if (cached != null) {
+            onToken.accept(cached);
+            return cached;
+        }
+        String recommendation = llmRestClient.streamRecommendations(favoriteMenu, todaysMenu, onToken);
+        cacheRecommendation(favoriteMenu, todaysMenu, recommendation);
+        return recommendation != null ? recommendation : "";
+    }
+
+    /**
+     * Get a cached recommendation without calling the LLM service
+     * @param favoriteMenu list of user's favorite meal names
+     * @param todaysMenu list of today's available meal names
+     * @return the cached recommendation, or null if there is none
+     */
+    public String getCachedRecommendation(List<String> favoriteMenu, List<String> todaysMenu) {
+        return recommendationCache.getIfPresent(RecommendationKey.of(favoriteMenu, todaysMenu));
+    }
+
+    /**
+     * Cache a recommendation obtained outside of this class, e.g. by the reactive client
+     * @param favoriteMenu list of user's favorite meal names
+     * @param todaysMenu list of today's available meal names
+     * @param recommendation the non-empty recommendation
+     */
+    public void cacheRecommendation(List<String> favoriteMenu, List<String> todaysMenu, String recommendation) {
+        if (recommendation != null && !recommendation.isEmpty()) {
+            recommendationCache.put(RecommendationKey.of(favoriteMenu, todaysMenu), recommendation);
+        }
+    }
+
+    /**
+     * Get recommendations for several users with at most one batched upstream call.
+     * Users sharing the same favorites are sent once, cached answers are emitted right away.
+     * @param favoritesByUser favorite meal names by user name
+     * @param todaysMenu list of today's available meal names
+     * @param onRecommendation called once per user, with an empty recommendation if none is available
+     */
+    public void getRecommendations(Map<String, List<String>> favoritesByUser, List<String> todaysMenu,
+                                   Consumer<UserRecommendation> onRecommendation) {
+        Map<RecommendationKey, List<String>> usersByKey = new LinkedHashMap<>();
+        favoritesByUser.forEach((name, favorites) ->
+                usersByKey.computeIfAbsent(RecommendationKey.of(favorites, todaysMenu), k -> new ArrayList<>()).add(name));
+
+        // One representative user per distinct key is sent upstream
+        Map<String, RecommendationKey> pending = new LinkedHashMap<>();
+        usersByKey.forEach((key, names) -> {
+            String cached = recommendationCache.getIfPresent(key);
+            if (cached != null) {
+                names.forEach(name -> onRecommendation.accept(new UserRecommendation(name, cached)));
+            } else {
+                pending.put(names.getFirst(), key);
+            }
+        });
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<String>> request = new LinkedHashMap<>();
+        pending.forEach((name, key) -> request.put(name, key.favorites()));
+        Map<RecommendationKey, Boolean> answered = new HashMap<>();
+        llmRestClient.generateBatchRecommendations(request, todaysMenu, response -> {
+            RecommendationKey key = pending.get(response.name());
+            if (key == null || answered.putIfAbsent(key, Boolean.TRUE) != null) {
+                return;
+            }
+            String recommendation = response.recommendation() != null ? response.recommendation() : "";
+            if (!recommendation.isEmpty()) {
+                recommendationCache.put(key, recommendation);
+            }
+            usersByKey.get(key).forEach(name -> onRecommendation.accept(new UserRecommendation(name, recommendation)));
+        });
+
+        // Users the LLM service did not answer for still get a line
+        pending.values().stream()
+                .filter(key -> !answered.containsKey(key))
+                .forEach(key -> usersByKey.get(key).forEach(name -> onRecommendation.accept(new UserRecommendation(name, ""))));
+    }
+
+    /**
+     * Cache key made of the sorted, deduplicated favorites and today's menu
+     */
+    public record RecommendationKey(List<String> favorites, List<String> menu) {
+
+        public static RecommendationKey of(List<String> favoriteMenu, List<String> todaysMenu) {
+            List<String> favorites = favoriteMenu.stream()
+                    .filter(Objects::nonNull)
+                    .map(String::trim)
+                    .distinct()
+                    .sorted()
+                    .toList();
+            return new RecommendationKey(favorites, List.copyOf(todaysMenu));
+        }
+    }
+}
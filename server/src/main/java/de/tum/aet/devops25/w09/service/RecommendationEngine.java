@@ -0,0 +1,26 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.dto.Dish;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A fast path consulted by {@link LLMRecommendationService} before escalating to the LLM service.
+ * Engines are tried in {@link org.springframework.core.annotation.Order} order; the first answer wins.
+ */
+public interface RecommendationEngine {
+
+    /**
+     * Name used to tag the engine's metrics
+     */
+    String name();
+
+    /**
+     * Try to recommend a dish without the LLM service
+     * @param favoriteMeals list of user's favorite meal names
+     * @param todayMeals list of today's available dishes
+     * @return the recommended dish name, or empty if the engine is not confident enough
+     */
+    Optional<String> recommend(List<String> favoriteMeals, List<Dish> todayMeals);
+}
@@ -0,0 +1,285 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.dto.CanteenMenus;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.PreferencesSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Orchestrates a single recommendation: preference lookup, menu fetch and LLM call.
+ *
+ * Precomputed rows from {@link DailyRecommendationService} are served directly; the
+ * on-demand path below is the fallback and stores its result for later requests.
+ * The menu fetch does not depend on the preferences, so it runs in parallel with the lookup;
+ * menus of several canteens are fetched in parallel as well and merged. A recommendation based on
+ * only some of the canteens, because others did not answer in time, is returned but not stored.
+ * The deadline only bounds the wait for the menu: the preference lookup runs on the request thread
+ * before that wait, and the LLM call after it. The menu fetch is abandoned, not interrupted, when the
+ * deadline passes: it may be the single-flight load other requests wait for, and finishing it fills the
+ * cache for them. The LLM call is bounded by its {@code ResiliencePolicy} alone, which runs the HTTP attempt
+ * on the background executor while the request thread waits for it, so a request can take up to
+ * {@code recommendation.deadline} plus {@code llm.resilience.timeout.max}.
+ * If the background executor has no free thread for the menu fetch, the request fails like one that missed
+ * its deadline instead of fetching on the request thread without a bound.
+ *
+ * Every step is observed as {@code recommendation.stage}, tagged by stage and outcome, which records
+ * a timer and, for sampled requests, a span; steps running on the background executor stay children
+ * of the request's trace. Every request is counted once as {@code recommendation.results} by how it ended.
+ * Requests shed by admission control take a degraded path that never calls the LLM service.
+ */
+@Service
+public class RecommendationService {
+
+    public static final String DEFAULT_CANTEEN = "mensa-garching";
+
+    private final LLMRecommendationService llmRecommendationService;
+    private final UserPreferenceService userPreferenceService;
+    private final CanteenService canteenService;
+    private final DailyRecommendationService dailyRecommendationService;
+    private final ExecutorService backgroundExecutor;
+    private final Clock clock;
+    private final Duration deadline;
+    private final MeterRegistry meterRegistry;
+    private final ObservationRegistry observationRegistry;
+
+    public RecommendationService(LLMRecommendationService llmRecommendationService, UserPreferenceService userPreferenceService,
+                                 CanteenService canteenService, DailyRecommendationService dailyRecommendationService,
+                                 ExecutorService backgroundExecutor, Clock clock, MeterRegistry meterRegistry,
+                                 ObservationRegistry observationRegistry,
+                                 @Value("${recommendation.deadline:PT35S}") Duration deadline) {
+        this.llmRecommendationService = llmRecommendationService;
+        this.userPreferenceService = userPreferenceService;
+        this.canteenService = canteenService;
+        this.dailyRecommendationService = dailyRecommendationService;
+        this.backgroundExecutor = backgroundExecutor;
+        this.clock = clock;
+        this.deadline = deadline;
+        this.meterRegistry = meterRegistry;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Get a recommendation for a user based on today's menu
+     * @param name the user name
+     * @return the recommendation, or empty if the user has no favorites or the LLM service returned none
+     * @throws TimeoutException if the recommendation could not be computed within the deadline
+     */
+    public Optional<String> getRecommendation(String name) throws TimeoutException {
+        return getRecommendation(name, List.of(DEFAULT_CANTEEN));
+    }
+
+    /**
+     * Get a recommendation for a user based on today's menus of several canteens
+     * @param name the user name
+     * @param canteens the canteen names, the dishes of all canteens that answer in time are considered
+     * @return the recommendation, or empty if the user has no favorites or the LLM service returned none
+     * @throws TimeoutException if the recommendation could not be computed within the deadline
+     */
+    public Optional<String> getRecommendation(String name, List<String> canteens) throws TimeoutException {
+        Optional<String> precomputed = precomputed(name, canteens);
+        if (precomputed.isPresent()) {
+            return precomputed;
+        }
+        return generate(name, canteens, llmRecommendationService::getRecommendationFromLLM);
+    }
+
+    /**
+     * Get a recommendation without calling the LLM service, for requests shed by admission control
+     * @param name the user name
+     * @param canteens the canteen names
+     * @return the precomputed, cached or locally computed recommendation, empty if there is none
+     */
+    public Optional<String> getDegradedRecommendation(String name, List<String> canteens) {
+        Optional<String> precomputed = precomputed(name, canteens);
+        if (precomputed.isPresent()) {
+            return precomputed;
+        }
+        PreferencesSnapshot userPreferences = timed("preferences", () -> userPreferenceService.getPreferences(name));
+        if (userPreferences == null || userPreferences.favoriteMeals().isEmpty()) {
+            result("no_favorites");
+            return Optional.empty();
+        }
+        List<Dish> meals = timed("menu", () -> todaysMeals(canteens)).dishes();
+        Optional<String> recommendation = llmRecommendationService.recommendWithoutLLM(userPreferences.favoriteMeals(), meals);
+        result(recommendation.isPresent() ? "degraded" : "shed");
+        return recommendation;
+    }
+
+    /**
+     * Stream a recommendation for a user based on today's menu
+     * @param name the user name
+     * @param onToken called for every token as it arrives; precomputed or local answers arrive as one token
+     * @return the complete recommendation, or empty if the user has no favorites or the LLM service returned none
+     * @throws TimeoutException if the recommendation could not be computed within the deadline
+     */
+    public Optional<String> streamRecommendation(String name, Consumer<String> onToken) throws TimeoutException {
+        return streamRecommendation(name, List.of(DEFAULT_CANTEEN), onToken);
+    }
+
+    /**
+     * Stream a recommendation for a user based on today's menus of several canteens
+     * @param name the user name
+     * @param canteens the canteen names, the dishes of all canteens that answer in time are considered
+     * @param onToken called for every token as it arrives; precomputed or local answers arrive as one token
+     * @return the complete recommendation, or empty if the user has no favorites or the LLM service returned none
+     * @throws TimeoutException if the recommendation could not be computed within the deadline
+     */
+    public Optional<String> streamRecommendation(String name, List<String> canteens, Consumer<String> onToken) throws TimeoutException {
+        Optional<String> precomputed = precomputed(name, canteens);
+        if (precomputed.isPresent()) {
+            onToken.accept(precomputed.get());
+            return precomputed;
+        }
+        return generate(name, canteens,
+                (favoriteMeals, meals) -> llmRecommendationService.streamRecommendationFromLLM(favoriteMeals, meals, onToken));
+    }
+
+    /**
+     * Key under which recommendations for a set of canteens are stored, independent of order and duplicates
+     * @param canteens the canteen names
+     * @return the sorted, comma-separated canteen names
+     */
+    public static String canteenKey(List<String> canteens) {
+        return canteens.stream().distinct().sorted().collect(Collectors.joining(","));
+    }
+
+    private Optional<String> precomputed(String name, List<String> canteens) {
+        Optional<String> precomputed = timed("precomputed", () -> dailyRecommendationService.getPrecomputed(name, canteenKey(canteens)));
+        precomputed.ifPresent(recommendation -> result("precomputed"));
+        return precomputed;
+    }
+
+    private Optional<String> generate(String name, List<String> canteens,
+                                      BiFunction<List<String>, List<Dish>, String> generator) throws TimeoutException {
+        try {
+            return generateWithinDeadline(name, canteens, generator);
+        } catch (TimeoutException e) {
+            result("timeout");
+            throw e;
+        } catch (RuntimeException e) {
+            result("failed");
+            throw e;
+        }
+    }
+
+    private Optional<String> generateWithinDeadline(String name, List<String> canteens,
+                                                    BiFunction<List<String>, List<Dish>, String> generator) throws TimeoutException {
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        LocalDate today = LocalDate.now(clock);
+
+        Future<Menu> todaysMeals;
+        try {
+            todaysMeals = backgroundExecutor.submit(() -> timed("menu", () -> todaysMeals(canteens)));
+        } catch (RejectedExecutionException e) {
+            // Fetching on this thread would not be bounded by the deadline
+            throw new TimeoutException("No background thread free to fetch the menu");
+        }
+        try {
+            PreferencesSnapshot userPreferences = timed("preferences", () -> userPreferenceService.getPreferences(name));
+            if (userPreferences == null || userPreferences.favoriteMeals().isEmpty()) {
+                result("no_favorites");
+                return Optional.empty(); // No favorites found, the menu is not needed
+            }
+            List<String> favoriteMeals = userPreferences.favoriteMeals();
+            Menu menu = await(todaysMeals, deadlineNanos);
+            List<Dish> meals = menu.dishes();
+
+            String response = timed("llm", () -> generator.apply(favoriteMeals, meals));
+            if (response == null || response.isEmpty()) {
+                result("empty");
+                return Optional.empty();
+            }
+            if (menu.complete()) {
+                // Stored rows are served all day, one missing a canteen would never be corrected
+                timed("store", () -> dailyRecommendationService.store(name, canteenKey(canteens), today, favoriteMeals, response));
+            }
+            result("generated");
+            return Optional.of(response);
+        } finally {
+            // Only drops the fetch if it has not started yet, a running one completes for the cache
+            todaysMeals.cancel(false);
+        }
+    }
+
+    private Menu todaysMeals(List<String> canteens) {
+        if (canteens.size() == 1) {
+            return new Menu(canteenService.getTodayMeals(canteens.getFirst()), true);
+        }
+        // Canteens share many dishes, the LLM only needs each one once
+        CanteenMenus menus = canteenService.getTodayMeals(canteens);
+        Map<String, Dish> dishesByName = new LinkedHashMap<>();
+        menus.menus().values().forEach(dishes -> dishes.forEach(dish -> dishesByName.putIfAbsent(dish.name(), dish)));
+        return new Menu(List.copyOf(dishesByName.values()), menus.unavailable().isEmpty());
+    }
+
+    private <T> T timed(String stage, Supplier<T> step) {
+        Observation observation = Observation.createNotStarted("recommendation.stage", observationRegistry)
+                .contextualName("recommendation " + stage)
+                .lowCardinalityKeyValue("stage", stage)
+                .lowCardinalityKeyValue("outcome", "error")
+                .start();
+        // The scope makes database queries and outbound calls of the step its children
+        try (Observation.Scope scope = observation.openScope()) {
+            T result = step.get();
+            observation.lowCardinalityKeyValue("outcome", "success");
+            return result;
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private void result(String outcome) {
+        Counter.builder("recommendation.results")
+                .description("Recommendation requests by how they ended")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Today's dishes of the requested canteens
+     * @param dishes the dishes, merged across canteens
+     * @param complete false if some canteens were unavailable and are missing from the dishes
+     */
+    private record Menu(List<Dish> dishes, boolean complete) {}
+
+    private static <T> T await(Future<T> future, long deadlineNanos) throws TimeoutException {
+        try {
+            return future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for recommendation", e);
+        }
+    }
+}
@@ -1,67 +1,189 @@
 package de.tum.aet.devops25.w09.service;
 
 import de.tum.aet.devops25.w09.UserPreferenceRepository;
+import de.tum.aet.devops25.w09.cache.TtlCache;
+import de.tum.aet.devops25.w09.dto.PreferencesSnapshot;
 import de.tum.aet.devops25.w09.entity.UserPreferences;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
+/**
+ * Reads go through an in-process cache of immutable {@link PreferencesSnapshot}s, so recommendations
+ * do not touch the database in the steady state. Every mutation invalidates the user's entry before
+ * {@link UserPreferencesChangedEvent} is published, listeners always read the new preferences.
+ * Added and removed favorites are counted in {@link DishPopularity} as well.
+ */
 @Service
 public class UserPreferenceService {
 
+    private static final Logger log = LoggerFactory.getLogger(UserPreferenceService.class);
+
     private final UserPreferenceRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TtlCache<String, Optional<PreferencesSnapshot>> preferenceCache;
+    private final DishPopularity popularity;
 
-    public UserPreferenceService(UserPreferenceRepository repository) {
+    public UserPreferenceService(UserPreferenceRepository repository, ApplicationEventPublisher eventPublisher,
+                                 TtlCache<String, Optional<PreferencesSnapshot>> preferenceCache, DishPopularity popularity) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.preferenceCache = preferenceCache;
+        this.popularity = popularity;
     }
 
-    public UserPreferences getPreferences(String name) {
+    public PreferencesSnapshot getPreferences(String name) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Name cannot be null or empty");
         }
-        return repository.findById(name).orElse(null);
+        return preferenceCache.get(name, this::load).orElse(null);
+    }
+
+    /**
+     * Get the favorite meals of several users, loading all uncached users with a single query
+     * @param names the user names
+     * @return favorite meals by user name, users without favorites are omitted
+     */
+    public Map<String, List<String>> getFavoriteMeals(Collection<String> names) {
+        if (names == null || names.stream().anyMatch(name -> name == null || name.trim().isEmpty())) {
+            throw new IllegalArgumentException("Names cannot be null or empty");
+        }
+
+        // Loads all uncached users with one query, guarded like single loads against concurrent invalidations
+        Map<String, Optional<PreferencesSnapshot>> snapshots = preferenceCache.getAll(names, this::loadAll);
+
+        Map<String, List<String>> favoritesByUser = new LinkedHashMap<>();
+        for (String name : names) {
+            PreferencesSnapshot snapshot = snapshots.getOrDefault(name, Optional.empty()).orElse(null);
+            if (snapshot != null && !snapshot.favoriteMeals().isEmpty()) {
+                favoritesByUser.put(name, snapshot.favoriteMeals());
+            }
+        }
+        return favoritesByUser;
     }
 
-    public UserPreferences addPreferences(String name, String meal) {
+    public List<String> getAllNames() {
+        return repository.findAllNames();
+    }
+
+    public PreferencesSnapshot addPreferences(String name, String meal) {
+        validate(name, meal);
+
+        // Single idempotent upsert, concurrent adds for the same user cannot lose each other's meals
+        if (repository.addFavoriteMeal(name, meal) > 0) {
+            popularity.added(meal);
+            changed(name);
+        }
+        return getPreferences(name);
+    }
+
+    public PreferencesSnapshot removePreference(String name, String meal) {
+        validate(name, meal);
+
+        if (repository.removeFavoriteMeal(name, meal) > 0) {
+            popularity.removed(meal);
+            changed(name);
+        }
+        return getPreferences(name); // null if user preferences not found
+    }
+
+    /**
+     * Replace all favorite meals of a user with the given set in a single statement
+     * @param name the user name
+     * @param meals the new favorite meals, duplicates are ignored
+     * @return the updated preferences
+     */
+    public PreferencesSnapshot replacePreferences(String name, Collection<String> meals) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Name cannot be null or empty");
         }
-        if (meal == null || meal.trim().isEmpty()) {
-            throw new IllegalArgumentException("Meal cannot be null or empty");
+        if (meals == null) {
+            throw new IllegalArgumentException("Meals cannot be null");
         }
+        meals.forEach(meal -> validate(name, meal));
 
-        return repository.findById(name)
-            .map(userPreferences -> {
-                // Avoid duplicate meals
-                if (!userPreferences.getFavoriteMeals().contains(meal)) {
-                    userPreferences.getFavoriteMeals().add(meal);
-                    return repository.save(userPreferences);
+        String[] distinctMeals = meals.stream().distinct().toArray(String[]::new);
+        // Counts what the statement actually changed, a diff against an earlier read could be stale
+        List<UserPreferenceRepository.MealChange> changes = repository.replaceFavoriteMeals(name, distinctMeals);
+        if (!changes.isEmpty()) {
+            List<String> added = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            for (UserPreferenceRepository.MealChange change : changes) {
+                if (change.getMeal() != null) {
+                    (Boolean.TRUE.equals(change.getAdded()) ? added : removed).add(change.getMeal());
                 }
-                return userPreferences; // Return existing without saving if duplicate
-            })
-            .orElseGet(() -> {
-                UserPreferences newPreferences = new UserPreferences(name, List.of(meal));
-                return repository.save(newPreferences);
-            });
+            }
+            popularity.changed(added, removed);
+            changed(name);
+        }
+        return getPreferences(name);
+    }
+
+    /**
+     * Replace the favorite counts with the counts in the database, picking up changes made by
+     * other instances and correcting any drift. Runs once at startup and then periodically.
+     */
+    @Scheduled(fixedDelayString = "${dishes.popularity.reconcile-interval:PT10M}")
+    public void reconcilePopularity() {
+        try {
+            popularity.reconcile(() -> repository.countFavoriteMeals().stream()
+                    .collect(Collectors.toMap(UserPreferenceRepository.MealCount::getMeal,
+                            UserPreferenceRepository.MealCount::getFavorites)));
+        } catch (RuntimeException e) {
+            log.warn("Error reconciling dish popularity: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop the cached preferences of a user, e.g. after another node changed them
+     * @param name the user name
+     */
+    public void evict(String name) {
+        preferenceCache.invalidate(name);
+    }
+
+    public void evictAll() {
+        preferenceCache.invalidateAll();
+    }
+
+    private Optional<PreferencesSnapshot> load(String name) {
+        // Fetch join: one query instead of findById plus the lazy collection
+        return repository.findAllWithFavoriteMealsByNameIn(List.of(name)).stream()
+                .findFirst()
+                .map(PreferencesSnapshot::of);
     }
 
-    public UserPreferences removePreference(String name, String meal) {
+    private Map<String, Optional<PreferencesSnapshot>> loadAll(List<String> names) {
+        Map<String, Optional<PreferencesSnapshot>> snapshots = new HashMap<>();
+        names.forEach(name -> snapshots.put(name, Optional.empty()));
+        for (UserPreferences userPreferences : repository.findAllWithFavoriteMealsByNameIn(names)) {
+            snapshots.put(userPreferences.getName(), Optional.of(PreferencesSnapshot.of(userPreferences)));
+        }
+        return snapshots;
+    }
+
+    private void changed(String name) {
+        preferenceCache.invalidate(name);
+        eventPublisher.publishEvent(new UserPreferencesChangedEvent(name));
+    }
+
+    private static void validate(String name, String meal) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Name cannot be null or empty");
         }
         if (meal == null || meal.trim().isEmpty()) {
             throw new IllegalArgumentException("Meal cannot be null or empty");
         }
-
-        return repository.findById(name)
-            .map(userPreferences -> {
-                if (userPreferences.getFavoriteMeals().contains(meal)) {
-                    userPreferences.getFavoriteMeals().remove(meal);
-                    return repository.save(userPreferences);
-                }
-                return userPreferences; // Return existing if meal not found
-            })
-            .orElse(null); // Return null if user preferences not found
     }
 }
-
@@ -0,0 +1,8 @@
+package de.tum.aet.devops25.w09.service;
+
+/**
+ * Published by {@link UserPreferenceService} after a user's favorite meals were changed
+ * @param name the user name
+ */
+public record UserPreferencesChangedEvent(String name) {
+}
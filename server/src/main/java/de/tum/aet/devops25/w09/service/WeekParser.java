@@ -0,0 +1,145 @@
+package de.tum.aet.devops25.w09.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token-level parser for eat-api week files, reading straight from a response stream.
+ *
+ * It produces the same {@link Week}, {@link Day} and {@link Dish} records as data binding, but skips
+ * the fields those records do not hold (prices make up most of a week file) without materializing
+ * them.
+ */
+@Component
+public class WeekParser {
+
+    private final JsonFactory jsonFactory;
+
+    public WeekParser(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Parse a whole week file
+     * @param body the week file
+     * @return the week, or null if the body is empty
+     * @throws IOException if the body cannot be read or is not a week file
+     */
+    public Week parseWeek(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() == null) {
+                return null;
+            }
+            expect(parser, JsonToken.START_OBJECT, "week");
+            int number = 0;
+            int year = 0;
+            List<Day> days = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "number" -> number = parser.getValueAsInt();
+                    case "year" -> year = parser.getValueAsInt();
+                    case "days" -> days = value == JsonToken.START_ARRAY ? readDays(parser) : skip(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            return new Week(number, year, days);
+        }
+    }
+
+    private List<Day> readDays(JsonParser parser) throws IOException {
+        List<Day> days = new ArrayList<>(7);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                days.add(null);
+                continue;
+            }
+            expect(parser, JsonToken.START_OBJECT, "day");
+            LocalDate date = null;
+            List<Dish> dishes = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "date" -> date = readDate(parser);
+                    case "dishes" -> dishes = value == JsonToken.START_ARRAY ? readDishes(parser) : skip(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            days.add(new Day(date, dishes));
+        }
+        return days;
+    }
+
+    private List<Dish> readDishes(JsonParser parser) throws IOException {
+        List<Dish> dishes = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                dishes.add(null);
+                continue;
+            }
+            expect(parser, JsonToken.START_OBJECT, "dish");
+            String name = null;
+            String dishType = null;
+            List<String> labels = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "name" -> name = readString(parser);
+                    case "dish_type" -> dishType = readString(parser);
+                    case "labels" -> labels = value == JsonToken.START_ARRAY ? readStrings(parser) : skip(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            dishes.add(new Dish(name, dishType, labels));
+        }
+        return dishes;
+    }
+
+    private static List<String> readStrings(JsonParser parser) throws IOException {
+        List<String> values = new ArrayList<>(4);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(readString(parser));
+        }
+        return values;
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getValueAsString();
+    }
+
+    private static LocalDate readDate(JsonParser parser) throws IOException {
+        String text = readString(parser);
+        return text == null || text.isEmpty() ? null : LocalDate.parse(text);
+    }
+
+    private static <T> T skip(JsonParser parser) throws IOException {
+        parser.skipChildren();
+        return null;
+    }
+
+    private static void expect(JsonParser parser, JsonToken token, String what) throws IOException {
+        if (parser.currentToken() != token) {
+            throw new JsonParseException(parser, "Expected a " + what + " object but found " + parser.currentToken());
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package de.tum.aet.devops25.w09.service;
+
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.CanteenService.WeekKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local store of fetched week files, so a cold server or one cut off from the eat-api can still serve menus.
+ *
+ * Every week is written to {@code <dir>/<canteen>/<year>-<week>.bin} in a compact binary format:
+ * all strings of the week (dish names, types and labels) are stored once in a string table and
+ * dishes refer to them by index. The HTTP validators of the fetch are stored alongside, so the
+ * first refresh after a restart can still be a conditional request. Files are replaced atomically
+ * and read through a memory mapping. Files of another format version, and files whose counts do not
+ * fit their size, are treated as missing before anything is allocated for them.
+ *
+ * Weeks passing through the store are interned in the {@link DishCatalog}, so a dish served on many
+ * days and in many canteens is held in memory once.
+ */
+@Component
+public class WeekSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(WeekSnapshotStore.class);
+
+    private static final int MAGIC = 0x4D4E5532; // "MNU2", the digit is the format version
+    private static final int NULL = -1;
+    private static final Pattern CANTEEN = Pattern.compile("[a-z0-9-]+");
+    private static final Pattern FILE_NAME = Pattern.compile("(\\d{4})-(\\d{2})\\.bin");
+
+    private final Path directory;
+    private final boolean enabled;
+    private final DishCatalog catalog;
+
+    public WeekSnapshotStore(@Value("${canteen.snapshot.dir:data/menu-snapshots}") String directory,
+                             @Value("${canteen.snapshot.enabled:true}") boolean enabled, DishCatalog catalog) {
+        this.directory = Path.of(directory);
+        this.enabled = enabled;
+        this.catalog = catalog;
+    }
+
+    /**
+     * A fetched week with the validators of the response it came from
+     * @param week the week
+     * @param etag the ETag response header, may be null
+     * @param lastModified the Last-Modified response header, may be null
+     * @param savedAt when the week was last fetched or confirmed unchanged by the eat-api
+     */
+    public record Snapshot(Week week, String etag, String lastModified, Instant savedAt) {}
+
+    /**
+     * Persist a freshly fetched week, replacing an older snapshot of the same week
+     * @param key canteen, year and week number
+     * @param week the fetched week
+     * @param etag the ETag response header, may be null
+     * @param lastModified the Last-Modified response header, may be null
+     * @return the week interned in the catalog, to be cached instead of the argument
+     */
+    public Week save(WeekKey key, Week week, String etag, String lastModified) {
+        Week interned = catalog.intern(week);
+        Path file = file(key);
+        if (file == null) {
+            return interned;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporary, encode(interned, etag, lastModified));
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            // The snapshot is only a fallback, serving the fetched week matters more
+            log.warn("Error writing menu snapshot {}: {}", file, e.getMessage());
+        }
+        return interned;
+    }
+
+    /**
+     * Read the last saved snapshot of a week
+     * @param key canteen, year and week number
+     * @return the snapshot, or empty if none was saved or it is unreadable
+     */
+    public Optional<Snapshot> load(WeekKey key) {
+        Path file = file(key);
+        if (file == null || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return Optional.of(decode(buffer, Files.getLastModifiedTime(file).toInstant()));
+        } catch (IOException | RuntimeException e) {
+            // Truncated or corrupt files are ignored, the next fetch overwrites them
+            log.warn("Error reading menu snapshot {}: {}", file, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Record that the eat-api confirmed a snapshot as unchanged, so it counts as fresh after a restart
+     * @param key canteen, year and week number
+     * @param now the current time
+     */
+    public void touch(WeekKey key, Instant now) {
+        Path file = file(key);
+        if (file == null || !Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(file, FileTime.from(now));
+        } catch (IOException e) {
+            log.warn("Error touching menu snapshot {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the keys of all saved snapshots
+     */
+    public List<WeekKey> keys() {
+        if (!enabled || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<WeekKey> keys = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                String canteen = file.getParent().getFileName().toString();
+                Matcher name = FILE_NAME.matcher(file.getFileName().toString());
+                if (CANTEEN.matcher(canteen).matches() && name.matches()) {
+                    keys.add(new WeekKey(canteen, Integer.parseInt(name.group(1)), Integer.parseInt(name.group(2))));
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Error listing menu snapshots: {}", e.getMessage());
+        }
+        return keys;
+    }
+
+    private Path file(WeekKey key) {
+        // Canteen names come from request paths, never let them escape the directory
+        if (!enabled || !CANTEEN.matcher(key.canteen()).matches()) {
+            return null;
+        }
+        return directory.resolve(key.canteen()).resolve(String.format("%04d-%02d.bin", key.year(), key.week()));
+    }
+
+    static byte[] encode(Week week, String etag, String lastModified) throws IOException {
+        Map<String, Integer> stringTable = new LinkedHashMap<>();
+        List<Day> days = week.days() != null ? week.days() : List.of();
+        for (Day day : days) {
+            if (day.dishes() != null) {
+                for (Dish dish : day.dishes()) {
+                    index(stringTable, dish.name());
+                    index(stringTable, dish.dish_type());
+                    if (dish.labels() != null) {
+                        dish.labels().forEach(label -> index(stringTable, label));
+                    }
+                }
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(week.number());
+        out.writeInt(week.year());
+        writeString(out, etag);
+        writeString(out, lastModified);
+        out.writeInt(stringTable.size());
+        for (String value : stringTable.keySet()) {
+            writeString(out, value);
+        }
+        out.writeInt(week.days() != null ? days.size() : NULL);
+        for (Day day : days) {
+            out.writeLong(day.date() != null ? day.date().toEpochDay() : Long.MIN_VALUE);
+            if (day.dishes() == null) {
+                out.writeInt(NULL);
+                continue;
+            }
+            out.writeInt(day.dishes().size());
+            for (Dish dish : day.dishes()) {
+                out.writeInt(indexOf(stringTable, dish.name()));
+                out.writeInt(indexOf(stringTable, dish.dish_type()));
+                if (dish.labels() == null) {
+                    out.writeInt(NULL);
+                    continue;
+                }
+                out.writeInt(dish.labels().size());
+                for (String label : dish.labels()) {
+                    out.writeInt(indexOf(stringTable, label));
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    Snapshot decode(ByteBuffer buffer, Instant savedAt) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a menu snapshot of this version");
+        }
+        int number = buffer.getInt();
+        int year = buffer.getInt();
+        String etag = readString(buffer);
+        String lastModified = readString(buffer);
+        // Every string takes at least its length
+        String[] stringTable = new String[readCount(buffer, Integer.BYTES)];
+        for (int i = 0; i < stringTable.length; i++) {
+            stringTable[i] = readString(buffer);
+        }
+
+        // A day takes at least its date and dish count, a dish its name, type and label count
+        int dayCount = readCount(buffer, Long.BYTES + Integer.BYTES);
+        if (dayCount == NULL) {
+            return new Snapshot(new Week(number, year, null), etag, lastModified, savedAt);
+        }
+        List<Day> days = new ArrayList<>(dayCount);
+        for (int d = 0; d < dayCount; d++) {
+            long epochDay = buffer.getLong();
+            LocalDate date = epochDay != Long.MIN_VALUE ? LocalDate.ofEpochDay(epochDay) : null;
+            int dishCount = readCount(buffer, 3 * Integer.BYTES);
+            if (dishCount == NULL) {
+                days.add(new Day(date, null));
+                continue;
+            }
+            List<Dish> dishes = new ArrayList<>(dishCount);
+            for (int i = 0; i < dishCount; i++) {
+                String name = lookup(stringTable, buffer.getInt());
+                String dishType = lookup(stringTable, buffer.getInt());
+                int labelCount = readCount(buffer, Integer.BYTES);
+                List<String> labels = null;
+                if (labelCount != NULL) {
+                    String[] values = new String[labelCount];
+                    for (int l = 0; l < labelCount; l++) {
+                        values[l] = lookup(stringTable, buffer.getInt());
+                    }
+                    labels = Arrays.asList(values);
+                }
+                dishes.add(new Dish(name, dishType, labels));
+            }
+            days.add(new Day(date, dishes));
+        }
+        return new Snapshot(catalog.intern(new Week(number, year, days)), etag, lastModified, savedAt);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = readCount(buffer, 1);
+        if (length == NULL) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a count of elements that follow, or {@link #NULL}
+     * @param minBytes the least number of bytes one element takes
+     * @throws IllegalArgumentException if that many elements cannot fit into the rest of the buffer
+     */
+    private static int readCount(ByteBuffer buffer, int minBytes) {
+        int count = buffer.getInt();
+        if (count != NULL && (count < 0 || count > buffer.remaining() / minBytes)) {
+            throw new IllegalArgumentException("Corrupt menu snapshot, " + count + " elements in " + buffer.remaining() + " bytes");
+        }
+        return count;
+    }
+
+    private static void index(Map<String, Integer> stringTable, String value) {
+        if (value != null) {
+            stringTable.putIfAbsent(value, stringTable.size());
+        }
+    }
+
+    private static int indexOf(Map<String, Integer> stringTable, String value) {
+        return value != null ? stringTable.get(value) : NULL;
+    }
+
+    private static String lookup(String[] stringTable, int index) {
+        if (index == NULL) {
+            return null;
+        }
+        if (index < 0 || index >= stringTable.length) {
+            throw new IllegalArgumentException("Corrupt menu snapshot, string " + index + " of " + stringTable.length);
+        }
+        return stringTable[index];
+    }
+}
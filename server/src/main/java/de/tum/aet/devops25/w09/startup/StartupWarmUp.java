@@ -0,0 +1,150 @@
+package de.tum.aet.devops25.w09.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tum.aet.devops25.w09.UserPreferenceRepository;
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.DishCatalog;
+import de.tum.aet.devops25.w09.service.LocalRecommendationEngine;
+import de.tum.aet.devops25.w09.service.WeekParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Runs the hot paths against local stubs before the application reports ready.
+ *
+ * Spring Boot only switches the readiness state to accepting traffic once all application runners
+ * returned, so while this runs the readiness probe fails and no load balancer sends requests yet.
+ * Each iteration parses a bundled week file with the streaming parser and with data binding,
+ * matches favorites against it, issues a read-only query through JPA, and calls a few endpoints
+ * that never leave the process through the embedded server. No external service is called and
+ * nothing is written. Steps that fail, e.g. while the database is unreachable, are skipped.
+ *
+ * The warm-up stops after {@code startup.warm-up.iterations} iterations or {@code startup.warm-up.timeout},
+ * whichever comes first.
+ */
+@Component
+public class StartupWarmUp implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupWarmUp.class);
+    private static final String WEEK_FILE = "warm-up/week.json";
+    // Only ever read, never created, so the database stays untouched
+    private static final String WARM_UP_USER = "__warm-up__";
+    private static final List<String> FAVORITES = List.of("Schnitzel mit Pommes", "vegan curry", "Spätzle");
+
+    private final boolean enabled;
+    private final int iterations;
+    private final Duration timeout;
+    private final String contextPath;
+    private final ApplicationContext applicationContext;
+    private final ObjectMapper objectMapper;
+    private final WeekParser weekParser;
+    private final LocalRecommendationEngine localEngine;
+    private final UserPreferenceRepository repository;
+    private final RestClient.Builder restClientBuilder;
+
+    public StartupWarmUp(@Value("${startup.warm-up.enabled:true}") boolean enabled,
+                         @Value("${startup.warm-up.iterations:200}") int iterations,
+                         @Value("${startup.warm-up.timeout:PT30S}") Duration timeout,
+                         @Value("${server.servlet.context-path:}") String contextPath,
+                         ApplicationContext applicationContext, ObjectMapper objectMapper, WeekParser weekParser,
+                         LocalRecommendationEngine localEngine, UserPreferenceRepository repository,
+                         RestClient.Builder restClientBuilder) {
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.timeout = timeout;
+        this.contextPath = contextPath;
+        this.applicationContext = applicationContext;
+        this.objectMapper = objectMapper;
+        this.weekParser = weekParser;
+        this.localEngine = localEngine;
+        this.repository = repository;
+        this.restClientBuilder = restClientBuilder;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!enabled || iterations <= 0) {
+            return;
+        }
+        byte[] weekFile;
+        try (InputStream in = new ClassPathResource(WEEK_FILE).getInputStream()) {
+            weekFile = in.readAllBytes();
+        }
+        RestClient self = selfClient();
+        // A separate catalog, the warm-up dishes must not show up in real menus
+        DishCatalog catalog = new DishCatalog(1000);
+        Set<String> failedSteps = new HashSet<>();
+
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + timeout.toNanos();
+        int completed = 0;
+        while (completed < iterations && System.nanoTime() < deadlineNanos) {
+            step("parse", failedSteps, () -> {
+                Week week = catalog.intern(weekParser.parseWeek(new ByteArrayInputStream(weekFile)));
+                for (Day day : week.days()) {
+                    localEngine.recommend(FAVORITES, day.dishes());
+                }
+                return week;
+            });
+            step("bind", failedSteps, () -> {
+                Week week = objectMapper.readValue(weekFile, Week.class);
+                List<Dish> dishes = week.days().getFirst().dishes();
+                return objectMapper.writeValueAsBytes(dishes);
+            });
+            step("jpa", failedSteps, () -> repository.findAllWithFavoriteMealsByNameIn(List.of(WARM_UP_USER)));
+            if (self != null) {
+                step("http", failedSteps, () -> {
+                    self.get().uri("/dishes/search?q={query}", "schnitzel").retrieve().toBodilessEntity();
+                    self.get().uri("/preferences/{name}", WARM_UP_USER).retrieve().toBodilessEntity();
+                    return self.get().uri("/actuator/health/liveness").retrieve().toBodilessEntity();
+                });
+            }
+            completed++;
+        }
+        log.info("Warm-up finished after {} iterations in {} ms, skipped steps: {}", completed,
+                Duration.ofNanos(System.nanoTime() - startNanos).toMillis(), failedSteps);
+    }
+
+    private RestClient selfClient() {
+        if (!(applicationContext instanceof WebServerApplicationContext webContext) || webContext.getWebServer() == null) {
+            return null;
+        }
+        return restClientBuilder.baseUrl("http://localhost:" + webContext.getWebServer().getPort() + contextPath).build();
+    }
+
+    private static void step(String name, Set<String> failedSteps, ThrowingSupplier<?> step) {
+        if (failedSteps.contains(name)) {
+            return;
+        }
+        try {
+            step.get();
+        } catch (Exception e) {
+            // A failing step would fail on every iteration, e.g. without a database
+            failedSteps.add(name);
+            log.warn("Warm-up step {} failed, skipping it: {}", name, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier<T> {
+        T get() throws Exception;
+    }
+}
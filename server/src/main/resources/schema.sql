@@ -0,0 +1,18 @@
+-- Runs on every start after Hibernate created or updated the tables (spring.jpa.defer-datasource-initialization).
+-- Every statement must be idempotent.
+
+-- The favorite upserts in UserPreferenceRepository rely on a unique index over (user, meal). Tables created
+-- before it may hold duplicates, which would make creating it fail: keep the first copy of each pair, then
+-- create the index. Once the index exists, the delete finds nothing.
+delete from user_preferences_favorite_meals duplicate
+using user_preferences_favorite_meals original
+where duplicate.user_preferences_name = original.user_preferences_name
+  and duplicate.favorite_meals = original.favorite_meals
+  and duplicate.ctid > original.ctid;
+
+create unique index if not exists uk_user_preferences_favorite_meals
+    on user_preferences_favorite_meals (user_preferences_name, favorite_meals);
+
+-- Recommendations used to be limited to varchar(1024), which ddl-auto=update does not widen. Altering a text
+-- column to text again does not rewrite the table.
+alter table daily_recommendation alter column recommendation type text;
@@ -0,0 +1,151 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.admission.AdaptiveConcurrencyLimit;
+import de.tum.aet.devops25.w09.admission.AdmissionFilter;
+import de.tum.aet.devops25.w09.admission.TokenBucket;
+import de.tum.aet.devops25.w09.admission.TokenBuckets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionFilterTest {
+
+    private final Clock clock = Clock.fixed(Instant.parse("2025-05-08T12:00:00Z"), ZoneOffset.UTC);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldRejectClientOverItsRateWithRetryAfter() throws Exception {
+        AdmissionFilter filter = filter(2, 100, 10);
+
+        assertThat(get(filter, "/api/recommend/alice").getStatus()).isEqualTo(200);
+        assertThat(get(filter, "/api/recommend/alice").getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = get(filter, "/api/recommend/alice");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        // Other users have their own bucket
+        assertThat(get(filter, "/api/recommend/bob").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void shouldDegradeRecommendationsAndRejectOtherRequestsOverTheGlobalRate() throws Exception {
+        AdmissionFilter filter = filter(100, 1, 10);
+        assertThat(get(filter, "/api/mensa-garching/today").getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse canteen = get(filter, "/api/mensa-garching/today");
+        assertThat(canteen.getStatus()).isEqualTo(503);
+        assertThat(canteen.getHeader("Retry-After")).isNotNull();
+
+        MockHttpServletRequest recommendation = request("/api/recommend/alice");
+        filter.doFilter(recommendation, new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(recommendation.getAttribute(AdmissionFilter.SHED_RETRY_AFTER)).isEqualTo(1L);
+    }
+
+    @Test
+    void shouldShedRecommendationsOverTheConcurrencyLimit() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1);
+        AdmissionFilter filter = new AdmissionFilter(new TokenBuckets(100, 100, 100, clock), new TokenBucket(100, 100, clock),
+                limit, false, false, meterRegistry);
+
+        // A nested request while the first one holds the only slot
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+        FilterChain chain = (request, response) -> nested[0] = get(filter, "/api/recommend/bob");
+        filter.doFilter(request("/api/recommend/alice"), new MockHttpServletResponse(), chain);
+
+        assertThat(nested[0].getStatus()).isEqualTo(503);
+        assertThat(limit.getInFlight()).isZero();
+        assertThat(meterRegistry.get("admission.requests").tag("decision", "rejected_concurrency").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldLeaveOtherEndpointsAlone() throws Exception {
+        AdmissionFilter filter = filter(1, 1, 1);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(get(filter, "/api/preferences/alice").getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void shouldShrinkConcurrencyLimitWhenLatencyRises() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(32, 4, 64);
+        // Keep the limit in use so that it may grow
+        for (int i = 0; i < 32; i++) {
+            limit.tryAcquire();
+        }
+        for (int i = 0; i < 100; i++) {
+            limit.onLatency(100_000_000);
+        }
+        int settled = limit.getLimit();
+        for (int i = 0; i < 100; i++) {
+            limit.onLatency(1_000_000_000);
+        }
+
+        assertThat(settled).isGreaterThan(32);
+        assertThat(limit.getLimit()).isLessThan(settled);
+    }
+
+    @Test
+    void shouldLimitCanteenMenusOnlyGlobally() throws Exception {
+        AdmissionFilter filter = filter(1, 100, 10);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(get(filter, "/api/mensa-garching/today").getStatus()).isEqualTo(200);
+        }
+    }
+
+    @Test
+    void shouldKeyBatchesByFirstForwardedHopOnlyWhenTrusted() throws Exception {
+        AdmissionFilter trusting = filter(1, 100, 10, true);
+        assertThat(batch(trusting, "203.0.113.1, 10.0.0.1").getStatus()).isEqualTo(200);
+        // Another client behind the same proxy
+        assertThat(batch(trusting, "203.0.113.2, 10.0.0.1").getStatus()).isEqualTo(200);
+        assertThat(batch(trusting, "203.0.113.1").getStatus()).isEqualTo(429);
+
+        AdmissionFilter untrusting = filter(1, 100, 10, false);
+        assertThat(batch(untrusting, "203.0.113.1").getStatus()).isEqualTo(200);
+        assertThat(batch(untrusting, "203.0.113.2").getStatus()).isEqualTo(429);
+    }
+
+    private AdmissionFilter filter(int clientBurst, int globalBurst, int concurrency) {
+        return filter(clientBurst, globalBurst, concurrency, false);
+    }
+
+    private AdmissionFilter filter(int clientBurst, int globalBurst, int concurrency, boolean trustForwardedFor) {
+        // With a fixed clock no tokens are refilled, the bursts are all there is
+        return new AdmissionFilter(new TokenBuckets(1, clientBurst, 100, clock), new TokenBucket(1, globalBurst, clock),
+                new AdaptiveConcurrencyLimit(concurrency, 1, concurrency), true, trustForwardedFor, meterRegistry);
+    }
+
+    private static MockHttpServletResponse batch(AdmissionFilter filter, String forwardedFor) throws ServletException, IOException {
+        MockHttpServletRequest request = request("/api/recommend/batch");
+        request.setMethod("POST");
+        request.addHeader("X-Forwarded-For", forwardedFor);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletResponse get(AdmissionFilter filter, String uri) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(uri), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setContextPath("/api");
+        return request;
+    }
+}
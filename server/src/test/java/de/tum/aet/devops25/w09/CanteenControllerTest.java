@@ -2,6 +2,7 @@ package de.tum.aet.devops25.w09;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import de.tum.aet.devops25.w09.controller.CanteenController;
+import de.tum.aet.devops25.w09.dto.CanteenMenus;
 import de.tum.aet.devops25.w09.dto.Dish;
 import de.tum.aet.devops25.w09.service.CanteenService;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
@@ -16,11 +18,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -78,6 +83,82 @@ public class CanteenControllerTest {
         assertThat(actualDish2.dish_type()).isEqualTo("Side Dish");
     }
 
+    @Test
+    public void testGetTodayMeals_ReturnsNotModified_WhenETagMatches() throws Exception {
+        // Arrange
+        when(canteenService.getTodayMeals("mensa-garching"))
+                .thenReturn(List.of(new Dish("Vegetarian Pasta", "Main Dish", List.of("VEGETARIAN"))));
+        when(canteenService.todayMenuFreshFor("mensa-garching")).thenReturn(Duration.ofMinutes(10));
+
+        // Act
+        MvcResult res = mockMvc.perform(get("/{canteenName}/today", "mensa-garching"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=600, public"))
+                .andReturn();
+        String etag = res.getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Assert
+        assertThat(etag).startsWith("\"").doesNotStartWith("W/");
+        mockMvc.perform(get("/{canteenName}/today", "mensa-garching").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        when(canteenService.getTodayMeals("mensa-garching"))
+                .thenReturn(List.of(new Dish("Vegetarian Pasta", "Main Dish", List.of("VEGAN"))));
+        mockMvc.perform(get("/{canteenName}/today", "mensa-garching").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    public void testGetTodayMeals_FiltersByLabels() throws Exception {
+        // Arrange
+        Dish curry = new Dish("Vegan Curry", "Main Dish", List.of("VEGAN", "VEGETARIAN"));
+        when(canteenService.getTodayMeals("mensa-garching", List.of("VEGAN"), List.of("GLUTEN")))
+                .thenReturn(List.of(curry));
+
+        // Act
+        MvcResult res = mockMvc.perform(get("/{canteenName}/today", "mensa-garching")
+                        .param("labels", "VEGAN")
+                        .param("excludeLabels", "GLUTEN"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Assert
+        assertThat(res.getResponse().getContentAsString()).contains("Vegan Curry");
+    }
+
+    @Test
+    public void testGetTodayMeals_RejectsInvalidLabel() throws Exception {
+        mockMvc.perform(get("/{canteenName}/today", "mensa-garching").param("labels", "vegan;drop"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testGetTodayMealsOfSeveralCanteens_ReturnsPartialResults() throws Exception {
+        // Arrange
+        Dish pasta = new Dish("Vegetarian Pasta", "Main Dish", List.of("VEGETARIAN"));
+        when(canteenService.getTodayMeals(List.of("mensa-garching", "mensa-arcisstr")))
+                .thenReturn(new CanteenMenus(Map.of("mensa-garching", List.of(pasta)), List.of("mensa-arcisstr")));
+
+        // Act
+        MvcResult res = mockMvc.perform(get("/today").param("canteens", "mensa-garching,mensa-arcisstr"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Assert
+        CanteenMenus menus = new ObjectMapper().readValue(res.getResponse().getContentAsString(), CanteenMenus.class);
+        assertThat(menus.menus().get("mensa-garching")).containsExactly(pasta);
+        assertThat(menus.unavailable()).containsExactly("mensa-arcisstr");
+        assertThat(res.getResponse().getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=0, public");
+    }
+
+    @Test
+    public void testGetTodayMealsOfSeveralCanteens_RejectsInvalidCanteen() throws Exception {
+        mockMvc.perform(get("/today").param("canteens", "mensa-garching,../admin"))
+                .andExpect(status().isBadRequest());
+    }
+
     private <T> List<T> getList(String path, HttpStatus expectedStatus, Class<T> listElementType, Object... uriVariables) throws Exception {
         MvcResult res = mockMvc.perform(get(path, uriVariables)
                         .contentType(MediaType.APPLICATION_JSON))
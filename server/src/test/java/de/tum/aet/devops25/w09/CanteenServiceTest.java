@@ -0,0 +1,177 @@
+package de.tum.aet.devops25.w09;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import de.tum.aet.devops25.w09.cache.TtlCache;
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.CanteenService;
+import de.tum.aet.devops25.w09.service.CanteenService.WeekKey;
+import de.tum.aet.devops25.w09.service.DishCatalog;
+import de.tum.aet.devops25.w09.service.DishSearchIndex;
+import de.tum.aet.devops25.w09.service.MenuChangedEvent;
+import de.tum.aet.devops25.w09.service.ReactiveCanteenService;
+import de.tum.aet.devops25.w09.service.WeekParser;
+import de.tum.aet.devops25.w09.service.WeekSnapshotStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Conditional refetches against a local stand-in for the eat-api, on the blocking and the reactive path
+ */
+class CanteenServiceTest {
+
+    private static final String CANTEEN = "mensa-garching";
+    private static final LocalDate TODAY = LocalDate.of(2025, 5, 8);
+    private static final String LAST_MODIFIED = "Thu, 08 May 2025 06:00:00 GMT";
+
+    @TempDir
+    Path directory;
+
+    private HttpServer server;
+    private final Queue<Reply> replies = new ConcurrentLinkedQueue<>();
+    private final List<Map<String, List<String>>> requestHeaders = Collections.synchronizedList(new ArrayList<>());
+    private final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+    private Clock clock;
+    private ExecutorService executor;
+    private TtlCache<WeekKey, Week> weekCache;
+    private WeekSnapshotStore snapshotStore;
+    private CanteenService canteenService;
+    private WeekKey key;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requestHeaders.add(Map.copyOf(exchange.getRequestHeaders()));
+            Reply reply = replies.remove();
+            reply.headers().forEach((name, value) -> exchange.getResponseHeaders().add(name, value));
+            byte[] body = reply.body().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(reply.status(), body.length == 0 ? -1 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+
+        clock = Clock.fixed(Instant.parse("2025-05-08T12:00:00Z"), ZoneOffset.UTC);
+        DishCatalog catalog = new DishCatalog(1000);
+        executor = Executors.newCachedThreadPool();
+        weekCache = new TtlCache<>("test", Duration.ofHours(1), Duration.ZERO, 10, Runnable::run, clock, new SimpleMeterRegistry());
+        snapshotStore = new WeekSnapshotStore(directory.toString(), true, catalog);
+        canteenService = new CanteenService(RestClient.builder(), new SimpleClientHttpRequestFactory(), clock, weekCache,
+                snapshotStore, new WeekParser(new ObjectMapper()), catalog, new DishSearchIndex(1000, 0.5, 0.6),
+                events::add, executor, "http://localhost:" + server.getAddress().getPort() + "/", 2, Duration.ofSeconds(2));
+        key = WeekKey.of(CANTEEN, TODAY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldSendValidatorsAndReuseWeekOnNotModified() {
+        replies.add(new Reply(200, Map.of("ETag", "\"v1\"", "Last-Modified", LAST_MODIFIED), weekJson("Vegetarian Pasta")));
+        List<Dish> first = canteenService.getTodayMeals(CANTEEN);
+
+        // The first fetch of a week has nothing to compare against
+        assertThat(first).extracting(Dish::name).containsExactly("Vegetarian Pasta");
+        assertThat(events).isEmpty();
+
+        weekCache.invalidate(key);
+        replies.add(new Reply(304, Map.of("ETag", "\"v1\""), ""));
+        List<Dish> second = canteenService.getTodayMeals(CANTEEN);
+
+        assertThat(second).isSameAs(first);
+        assertThat(requestHeaders.get(0)).doesNotContainKeys("If-none-match", "If-modified-since");
+        assertThat(requestHeaders.get(1)).containsEntry("If-none-match", List.of("\"v1\""))
+                .containsEntry("If-modified-since", List.of(LAST_MODIFIED));
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void shouldPublishChangesOfRefetchedWeek() {
+        replies.add(new Reply(200, Map.of("ETag", "\"v1\""), weekJson("Vegetarian Pasta")));
+        canteenService.getTodayMeals(CANTEEN);
+
+        weekCache.invalidate(key);
+        replies.add(new Reply(200, Map.of("ETag", "\"v2\""), weekJson("Vegan Curry")));
+        List<Dish> dishes = canteenService.getTodayMeals(CANTEEN);
+
+        assertThat(dishes).extracting(Dish::name).containsExactly("Vegan Curry");
+        assertThat(events).singleElement().isInstanceOfSatisfying(MenuChangedEvent.class, event -> {
+            assertThat(event.canteen()).isEqualTo(CANTEEN);
+            assertThat(event.affects(TODAY)).isTrue();
+        });
+        assertThat(snapshotStore.load(key)).hasValueSatisfying(snapshot -> assertThat(snapshot.etag()).isEqualTo("\"v2\""));
+    }
+
+    @Test
+    void shouldServeSnapshotWhenUpstreamFails() {
+        snapshotStore.save(key, new Week(19, 2025, List.of(new Day(TODAY, List.of(new Dish("Vegan Curry", "Vegan", List.of("VEGAN")))))),
+                "\"v1\"", null);
+        replies.add(new Reply(503, Map.of(), ""));
+
+        assertThat(canteenService.getTodayMeals(CANTEEN)).extracting(Dish::name).containsExactly("Vegan Curry");
+        assertThat(events).isEmpty();
+    }
+
+    @Test
+    void shouldLoadReactiveMissesThroughBlockingFetcher() {
+        ReactiveCanteenService reactiveCanteenService = new ReactiveCanteenService(canteenService, weekCache, clock);
+        replies.add(new Reply(200, Map.of("ETag", "\"v1\""), weekJson("Vegetarian Pasta")));
+        canteenService.getTodayMeals(CANTEEN);
+
+        weekCache.invalidate(key);
+        replies.add(new Reply(200, Map.of("ETag", "\"v2\""), weekJson("Vegan Curry")));
+        List<Dish> dishes = reactiveCanteenService.getTodayMeals(CANTEEN).block();
+
+        // Conditional request and change event as on the blocking path, the cached week is then served directly
+        assertThat(dishes).extracting(Dish::name).containsExactly("Vegan Curry");
+        assertThat(requestHeaders.get(1)).containsEntry("If-none-match", List.of("\"v1\""));
+        assertThat(events).singleElement().isInstanceOf(MenuChangedEvent.class);
+        assertThat(reactiveCanteenService.getTodayMeals(CANTEEN).block()).isSameAs(dishes);
+        assertThat(requestHeaders).hasSize(2);
+    }
+
+    private static String weekJson(String dish) {
+        return """
+                {"number": 19, "year": 2025, "days": [
+                  {"date": "2025-05-08", "dishes": [
+                    {"name": "%s", "dish_type": "Main", "labels": ["VEGETARIAN"], "prices": {}}
+                  ]}
+                ]}
+                """.formatted(dish);
+    }
+
+    private record Reply(int status, Map<String, String> headers, String body) {}
+}
@@ -0,0 +1,240 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.UserRecommendation;
+import de.tum.aet.devops25.w09.entity.DailyRecommendation;
+import de.tum.aet.devops25.w09.entity.DailyRecommendationId;
+import de.tum.aet.devops25.w09.service.CanteenService;
+import de.tum.aet.devops25.w09.service.DailyRecommendationService;
+import de.tum.aet.devops25.w09.service.LLMRecommendationService;
+import de.tum.aet.devops25.w09.service.UserPreferenceService;
+import de.tum.aet.devops25.w09.service.UserPreferencesChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DailyRecommendationServiceTest {
+
+    private static final String CANTEEN = "mensa-garching";
+    private static final LocalDate TODAY = LocalDate.of(2025, 5, 8);
+    private static final List<Dish> MENU = List.of(
+            new Dish("Pizza Margherita", "Main Dish", List.of("VEGETARIAN")),
+            new Dish("Vegan Curry", "Main Dish", List.of("VEGAN")));
+
+    @Mock
+    private DailyRecommendationRepository repository;
+
+    @Mock
+    private UserPreferenceService userPreferenceService;
+
+    @Mock
+    private CanteenService canteenService;
+
+    @Mock
+    private LLMRecommendationService llmRecommendationService;
+
+    private final List<DailyRecommendation> saved = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ExecutorService executor;
+    private DailyRecommendationService dailyRecommendationService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        Clock clock = Clock.fixed(Instant.parse("2025-05-08T08:00:00Z"), ZoneOffset.UTC);
+        dailyRecommendationService = new DailyRecommendationService(repository, userPreferenceService, canteenService,
+                llmRecommendationService, executor, clock, meterRegistry, true, 1, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldPrecomputeUsersWithoutRowInBatches() {
+        Map<String, List<String>> favorites = Map.of("alice", List.of("Pizza"), "carol", List.of("Curry"));
+        when(canteenService.getTodayMeals(CANTEEN)).thenReturn(MENU);
+        when(repository.findUserNamesByCanteenAndDate(CANTEEN, TODAY)).thenReturn(Set.of("bob"));
+        when(userPreferenceService.getAllNames()).thenReturn(List.of("alice", "bob", "carol"));
+        stubFavorites(favorites);
+        stubLLM();
+        stubSave();
+
+        int stored = dailyRecommendationService.precompute(CANTEEN);
+
+        assertThat(stored).isEqualTo(2);
+        assertThat(saved).extracting(DailyRecommendation::getId).containsExactlyInAnyOrder(
+                new DailyRecommendationId("alice", CANTEEN, TODAY), new DailyRecommendationId("carol", CANTEEN, TODAY));
+        assertThat(saved).extracting(DailyRecommendation::getRecommendation).containsExactlyInAnyOrder("Pizza", "Curry");
+        verify(repository).deleteOlderThan(TODAY);
+        verify(repository, never()).deleteAllById(anyIterable());
+    }
+
+    @Test
+    void shouldRetryLaterWhenMenuIsNotPublished() {
+        when(canteenService.getTodayMeals(CANTEEN)).thenReturn(List.of());
+
+        assertThat(dailyRecommendationService.precompute(CANTEEN)).isZero();
+
+        verifyNoInteractions(llmRecommendationService, userPreferenceService);
+        verify(repository, never()).upsert(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldDeleteAndRecomputeRowsOfUserWhosePreferencesChanged() throws Exception {
+        when(canteenService.getTodayMeals(CANTEEN)).thenReturn(MENU);
+        stubFavorites(Map.of("alice", List.of("Curry")));
+        stubLLM();
+        stubSave();
+
+        dailyRecommendationService.onPreferencesChanged(new UserPreferencesChangedEvent("alice"));
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        verify(repository).deleteByUserNameAndDate("alice", TODAY);
+        assertThat(saved).singleElement().satisfies(row -> {
+            assertThat(row.getId()).isEqualTo(new DailyRecommendationId("alice", CANTEEN, TODAY));
+            assertThat(row.getRecommendation()).isEqualTo("Curry");
+        });
+    }
+
+    @Test
+    void shouldRerunPrecomputationRequestedByMenuChangeDuringRun() throws Exception {
+        CountDownLatch inFirstRun = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(canteenService.getTodayMeals(CANTEEN)).thenAnswer(invocation -> {
+            inFirstRun.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        Future<Integer> run = executor.submit(() -> dailyRecommendationService.precompute(CANTEEN));
+        assertThat(inFirstRun.await(5, TimeUnit.SECONDS)).isTrue();
+        // Handed to the run in progress instead of being skipped
+        assertThat(dailyRecommendationService.precompute(CANTEEN)).isZero();
+        release.countDown();
+        run.get(5, TimeUnit.SECONDS);
+
+        verify(canteenService, times(2)).getTodayMeals(CANTEEN);
+    }
+
+    @Test
+    void shouldKeepOnDemandRecommendationOfCurrentPreferences() {
+        stubFavorites(Map.of("alice", List.of("Pizza", "Curry")));
+        stubSave();
+
+        boolean kept = dailyRecommendationService.store("alice", CANTEEN, TODAY, List.of("Curry", "Pizza"), "Vegan Curry");
+
+        assertThat(kept).isTrue();
+        assertThat(saved).hasSize(1);
+        verify(repository, never()).deleteAllById(anyIterable());
+    }
+
+    @Test
+    void shouldDropRecommendationComputedFromOutdatedPreferences() {
+        // The preferences changed, and the user's rows were deleted, while the recommendation was computed
+        stubFavorites(Map.of("alice", List.of("Curry")));
+        stubSave();
+
+        boolean kept = dailyRecommendationService.store("alice", CANTEEN, TODAY, List.of("Pizza"), "Pizza Margherita");
+
+        assertThat(kept).isFalse();
+        verify(repository).deleteAllById(List.of(new DailyRecommendationId("alice", CANTEEN, TODAY)));
+    }
+
+    @Test
+    void shouldReturnFalseAndCountFailureWhenRowCannotBeStored() {
+        when(repository.upsert(any(), any(), any(), any(), any()))
+                .thenThrow(new DataIntegrityViolationException("value too long"));
+
+        boolean kept = dailyRecommendationService.store("alice", CANTEEN, TODAY, List.of("Pizza"), "Pizza Margherita");
+
+        assertThat(kept).isFalse();
+        assertThat(meterRegistry.get("recommendation.store.failures").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldKeepOtherRowsOfBatchWhenOneCannotBeStored() {
+        Map<String, List<String>> favorites = Map.of("alice", List.of("Pizza"), "carol", List.of("Curry"));
+        DailyRecommendationService singleBatch = new DailyRecommendationService(repository, userPreferenceService, canteenService,
+                llmRecommendationService, executor, Clock.fixed(Instant.parse("2025-05-08T08:00:00Z"), ZoneOffset.UTC),
+                meterRegistry, true, 10, 1);
+        when(canteenService.getTodayMeals(CANTEEN)).thenReturn(MENU);
+        when(repository.findUserNamesByCanteenAndDate(CANTEEN, TODAY)).thenReturn(Set.of());
+        when(userPreferenceService.getAllNames()).thenReturn(List.of("alice", "carol"));
+        stubFavorites(favorites);
+        stubLLM();
+        stubSave();
+        doThrow(new DataIntegrityViolationException("value too long"))
+                .when(repository).upsert(eq("alice"), any(), any(), any(), any());
+
+        int stored = singleBatch.precompute(CANTEEN);
+
+        assertThat(stored).isEqualTo(1);
+        assertThat(saved).extracting(DailyRecommendation::getId).containsExactly(new DailyRecommendationId("carol", CANTEEN, TODAY));
+        assertThat(meterRegistry.get("recommendation.store.failures").counter().count()).isEqualTo(1);
+    }
+
+    private void stubFavorites(Map<String, List<String>> favorites) {
+        when(userPreferenceService.getFavoriteMeals(any())).thenAnswer(invocation -> {
+            Collection<String> names = invocation.getArgument(0);
+            return favorites.entrySet().stream()
+                    .filter(entry -> names.contains(entry.getKey()))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        });
+    }
+
+    private void stubLLM() {
+        // Recommends the first favorite
+        doAnswer(invocation -> {
+            Map<String, List<String>> favoritesByUser = invocation.getArgument(0);
+            Consumer<UserRecommendation> onRecommendation = invocation.getArgument(2);
+            favoritesByUser.forEach((name, meals) -> onRecommendation.accept(new UserRecommendation(name, meals.getFirst())));
+            return null;
+        }).when(llmRecommendationService).streamRecommendationsFromLLM(any(), any(), any());
+    }
+
+    private void stubSave() {
+        when(repository.upsert(any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            saved.add(new DailyRecommendation(new DailyRecommendationId(invocation.getArgument(0), invocation.getArgument(1),
+                    invocation.getArgument(2)), invocation.getArgument(3), invocation.getArgument(4)));
+            return 1;
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.DishCatalog;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DishCatalogTest {
+
+    private static final Dish CURRY = new Dish("Vegan Curry", "Main", List.of("VEGAN", "VEGETARIAN"));
+    private static final Dish PASTA = new Dish("Vegetarian Pasta", "Pasta", List.of("VEGETARIAN", "GLUTEN"));
+    private static final Dish SCHNITZEL = new Dish("Schnitzel", "Main", List.of("PORK", "GLUTEN"));
+
+    private final DishCatalog catalog = new DishCatalog(1000);
+
+    @Test
+    void shouldFilterByRequiredAndExcludedLabels() {
+        List<Dish> dishes = today(catalog.intern(week(CURRY, PASTA, SCHNITZEL)));
+
+        assertThat(catalog.filter(dishes, catalog.labelFilter(List.of("VEGETARIAN"), List.of())))
+                .containsExactly(CURRY, PASTA);
+        assertThat(catalog.filter(dishes, catalog.labelFilter(List.of("VEGETARIAN"), List.of("GLUTEN"))))
+                .containsExactly(CURRY);
+        assertThat(catalog.filter(dishes, catalog.labelFilter(List.of(), List.of("GLUTEN"))))
+                .containsExactly(CURRY);
+    }
+
+    @Test
+    void shouldTreatUnknownLabels() {
+        List<Dish> dishes = today(catalog.intern(week(CURRY, PASTA)));
+
+        assertThat(catalog.filter(dishes, catalog.labelFilter(List.of("HALAL"), List.of()))).isEmpty();
+        assertThat(catalog.filter(dishes, catalog.labelFilter(List.of(), List.of("HALAL")))).containsExactly(CURRY, PASTA);
+    }
+
+    @Test
+    void shouldFilterPlainLists() {
+        catalog.intern(week(CURRY, PASTA, SCHNITZEL));
+
+        assertThat(catalog.filter(List.of(CURRY, PASTA, SCHNITZEL), catalog.labelFilter(List.of("GLUTEN"), List.of("PORK"))))
+                .containsExactly(PASTA);
+    }
+
+    @Test
+    void shouldInternEqualDishesOnce() {
+        Dish copy = new Dish(new String("Vegan Curry"), "Main", List.of("VEGAN", "VEGETARIAN"));
+
+        Dish first = today(catalog.intern(week(CURRY))).getFirst();
+        Dish second = today(catalog.intern(week(copy, PASTA))).getFirst();
+
+        assertThat(second).isSameAs(first);
+        assertThat(catalog.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldStartNewGenerationWhenFull() {
+        DishCatalog small = new DishCatalog(2);
+        List<Dish> old = today(small.intern(week(CURRY, PASTA)));
+        List<Dish> current = today(small.intern(week(SCHNITZEL)));
+
+        assertThat(old).containsExactly(CURRY, PASTA);
+        assertThat(current).containsExactly(SCHNITZEL);
+        assertThat(small.size()).isEqualTo(1);
+    }
+
+    private static Week week(Dish... dishes) {
+        return new Week(19, 2025, List.of(new Day(LocalDate.of(2025, 5, 8), List.of(dishes))));
+    }
+
+    private static List<Dish> today(Week week) {
+        return week.days().getFirst().dishes();
+    }
+}
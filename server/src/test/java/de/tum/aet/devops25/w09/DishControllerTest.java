@@ -0,0 +1,98 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.controller.DishController;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.service.CanteenService;
+import de.tum.aet.devops25.w09.service.DishPopularity;
+import de.tum.aet.devops25.w09.service.DishSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(DishController.class)
+@AutoConfigureMockMvc
+@Import(DishPopularity.class)
+public class DishControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DishPopularity popularity;
+
+    @MockitoBean
+    private DishSearchIndex searchIndex;
+
+    @MockitoBean
+    private CanteenService canteenService;
+
+    @BeforeEach
+    public void setup() {
+        // The context and its counts are shared between the tests
+        popularity.reconcile(Map::of);
+    }
+
+    @Test
+    public void testGetPopularDishes_RanksTodaysMenuOfCanteen() throws Exception {
+        when(canteenService.getTodayMeals("mensa-garching")).thenReturn(List.of(
+            new Dish("Vegetarian Pasta", "Main Dish", List.of("VEGETARIAN")),
+            new Dish("Vegan Curry", "Main Dish", List.of("VEGAN")),
+            new Dish("Salad", "Side Dish", List.of("VEGETARIAN"))
+        ));
+        popularity.added("Vegan Curry");
+        popularity.added("vegan curry");
+        popularity.added("Vegetarian Pasta");
+        popularity.added("Pizza"); // not on today's menu
+
+        mockMvc.perform(get("/dishes/popular").param("canteen", "mensa-garching"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].name", contains("Vegan Curry", "Vegetarian Pasta")))
+            .andExpect(jsonPath("$[0].favorites").value(2))
+            .andExpect(jsonPath("$[0].dish.dish_type").value("Main Dish"));
+    }
+
+    @Test
+    public void testGetPopularDishes_RanksAllFavoritesWithoutCanteen() throws Exception {
+        popularity.added("Pizza");
+        popularity.added("Pizza");
+        popularity.added("Vegan Curry");
+
+        mockMvc.perform(get("/dishes/popular").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(1)))
+            .andExpect(jsonPath("$[0].name").value("Pizza"));
+        verifyNoInteractions(canteenService);
+    }
+
+    @Test
+    public void testGetPopularDishes_ReturnsBadRequest_ForInvalidCanteen() throws Exception {
+        mockMvc.perform(get("/dishes/popular").param("canteen", "Mensa Garching!"))
+            .andExpect(status().isBadRequest());
+        verifyNoInteractions(canteenService);
+    }
+
+    @Test
+    public void testGetPopularDishes_ReturnsBadRequest_ForInvalidLimit() throws Exception {
+        mockMvc.perform(get("/dishes/popular").param("limit", "0"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/dishes/popular").param("limit", "51"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/dishes/popular").param("limit", "ten"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,85 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.PopularDish;
+import de.tum.aet.devops25.w09.service.DishPopularity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class DishPopularityTest {
+
+    private final DishPopularity popularity = new DishPopularity();
+
+    @Test
+    void shouldCountAddedAndRemovedFavorites() {
+        popularity.added("Vegan Curry");
+        popularity.added("vegan curry");
+        popularity.added("Wiener Schnitzel");
+        popularity.removed("Wiener Schnitzel");
+
+        assertThat(popularity.favorites("Vegan  Curry")).isEqualTo(2);
+        assertThat(popularity.favorites("Wiener Schnitzel")).isZero();
+        assertThat(popularity.top(10)).extracting(PopularDish::name).containsExactly("Vegan Curry");
+    }
+
+    @Test
+    void shouldRankMostFavoritedFirst() {
+        popularity.changed(List.of("Pizza", "Curry"), List.of());
+        popularity.changed(List.of("Curry", "Pasta"), List.of());
+        popularity.changed(List.of(), List.of("Pasta"));
+
+        assertThat(popularity.top(10)).extracting(PopularDish::name, PopularDish::favorites)
+                .containsExactly(tuple("Curry", 2L), tuple("Pizza", 1L));
+        assertThat(popularity.top(1)).extracting(PopularDish::name).containsExactly("Curry");
+    }
+
+    @Test
+    void shouldRankTodaysMenuAndRefreshOnChanges() {
+        Dish pasta = new Dish("Pasta", "Vegetarisch", List.of("VEGETARIAN"));
+        Dish curry = new Dish("Curry", "Vegan", List.of("VEGAN"));
+        Dish soup = new Dish("Soup", "Vegan", List.of("VEGAN"));
+        List<Dish> menu = List.of(pasta, curry, soup);
+        popularity.added("Pasta");
+        popularity.added("Curry");
+
+        // Ties keep the menu order, dishes nobody favorited are left out
+        assertThat(popularity.top("mensa-garching", menu, 10)).extracting(PopularDish::dish).containsExactly(pasta, curry);
+
+        popularity.added("curry");
+        assertThat(popularity.top("mensa-garching", menu, 1)).extracting(PopularDish::dish).containsExactly(curry);
+    }
+
+    @Test
+    void shouldReplaceCountsOnReconcileWithoutCountingTwice() {
+        popularity.added("Pizza");
+
+        boolean reconciled = popularity.reconcile(() -> {
+            // Committed before the query read the counts, so already included in its result
+            popularity.added("Pasta");
+            return Map.of("Pasta", 3L);
+        });
+
+        assertThat(reconciled).isTrue();
+        assertThat(popularity.favorites("Pizza")).isZero();
+        assertThat(popularity.favorites("Pasta")).isEqualTo(3);
+    }
+
+    @Test
+    void shouldSkipOverlappingReconciliation() {
+        boolean[] nested = new boolean[1];
+
+        popularity.reconcile(() -> {
+            nested[0] = popularity.reconcile(() -> Map.of("Curry", 5L));
+            return Map.of("Pasta", 1L);
+        });
+
+        assertThat(nested[0]).isFalse();
+        assertThat(popularity.favorites("Curry")).isZero();
+        assertThat(popularity.favorites("Pasta")).isEqualTo(1);
+    }
+}
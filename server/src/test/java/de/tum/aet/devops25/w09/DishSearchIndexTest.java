@@ -0,0 +1,66 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.DishSuggestion;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.DishSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DishSearchIndexTest {
+
+    private final DishSearchIndex index = new DishSearchIndex(1000, 0.5, 0.6);
+
+    @BeforeEach
+    void setUp() {
+        index.add("mensa-garching", new Week(19, 2025, List.of(
+                new Day(LocalDate.of(2025, 5, 8), List.of(
+                        new Dish("Wiener Schnitzel", "Fleisch", List.of("PORK")),
+                        new Dish("Vegan Curry", "Vegan", List.of("VEGAN")),
+                        new Dish("Käsespätzle", "Vegetarisch", List.of("VEGETARIAN")))))));
+        index.add("mensa-arcisstr", new Week(20, 2025, List.of(
+                new Day(LocalDate.of(2025, 5, 15), List.of(
+                        new Dish("Vegan Curry", "Vegan", List.of("VEGAN", "GLUTEN")),
+                        new Dish("Schnitzel vom Schwein", "Fleisch", List.of("PORK")))))));
+    }
+
+    @Test
+    void shouldCompletePrefixes() {
+        List<DishSuggestion> suggestions = index.search("schni", 10);
+
+        assertThat(suggestions).extracting(suggestion -> suggestion.dish().name())
+                .containsExactlyInAnyOrder("Wiener Schnitzel", "Schnitzel vom Schwein");
+    }
+
+    @Test
+    void shouldTolerateTyposAndAccents() {
+        assertThat(index.search("kasespatzel", 1)).extracting(suggestion -> suggestion.dish().name())
+                .containsExactly("Käsespätzle");
+        assertThat(index.search("Vegen Cury", 1)).extracting(suggestion -> suggestion.dish().name())
+                .containsExactly("Vegan Curry");
+    }
+
+    @Test
+    void shouldMergeDishesAcrossWeeksAndCanteens() {
+        DishSuggestion curry = index.search("vegan curry", 10).getFirst();
+
+        assertThat(curry.score()).isEqualTo(1.0);
+        assertThat(curry.canteens()).containsExactly("mensa-garching", "mensa-arcisstr");
+        assertThat(curry.lastServed()).isEqualTo(LocalDate.of(2025, 5, 15));
+        assertThat(curry.dish().labels()).containsExactly("VEGAN", "GLUTEN");
+        assertThat(index.size()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldResolveFavoritesOnlyWhenSimilarEnough() {
+        assertThat(index.resolve("wiener schnitzl")).map(suggestion -> suggestion.dish().name()).contains("Wiener Schnitzel");
+        assertThat(index.resolve("pizza margherita")).isEmpty();
+        assertThat(index.search("", 10)).isEmpty();
+    }
+}
@@ -0,0 +1,89 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.config.ExecutorConfig;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExecutorConfigTest {
+
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        // Without a handler observations are no-ops and never become current
+        observationRegistry.observationConfig().observationHandler(context -> true);
+        executor = new ExecutorConfig().backgroundExecutor(false, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldRunTasksWithObservationOfSubmittingThread() throws Exception {
+        Observation observation = Observation.start("recommendation", observationRegistry);
+        Future<Observation> inTask;
+        try (Observation.Scope scope = observation.openScope()) {
+            inTask = executor.submit(observationRegistry::getCurrentObservation);
+        } finally {
+            observation.stop();
+        }
+
+        assertThat(inTask.get(5, TimeUnit.SECONDS)).isSameAs(observation);
+    }
+
+    @Test
+    void shouldNotLeakObservationIntoLaterTasks() throws Exception {
+        Observation observation = Observation.start("recommendation", observationRegistry);
+        try (Observation.Scope scope = observation.openScope()) {
+            executor.submit(() -> { }).get(5, TimeUnit.SECONDS);
+        } finally {
+            observation.stop();
+        }
+
+        // The pooled thread is reused, its scope must have been closed after the first task
+        assertThat(executor.submit(observationRegistry::getCurrentObservation).get(5, TimeUnit.SECONDS)).isNull();
+    }
+
+    @Test
+    void shouldRejectTaskWhenAllThreadsAreBusy() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(4);
+        try {
+            for (int i = 0; i < 4; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    await(release);
+                });
+            }
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Nothing queues behind the busy threads, the pool does not grow and the caller does not run it either
+            assertThatThrownBy(() -> executor.submit(Thread::currentThread)).isInstanceOf(RejectedExecutionException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
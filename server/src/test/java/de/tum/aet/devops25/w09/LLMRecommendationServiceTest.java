@@ -1,20 +1,33 @@
 package de.tum.aet.devops25.w09;
 
+import de.tum.aet.devops25.w09.cache.TtlCache;
 import de.tum.aet.devops25.w09.client.LLMRestClient;
 import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.UserRecommendation;
 import de.tum.aet.devops25.w09.service.LLMRecommendationService;
+import de.tum.aet.devops25.w09.service.RecommendationCoalescer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,7 +40,11 @@ class LLMRecommendationServiceTest {
 
     @BeforeEach
     void setUp() {
-        llmRecommendationService = new LLMRecommendationService(llmRestClient);
+        TtlCache<RecommendationCoalescer.RecommendationKey, String> cache = new TtlCache<>("test", Duration.ofHours(1), Duration.ZERO, 100,
+                Runnable::run, Clock.systemUTC(), new SimpleMeterRegistry());
+        // Only the LLM path, local engines are covered by LocalRecommendationEngineTest
+        llmRecommendationService = new LLMRecommendationService(List.of(), new RecommendationCoalescer(llmRestClient, cache),
+                new SimpleMeterRegistry());
     }
 
     @Test
@@ -87,4 +104,85 @@ class LLMRecommendationServiceTest {
         // Then
         assertThat(result).isEmpty();
     }
+
+    @Test
+    void shouldServeRepeatedRequestsWithSameFavoritesFromCache() {
+        // Given
+        List<Dish> todayMeals = List.of(new Dish("Margherita Pizza", "main", List.of("vegetarian")));
+        when(llmRestClient.generateRecommendations(any(), any())).thenReturn("Margherita Pizza");
+
+        // When
+        llmRecommendationService.getRecommendationFromLLM(List.of("Pizza", "Pasta"), todayMeals);
+        String result = llmRecommendationService.getRecommendationFromLLM(List.of("Pasta", "Pizza", "Pizza"), todayMeals);
+
+        // Then
+        assertThat(result).isEqualTo("Margherita Pizza");
+        verify(llmRestClient, times(1)).generateRecommendations(any(), any());
+    }
+
+    @Test
+    void shouldCallLLMAgainWhenMenuChanges() {
+        // Given
+        List<String> favoriteMeals = List.of("Pizza");
+        when(llmRestClient.generateRecommendations(any(), any())).thenReturn("Margherita Pizza", "Pizza Funghi");
+
+        // When
+        llmRecommendationService.getRecommendationFromLLM(favoriteMeals, List.of(new Dish("Margherita Pizza", "main", List.of())));
+        String result = llmRecommendationService.getRecommendationFromLLM(favoriteMeals, List.of(new Dish("Pizza Funghi", "main", List.of())));
+
+        // Then
+        assertThat(result).isEqualTo("Pizza Funghi");
+        verify(llmRestClient, times(2)).generateRecommendations(any(), any());
+    }
+
+    @Test
+    void shouldKeepCachedRecommendationsOfOtherMenus() {
+        // Given
+        List<String> favoriteMeals = List.of("Pizza");
+        List<Dish> garching = List.of(new Dish("Margherita Pizza", "main", List.of()));
+        List<Dish> arcisstr = List.of(new Dish("Pizza Funghi", "main", List.of()));
+        when(llmRestClient.generateRecommendations(any(), any())).thenReturn("Margherita Pizza", "Pizza Funghi");
+
+        // When alternating between the menus of two canteens
+        llmRecommendationService.getRecommendationFromLLM(favoriteMeals, garching);
+        llmRecommendationService.getRecommendationFromLLM(favoriteMeals, arcisstr);
+        String result = llmRecommendationService.getRecommendationFromLLM(favoriteMeals, garching);
+
+        // Then
+        assertThat(result).isEqualTo("Margherita Pizza");
+        verify(llmRestClient, times(2)).generateRecommendations(any(), any());
+    }
+
+    @Test
+    void shouldSendUsersWithSameFavoritesOnceInBatch() {
+        // Given
+        Map<String, List<String>> favoritesByUser = new LinkedHashMap<>();
+        favoritesByUser.put("alice", List.of("Pizza", "Pasta"));
+        favoritesByUser.put("bob", List.of("Pasta", "Pizza"));
+        favoritesByUser.put("carol", List.of("Curry"));
+        List<Dish> todayMeals = List.of(
+            new Dish("Margherita Pizza", "main", List.of("vegetarian")),
+            new Dish("Chicken Curry", "main", List.of("spicy"))
+        );
+
+        doAnswer(invocation -> {
+            Map<String, List<String>> request = invocation.getArgument(0);
+            assertThat(request).containsOnlyKeys("alice", "carol");
+            Consumer<UserRecommendation> onRecommendation = invocation.getArgument(2);
+            onRecommendation.accept(new UserRecommendation("carol", "Chicken Curry"));
+            onRecommendation.accept(new UserRecommendation("alice", "Margherita Pizza"));
+            return null;
+        }).when(llmRestClient).generateBatchRecommendations(any(), any(), any());
+
+        // When
+        List<UserRecommendation> results = new ArrayList<>();
+        llmRecommendationService.streamRecommendationsFromLLM(favoritesByUser, todayMeals, results::add);
+
+        // Then
+        assertThat(results).containsExactly(
+            new UserRecommendation("carol", "Chicken Curry"),
+            new UserRecommendation("alice", "Margherita Pizza"),
+            new UserRecommendation("bob", "Margherita Pizza")
+        );
+    }
 }
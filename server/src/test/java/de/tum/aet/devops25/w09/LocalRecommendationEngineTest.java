@@ -0,0 +1,46 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.service.LocalRecommendationEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalRecommendationEngineTest {
+
+    private final LocalRecommendationEngine engine = new LocalRecommendationEngine(0.85);
+
+    private final List<Dish> todayMeals = List.of(
+        new Dish("Spaghetti Bolognese", "Pasta", List.of("MEAT")),
+        new Dish("Gemüse-Curry mit Reis", "Wok", List.of("VEGAN")),
+        new Dish("Margherita Pizza", "Pizza", List.of("VEGETARIAN"))
+    );
+
+    @Test
+    void shouldAnswerVerbatimMatchLocally() {
+        assertThat(engine.recommend(List.of("Schnitzel", "spaghetti bolognese"), todayMeals))
+            .contains("Spaghetti Bolognese");
+    }
+
+    @Test
+    void shouldIgnoreAccentsAndPunctuation() {
+        assertThat(engine.recommend(List.of("Gemuse Curry mit Reis"), todayMeals))
+            .contains("Gemüse-Curry mit Reis");
+    }
+
+    @Test
+    void shouldEscalateWhenOnlyLooselyRelated() {
+        assertThat(engine.recommend(List.of("Pizza"), todayMeals)).isEmpty();
+        assertThat(engine.recommend(List.of("Sushi"), todayMeals)).isEmpty();
+    }
+
+    @Test
+    void shouldScoreLabelMentionHigher() {
+        Dish curry = todayMeals.get(1);
+
+        assertThat(LocalRecommendationEngine.similarity("vegan curry", curry))
+            .isGreaterThan(LocalRecommendationEngine.similarity("beef curry", curry));
+    }
+}
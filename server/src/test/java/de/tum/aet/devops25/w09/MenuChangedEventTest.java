@@ -0,0 +1,49 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.MenuChangedEvent;
+import de.tum.aet.devops25.w09.service.MenuChangedEvent.DayChange;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MenuChangedEventTest {
+
+    private static final LocalDate THURSDAY = LocalDate.of(2025, 5, 8);
+    private static final LocalDate FRIDAY = LocalDate.of(2025, 5, 9);
+
+    private static final Dish PASTA = new Dish("Vegetarian Pasta", "Pasta", List.of("VEGETARIAN"));
+    private static final Dish CURRY = new Dish("Curry", "Main", List.of("VEGAN"));
+    private static final Dish SCHNITZEL = new Dish("Wiener Schnitzel", "Main", List.of());
+
+    @Test
+    void shouldReportOnlyChangedDays() {
+        Week previous = new Week(19, 2025, List.of(
+                new Day(THURSDAY, List.of(PASTA, CURRY)),
+                new Day(FRIDAY, List.of(PASTA))));
+        Week current = new Week(19, 2025, List.of(
+                new Day(THURSDAY, List.of(CURRY, PASTA)),
+                new Day(FRIDAY, List.of(SCHNITZEL))));
+
+        List<DayChange> changes = MenuChangedEvent.diff(previous, current);
+
+        assertThat(changes).containsExactly(new DayChange(FRIDAY, List.of(SCHNITZEL), List.of(PASTA)));
+        assertThat(new MenuChangedEvent("mensa-garching", changes).affects(FRIDAY)).isTrue();
+        assertThat(new MenuChangedEvent("mensa-garching", changes).affects(THURSDAY)).isFalse();
+    }
+
+    @Test
+    void shouldReportAddedAndRemovedDays() {
+        Week previous = new Week(19, 2025, List.of(new Day(THURSDAY, List.of(PASTA))));
+        Week current = new Week(19, 2025, List.of(new Day(FRIDAY, List.of(CURRY))));
+
+        assertThat(MenuChangedEvent.diff(previous, current)).containsExactly(
+                new DayChange(THURSDAY, List.of(), List.of(PASTA)),
+                new DayChange(FRIDAY, List.of(CURRY), List.of()));
+    }
+}
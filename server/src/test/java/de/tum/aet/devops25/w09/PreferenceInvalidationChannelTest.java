@@ -0,0 +1,83 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.service.PreferenceInvalidationChannel;
+import de.tum.aet.devops25.w09.service.UserPreferenceService;
+import de.tum.aet.devops25.w09.service.UserPreferencesChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class PreferenceInvalidationChannelTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserPreferenceService userPreferenceService;
+
+    @Mock
+    private ExecutorService backgroundExecutor;
+
+    private PreferenceInvalidationChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        channel = new PreferenceInvalidationChannel(jdbcTemplate, userPreferenceService, backgroundExecutor,
+                "jdbc:postgresql://localhost:5432/mensa", "postgres", "secret", Duration.ofSeconds(5));
+    }
+
+    @Test
+    void shouldAnnounceLocalChangesAndIgnoreTheirEcho() {
+        channel.onPreferencesChanged(new UserPreferencesChangedEvent("alice"));
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(eq("select pg_notify(?, ?)"), any(RowCallbackHandler.class),
+                eq("user_preferences_changed"), payload.capture());
+        assertThat(payload.getValue()).endsWith(":alice");
+
+        // Our own notification comes back from the database, the cache is already invalidated
+        channel.handle(payload.getValue());
+        verifyNoInteractions(userPreferenceService);
+    }
+
+    @Test
+    void shouldEvictUsersChangedByOtherInstances() {
+        channel.handle("other-node:alice");
+
+        verify(userPreferenceService).evict("alice");
+    }
+
+    @Test
+    void shouldIgnoreMalformedNotifications() {
+        channel.handle("alice");
+
+        verifyNoInteractions(userPreferenceService);
+    }
+
+    @Test
+    void shouldNotFailChangesWhenNotifyFails() {
+        doThrow(new IllegalStateException("connection refused")).when(jdbcTemplate)
+                .query(eq("select pg_notify(?, ?)"), any(RowCallbackHandler.class), eq("user_preferences_changed"), anyString());
+
+        // Other instances fall back to the cache TTL, the local change itself succeeds
+        assertThatNoException().isThrownBy(() -> channel.onPreferencesChanged(new UserPreferencesChangedEvent("alice")));
+    }
+}
@@ -0,0 +1,127 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.client.ReactiveLLMClient;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.service.DailyRecommendationService;
+import de.tum.aet.devops25.w09.service.LLMRecommendationService;
+import de.tum.aet.devops25.w09.service.ReactiveCanteenService;
+import de.tum.aet.devops25.w09.service.ReactiveRecommendationService;
+import de.tum.aet.devops25.w09.service.RecommendationCoalescer;
+import de.tum.aet.devops25.w09.service.UserPreferenceService;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stage observations and result counts of the reactive pipeline, tagged like those of the blocking one
+ */
+@ExtendWith(MockitoExtension.class)
+class ReactiveRecommendationServiceTest {
+
+    private static final Dish CURRY = new Dish("Vegan Curry", "Main Dish", List.of("VEGAN"));
+
+    @Mock
+    private ReactiveCanteenService reactiveCanteenService;
+
+    @Mock
+    private ReactiveLLMClient reactiveLLMClient;
+
+    @Mock
+    private UserPreferenceService userPreferenceService;
+
+    @Mock
+    private DailyRecommendationService dailyRecommendationService;
+
+    @Mock
+    private LLMRecommendationService llmRecommendationService;
+
+    @Mock
+    private RecommendationCoalescer recommendationCoalescer;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ObservationRegistry observationRegistry;
+    private ReactiveRecommendationService recommendationService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        recommendationService = service(Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        recommendationService.shutdown();
+    }
+
+    @Test
+    void shouldObserveStagesAndCountGeneratedRecommendation() {
+        when(dailyRecommendationService.getPrecomputed("alice", "mensa-garching")).thenReturn(Optional.empty());
+        when(userPreferenceService.getFavoriteMeals(List.of("alice"))).thenReturn(Map.of("alice", List.of("Curry")));
+        when(reactiveCanteenService.getTodayMeals("mensa-garching")).thenReturn(Mono.just(List.of(CURRY)));
+        when(llmRecommendationService.recommendLocally(List.of("Curry"), List.of(CURRY))).thenReturn(Optional.empty());
+        when(reactiveLLMClient.generateRecommendations(List.of("Curry"), List.of("Vegan Curry"))).thenReturn(Mono.just("Vegan Curry"));
+
+        assertThat(recommendationService.getRecommendation("alice").block()).isEqualTo("Vegan Curry");
+
+        assertThat(meterRegistry.get("recommendation.results").tag("outcome", "generated").counter().count()).isEqualTo(1);
+        for (String stage : List.of("precomputed", "preferences", "menu", "llm", "store")) {
+            assertThat(meterRegistry.get("recommendation.stage").tags("stage", stage, "outcome", "success").timer().count())
+                    .as(stage).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void shouldCountPrecomputedRecommendation() {
+        when(dailyRecommendationService.getPrecomputed("alice", "mensa-garching")).thenReturn(Optional.of("Vegan Curry"));
+
+        assertThat(recommendationService.getRecommendation("alice").block()).isEqualTo("Vegan Curry");
+
+        assertThat(meterRegistry.get("recommendation.results").tag("outcome", "precomputed").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountTimeoutAndCancelPendingStage() {
+        ReactiveRecommendationService withShortDeadline = service(Duration.ofMillis(100));
+        when(dailyRecommendationService.getPrecomputed("alice", "mensa-garching")).thenReturn(Optional.empty());
+        when(userPreferenceService.getFavoriteMeals(List.of("alice"))).thenReturn(Map.of("alice", List.of("Curry")));
+        when(reactiveCanteenService.getTodayMeals("mensa-garching")).thenReturn(Mono.never());
+
+        try {
+            assertThatThrownBy(() -> withShortDeadline.getRecommendation("alice").block()).hasCauseInstanceOf(TimeoutException.class);
+        } finally {
+            withShortDeadline.shutdown();
+        }
+
+        assertThat(meterRegistry.get("recommendation.results").tag("outcome", "timeout").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("recommendation.stage").tags("stage", "menu", "outcome", "cancelled").timer().count()).isEqualTo(1);
+    }
+
+    private ReactiveRecommendationService service(Duration deadline) {
+        Clock clock = Clock.fixed(Instant.parse("2025-05-08T12:00:00Z"), ZoneOffset.UTC);
+        return new ReactiveRecommendationService(reactiveCanteenService, reactiveLLMClient, userPreferenceService,
+                dailyRecommendationService, llmRecommendationService, recommendationCoalescer, clock, meterRegistry,
+                observationRegistry, deadline, 2);
+    }
+}
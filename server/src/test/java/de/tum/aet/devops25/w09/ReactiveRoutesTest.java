@@ -0,0 +1,120 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.config.ReactiveRoutesConfig;
+import de.tum.aet.devops25.w09.controller.RecommendationController;
+import de.tum.aet.devops25.w09.service.CanteenService;
+import de.tum.aet.devops25.w09.service.LLMRecommendationService;
+import de.tum.aet.devops25.w09.service.ReactiveRecommendationService;
+import de.tum.aet.devops25.w09.service.RecommendationService;
+import de.tum.aet.devops25.w09.service.UserPreferenceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@code GET /recommend/{name}} in {@code recommendation.mode=reactive}, next to the blocking controller it replaces
+ */
+@WebMvcTest(RecommendationController.class)
+@AutoConfigureMockMvc
+@Import(ReactiveRoutesConfig.class)
+@TestPropertySource(properties = "recommendation.mode=reactive")
+public class ReactiveRoutesTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private ReactiveRecommendationService reactiveRecommendationService;
+
+    @MockitoBean
+    private RecommendationService recommendationService;
+
+    @MockitoBean
+    private LLMRecommendationService llmRecommendationService;
+
+    @MockitoBean
+    private UserPreferenceService userPreferenceService;
+
+    @MockitoBean
+    private CanteenService canteenService;
+
+    private WebTestClient webTestClient;
+
+    @TestConfiguration
+    static class ExecutorTestConfig {
+        @Bean(destroyMethod = "shutdownNow")
+        ExecutorService backgroundExecutor() {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    @BeforeEach
+    public void setup() {
+        webTestClient = MockMvcWebTestClient.bindTo(mockMvc).build();
+    }
+
+    @Test
+    public void testGetRecommendation_ServedByReactivePipeline() {
+        when(reactiveRecommendationService.getRecommendation("alice")).thenReturn(Mono.just("Vegan Curry"));
+
+        webTestClient.get().uri("/recommend/alice")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody().jsonPath("$.recommendation").isEqualTo("Vegan Curry");
+        verifyNoInteractions(recommendationService);
+    }
+
+    @Test
+    public void testGetRecommendation_ReturnsNoContent_WhenPipelineIsEmpty() {
+        when(reactiveRecommendationService.getRecommendation("bob")).thenReturn(Mono.empty());
+
+        webTestClient.get().uri("/recommend/bob")
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    @Test
+    public void testGetRecommendation_ReturnsGatewayTimeout_WhenDeadlinePasses() {
+        when(reactiveRecommendationService.getRecommendation("alice")).thenReturn(Mono.error(new TimeoutException()));
+
+        webTestClient.get().uri("/recommend/alice")
+            .exchange()
+            .expectStatus().isEqualTo(504);
+    }
+
+    @Test
+    public void testGetRecommendation_FallsThroughToBlockingEndpoint_ForCanteens() throws Exception {
+        // The reactive pipeline only knows the default canteen
+        when(recommendationService.getRecommendation("alice", List.of("mensa-garching", "mensa-arcisstr")))
+            .thenReturn(Optional.of("Wiener Schnitzel"));
+
+        webTestClient.get().uri("/recommend/alice?canteens=mensa-garching,mensa-arcisstr")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody().jsonPath("$.recommendation").isEqualTo("Wiener Schnitzel");
+        verify(reactiveRecommendationService, never()).getRecommendation(anyString());
+    }
+}
@@ -0,0 +1,224 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.controller.RecommendationController;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.UserRecommendation;
+import de.tum.aet.devops25.w09.service.CanteenService;
+import de.tum.aet.devops25.w09.service.LLMRecommendationService;
+import de.tum.aet.devops25.w09.service.RecommendationService;
+import de.tum.aet.devops25.w09.service.UserPreferenceService;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(RecommendationController.class)
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "recommendation.batch.max-size=3")
+public class RecommendationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private RecommendationService recommendationService;
+
+    @MockitoBean
+    private LLMRecommendationService llmRecommendationService;
+
+    @MockitoBean
+    private UserPreferenceService userPreferenceService;
+
+    @MockitoBean
+    private CanteenService canteenService;
+
+    @TestConfiguration
+    static class ExecutorTestConfig {
+        @Bean(destroyMethod = "shutdownNow")
+        ExecutorService backgroundExecutor() {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetBatchRecommendations_StreamsOneLinePerUser() throws Exception {
+        Map<String, List<String>> favoritesByUser = new LinkedHashMap<>();
+        favoritesByUser.put("alice", List.of("Vegan Curry"));
+        List<Dish> todaysMeals = List.of(new Dish("Vegan Curry", "Main Dish", List.of("VEGAN")));
+        when(userPreferenceService.getFavoriteMeals(any())).thenReturn(favoritesByUser);
+        when(canteenService.getTodayMeals("mensa-garching")).thenReturn(todaysMeals);
+        doAnswer(invocation -> {
+            invocation.<Consumer<UserRecommendation>>getArgument(2).accept(new UserRecommendation("alice", "Vegan Curry"));
+            return null;
+        }).when(llmRecommendationService).streamRecommendationsFromLLM(eq(favoritesByUser), eq(todaysMeals), any(Consumer.class));
+
+        MvcResult result = mockMvc.perform(post("/recommend/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"alice\", \"bob\", \"alice\"]"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        result.getAsyncResult(5000);
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isOk())
+            .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON));
+        // Users without favorites come first, duplicates are answered once
+        assertThat(result.getResponse().getContentAsString().lines()).containsExactly(
+            "{\"name\":\"bob\",\"recommendation\":\"\"}",
+            "{\"name\":\"alice\",\"recommendation\":\"Vegan Curry\"}");
+    }
+
+    @Test
+    public void testGetBatchRecommendations_ReturnsBadRequest_ForBlankOrNullNames() throws Exception {
+        mockMvc.perform(post("/recommend/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"alice\", \" \"]"))
+            .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/recommend/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"alice\", null]"))
+            .andExpect(status().isBadRequest());
+        verifyNoInteractions(userPreferenceService, llmRecommendationService);
+    }
+
+    @Test
+    public void testGetBatchRecommendations_ReturnsBadRequest_ForTooManyNames() throws Exception {
+        mockMvc.perform(post("/recommend/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[\"a\", \"b\", \"c\", \"d\"]"))
+            .andExpect(status().isBadRequest());
+        verifyNoInteractions(userPreferenceService, llmRecommendationService);
+    }
+
+    @Test
+    public void testGetBatchRecommendations_AnswersEmptyBatchWithoutLlmCall() throws Exception {
+        when(userPreferenceService.getFavoriteMeals(any())).thenReturn(Collections.emptyMap());
+
+        MvcResult result = mockMvc.perform(post("/recommend/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        result.getAsyncResult(5000);
+
+        assertThat(result.getResponse().getContentAsString()).isEmpty();
+        verifyNoInteractions(canteenService, llmRecommendationService);
+    }
+
+    @Test
+    public void testStreamRecommendation_SendsTokensThenDone() throws Exception {
+        when(recommendationService.streamRecommendation(eq("alice"), eq(List.of("mensa-garching")), any())).thenAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(2);
+            onToken.accept("Vegan");
+            onToken.accept(" Curry");
+            return Optional.of("Vegan Curry");
+        });
+
+        MvcResult result = mockMvc.perform(get("/recommend/alice/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        result.getAsyncResult(5000);
+
+        assertThat(result.getResponse().getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        // Leading spaces of tokens survive as JSON
+        assertThat(result.getResponse().getContentAsString()).isEqualTo("""
+            event:token
+            data:{"token":"Vegan"}
+
+            event:token
+            data:{"token":" Curry"}
+
+            event:done
+            data:{"recommendation":"Vegan Curry"}
+
+            """);
+    }
+
+    @Test
+    public void testStreamRecommendation_SendsErrorEvent_WhenDeadlinePasses() throws Exception {
+        when(recommendationService.streamRecommendation(eq("alice"), eq(List.of("mensa-garching")), any()))
+            .thenThrow(new TimeoutException());
+
+        MvcResult result = mockMvc.perform(get("/recommend/alice/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        result.getAsyncResult(5000);
+
+        assertThat(result.getResponse().getContentAsString()).isEqualTo("""
+            event:error
+            data:{"detail":"Recommendation timed out"}
+
+            """);
+    }
+
+    @Test
+    public void testStreamRecommendation_StopsRelayingTokens_WhenClientDisconnects() throws Exception {
+        CountDownLatch disconnected = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<RuntimeException> tokenFailure = new AtomicReference<>();
+        when(recommendationService.streamRecommendation(eq("alice"), eq(List.of("mensa-garching")), any())).thenAnswer(invocation -> {
+            Consumer<String> onToken = invocation.getArgument(2);
+            try {
+                onToken.accept("Vegan");
+                disconnected.await(5, TimeUnit.SECONDS);
+                onToken.accept(" Curry");
+                return Optional.of("Vegan Curry");
+            } catch (RuntimeException e) {
+                // The LLM client stops reading the stream when the consumer fails
+                tokenFailure.set(e);
+                throw e;
+            } finally {
+                finished.countDown();
+            }
+        });
+
+        MvcResult result = mockMvc.perform(get("/recommend/alice/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onError(new AsyncEvent(asyncContext, new IOException("Broken pipe")));
+        }
+        disconnected.countDown();
+
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(tokenFailure.get()).isNotNull();
+        assertThat(result.getResponse().getContentAsString()).doesNotContain("Curry", "event:done");
+    }
+}
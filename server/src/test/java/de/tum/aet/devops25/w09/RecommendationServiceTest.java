@@ -0,0 +1,177 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.dto.CanteenMenus;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.PreferencesSnapshot;
+import de.tum.aet.devops25.w09.resilience.CircuitBreaker;
+import de.tum.aet.devops25.w09.resilience.ResiliencePolicy;
+import de.tum.aet.devops25.w09.service.CanteenService;
+import de.tum.aet.devops25.w09.service.DailyRecommendationService;
+import de.tum.aet.devops25.w09.service.LLMRecommendationService;
+import de.tum.aet.devops25.w09.service.RecommendationService;
+import de.tum.aet.devops25.w09.service.UserPreferenceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RecommendationServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 5, 8);
+    private static final Dish CURRY = new Dish("Vegan Curry", "Main Dish", List.of("VEGAN"));
+    private static final Dish PASTA = new Dish("Vegetarian Pasta", "Main Dish", List.of("VEGETARIAN"));
+
+    @Mock
+    private LLMRecommendationService llmRecommendationService;
+
+    @Mock
+    private UserPreferenceService userPreferenceService;
+
+    @Mock
+    private CanteenService canteenService;
+
+    @Mock
+    private DailyRecommendationService dailyRecommendationService;
+
+    private ExecutorService executor;
+    private SimpleMeterRegistry meterRegistry;
+    private RecommendationService recommendationService;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newCachedThreadPool();
+        meterRegistry = new SimpleMeterRegistry();
+        Clock clock = Clock.fixed(Instant.parse("2025-05-08T12:00:00Z"), ZoneOffset.UTC);
+        recommendationService = new RecommendationService(llmRecommendationService, userPreferenceService, canteenService,
+                dailyRecommendationService, executor, clock, meterRegistry, ObservationRegistry.NOOP, Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldStoreGeneratedRecommendation() throws Exception {
+        when(userPreferenceService.getPreferences("alice")).thenReturn(new PreferencesSnapshot("alice", List.of("Curry")));
+        when(canteenService.getTodayMeals("mensa-garching")).thenReturn(List.of(CURRY, PASTA));
+        when(llmRecommendationService.getRecommendationFromLLM(List.of("Curry"), List.of(CURRY, PASTA))).thenReturn("Vegan Curry");
+
+        assertThat(recommendationService.getRecommendation("alice")).contains("Vegan Curry");
+
+        verify(dailyRecommendationService).store("alice", "mensa-garching", TODAY, List.of("Curry"), "Vegan Curry");
+        assertThat(meterRegistry.get("recommendation.results").tag("outcome", "generated").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotStoreRecommendationMissingUnavailableCanteens() throws Exception {
+        when(userPreferenceService.getPreferences("alice")).thenReturn(new PreferencesSnapshot("alice", List.of("Curry")));
+        when(canteenService.getTodayMeals(List.of("mensa-garching", "mensa-arcisstr")))
+                .thenReturn(new CanteenMenus(Map.of("mensa-garching", List.of(CURRY)), List.of("mensa-arcisstr")));
+        when(llmRecommendationService.getRecommendationFromLLM(List.of("Curry"), List.of(CURRY))).thenReturn("Vegan Curry");
+
+        // Still answered from the canteens that responded
+        assertThat(recommendationService.getRecommendation("alice", List.of("mensa-garching", "mensa-arcisstr")))
+                .contains("Vegan Curry");
+
+        verify(dailyRecommendationService, never()).store(any(), any(), any(), anyList(), any());
+    }
+
+    @Test
+    void shouldWaitForLLMAttemptOnPoolThreadBeyondMenuDeadline() throws Exception {
+        RecommendationService withShortDeadline = new RecommendationService(llmRecommendationService, userPreferenceService,
+                canteenService, dailyRecommendationService, executor, Clock.systemUTC(), meterRegistry, ObservationRegistry.NOOP,
+                Duration.ofMillis(100));
+        ResiliencePolicy llmResilience = new ResiliencePolicy("llm", new CircuitBreaker("llm", 20, 10, 0.5,
+                Duration.ofSeconds(30), 2, Clock.systemUTC()), 4, Duration.ofSeconds(1), Duration.ofSeconds(2), 2.0,
+                false, executor, meterRegistry);
+        Thread requestThread = Thread.currentThread();
+        AtomicReference<Thread> attemptThread = new AtomicReference<>();
+        when(userPreferenceService.getPreferences("alice")).thenReturn(new PreferencesSnapshot("alice", List.of("Curry")));
+        when(canteenService.getTodayMeals("mensa-garching")).thenReturn(List.of(CURRY));
+        // Goes through the same policy as LLMRestClient
+        when(llmRecommendationService.getRecommendationFromLLM(List.of("Curry"), List.of(CURRY))).thenAnswer(invocation ->
+                llmResilience.call(() -> {
+                    attemptThread.set(Thread.currentThread());
+                    sleep(300);
+                    return "Vegan Curry";
+                }));
+
+        // The menu deadline has passed by the time the LLM answers, only the policy's timeout applies
+        assertThat(withShortDeadline.getRecommendation("alice")).contains("Vegan Curry");
+        assertThat(attemptThread.get()).isNotNull().isNotSameAs(requestThread);
+    }
+
+    @Test
+    void shouldTimeOutWithoutInterruptingMenuFetch() throws Exception {
+        RecommendationService withShortDeadline = new RecommendationService(llmRecommendationService, userPreferenceService,
+                canteenService, dailyRecommendationService, executor, Clock.systemUTC(), meterRegistry, ObservationRegistry.NOOP,
+                Duration.ofMillis(200));
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> fetchInterrupted = new CompletableFuture<>();
+        when(userPreferenceService.getPreferences("alice")).thenReturn(new PreferencesSnapshot("alice", List.of("Curry")));
+        when(canteenService.getTodayMeals("mensa-garching")).thenAnswer(invocation -> {
+            // Stands in for the single-flight load other requests may be waiting for
+            try {
+                release.await(5, TimeUnit.SECONDS);
+                fetchInterrupted.complete(false);
+            } catch (InterruptedException e) {
+                fetchInterrupted.complete(true);
+            }
+            return List.of(CURRY);
+        });
+
+        assertThatThrownBy(() -> withShortDeadline.getRecommendation("alice")).isInstanceOf(TimeoutException.class);
+        release.countDown();
+
+        assertThat(fetchInterrupted.get(5, TimeUnit.SECONDS)).isFalse();
+        verify(llmRecommendationService, never()).getRecommendationFromLLM(anyList(), anyList());
+        assertThat(meterRegistry.get("recommendation.results").tag("outcome", "timeout").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSkipMenuAndLLMWithoutFavorites() throws Exception {
+        when(userPreferenceService.getPreferences("alice")).thenReturn(null);
+
+        assertThat(recommendationService.getRecommendation("alice")).isEmpty();
+
+        verify(llmRecommendationService, never()).getRecommendationFromLLM(anyList(), anyList());
+        assertThat(meterRegistry.get("recommendation.results").tag("outcome", "no_favorites").counter().count()).isEqualTo(1);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
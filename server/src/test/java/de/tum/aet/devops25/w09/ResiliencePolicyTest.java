@@ -0,0 +1,201 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.resilience.CallRejectedException;
+import de.tum.aet.devops25.w09.resilience.CallTimeoutException;
+import de.tum.aet.devops25.w09.resilience.CircuitBreaker;
+import de.tum.aet.devops25.w09.resilience.ResiliencePolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResiliencePolicyTest {
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private CircuitBreaker circuitBreaker;
+    private ResiliencePolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-05-08T12:00:00Z"));
+        meterRegistry = new SimpleMeterRegistry();
+        executor = Executors.newCachedThreadPool();
+        circuitBreaker = new CircuitBreaker("test", 4, 4, 0.5, Duration.ofSeconds(30), 1, clock);
+        policy = new ResiliencePolicy("test", circuitBreaker, 1, Duration.ofMillis(50), Duration.ofMillis(200), 2.0,
+                false, executor, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldOpenAfterFailuresAndCloseAfterSuccessfulProbe() {
+        for (int i = 0; i < 2; i++) {
+            assertThat(policy.call(() -> "ok")).isEqualTo("ok");
+            assertThatThrownBy(() -> policy.call(() -> { throw new IllegalStateException("down"); }))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        // Rejected without reaching the dependency
+        assertThatThrownBy(() -> policy.call(() -> "ok")).isInstanceOf(CallRejectedException.class);
+        assertThat(meterRegistry.get("resilience.calls").tag("outcome", "rejected").counter().count()).isEqualTo(1);
+
+        clock.advance(Duration.ofSeconds(30));
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(policy.call(() -> "ok")).isEqualTo("ok");
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void shouldReopenWhenProbeFails() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> policy.call(() -> { throw new IllegalStateException("down"); }));
+        }
+        clock.advance(Duration.ofSeconds(30));
+
+        assertThatThrownBy(() -> policy.call(() -> { throw new IllegalStateException("still down"); }))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void shouldTimeOutSlowCallsAndRejectWhenBulkheadIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertThatThrownBy(() -> policy.call(() -> {
+            await(release);
+            return "late";
+        })).isInstanceOf(CallTimeoutException.class);
+        assertThat(meterRegistry.get("resilience.calls").tag("outcome", "timeout").counter().count()).isEqualTo(1);
+
+        // The abandoned call is interrupted, so its bulkhead permit comes back
+        while (policy.status().availableConcurrentCalls() == 0) {
+            Thread.onSpinWait();
+        }
+        assertThat(policy.call(() -> "ok")).isEqualTo("ok");
+
+        // A call holding the only permit makes the next one fail fast instead of queueing
+        Future<String> slow = executor.submit(() -> policy.callWithoutTimeout(() -> {
+            await(release);
+            return "slow";
+        }));
+        while (policy.status().availableConcurrentCalls() > 0) {
+            Thread.onSpinWait();
+        }
+        assertThatThrownBy(() -> policy.call(() -> "ok")).isInstanceOf(CallRejectedException.class);
+
+        release.countDown();
+        assertThat(slow.get(1, TimeUnit.SECONDS)).isEqualTo("slow");
+    }
+
+    @Test
+    void shouldRejectWithoutRunningCallWhenExecutorIsFull() throws Exception {
+        ExecutorService full = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new SynchronousQueue<>());
+        ResiliencePolicy busy = new ResiliencePolicy("busy", circuitBreaker, 1, Duration.ofMillis(50), Duration.ofMillis(200), 2.0,
+                false, full, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        try {
+            full.execute(() -> {
+                started.countDown();
+                await(release);
+            });
+            assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> busy.call(() -> "ok"))
+                    .isInstanceOf(CallRejectedException.class);
+
+            // The bulkhead permit comes back and the rejection does not count against the circuit
+            assertThat(busy.status().availableConcurrentCalls()).isEqualTo(1);
+            assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+            assertThat(meterRegistry.get("resilience.calls").tags("policy", "busy", "outcome", "rejected").counter().count())
+                    .isEqualTo(1);
+        } finally {
+            release.countDown();
+            full.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldGuardReactiveCallsWithSameTimeoutBulkheadAndListeners() {
+        List<Long> latencies = new CopyOnWriteArrayList<>();
+        policy.addLatencyListener(latencies::add);
+
+        assertThat(policy.callReactive(() -> Mono.just("ok")).block()).isEqualTo("ok");
+        assertThat(latencies).hasSize(1);
+
+        assertThatThrownBy(() -> policy.callReactive(Mono::never).block()).isInstanceOf(CallTimeoutException.class);
+        assertThat(meterRegistry.get("resilience.calls").tag("outcome", "timeout").counter().count()).isEqualTo(1);
+        assertThat(latencies).hasSize(2);
+        assertThat(policy.status().availableConcurrentCalls()).isEqualTo(1);
+
+        // A subscribed call holds the only permit until it is cancelled
+        Disposable pending = policy.callReactive(Mono::never).subscribe(value -> { }, error -> { });
+        assertThatThrownBy(() -> policy.callReactive(() -> Mono.just("ok")).block()).isInstanceOf(CallRejectedException.class);
+        pending.dispose();
+        assertThat(policy.status().availableConcurrentCalls()).isEqualTo(1);
+        assertThat(policy.callReactive(() -> Mono.just("ok")).block()).isEqualTo("ok");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package de.tum.aet.devops25.w09;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tum.aet.devops25.w09.service.LocalRecommendationEngine;
+import de.tum.aet.devops25.w09.service.WeekParser;
+import de.tum.aet.devops25.w09.startup.StartupWarmUp;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ApplicationAvailabilityBean;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.client.RestClient;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StartupWarmUpTest {
+
+    private static final List<ReadinessState> readinessDuringWarmUp = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        readinessDuringWarmUp.clear();
+    }
+
+    @Test
+    void shouldKeepReadinessDownUntilWarmUpReturnedAndSkipFailingSteps() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WarmUpConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--startup.warm-up.iterations=5", "--startup.warm-up.timeout=PT30S")) {
+
+            // The query failed on the first iteration and was not repeated
+            assertThat(readinessDuringWarmUp).containsExactly(ReadinessState.REFUSING_TRAFFIC);
+            assertThat(context.getBean(ApplicationAvailability.class).getReadinessState())
+                    .isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    @Test
+    void shouldSkipWarmUpWhenDisabled() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(WarmUpConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--startup.warm-up.enabled=false")) {
+
+            assertThat(readinessDuringWarmUp).isEmpty();
+            assertThat(context.getBean(ApplicationAvailability.class).getReadinessState())
+                    .isEqualTo(ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    /**
+     * Only the warm-up and its collaborators, without a database or web server
+     */
+    @Configuration(proxyBeanMethods = false)
+    @Import(StartupWarmUp.class)
+    static class WarmUpConfig {
+
+        @Bean
+        ApplicationAvailabilityBean applicationAvailability() {
+            return new ApplicationAvailabilityBean();
+        }
+
+        @Bean
+        ObjectMapper objectMapper() {
+            return new ObjectMapper().findAndRegisterModules();
+        }
+
+        @Bean
+        WeekParser weekParser(ObjectMapper objectMapper) {
+            return new WeekParser(objectMapper);
+        }
+
+        @Bean
+        LocalRecommendationEngine localRecommendationEngine() {
+            return new LocalRecommendationEngine(0.85);
+        }
+
+        @Bean
+        RestClient.Builder restClientBuilder() {
+            return RestClient.builder();
+        }
+
+        @Bean
+        UserPreferenceRepository userPreferenceRepository(ApplicationAvailability availability) {
+            UserPreferenceRepository repository = mock(UserPreferenceRepository.class);
+            when(repository.findAllWithFavoriteMealsByNameIn(any())).thenAnswer(invocation -> {
+                readinessDuringWarmUp.add(availability.getReadinessState());
+                throw new IllegalStateException("database unreachable");
+            });
+            return repository;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.config.TracingConfig;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationPredicate;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TracingConfigTest {
+
+    private final ObservationPredicate predicate = new TracingConfig().noActuatorObservations("/api");
+
+    @Test
+    void shouldSkipActuatorRequests() {
+        assertThat(predicate.test("http.server.requests", request("/api/actuator/health/readiness"))).isFalse();
+        assertThat(predicate.test("http.server.requests", request("/api/actuator/prometheus"))).isFalse();
+    }
+
+    @Test
+    void shouldObserveOtherRequests() {
+        assertThat(predicate.test("http.server.requests", request("/api/recommend/alice"))).isTrue();
+        assertThat(predicate.test("http.server.requests", request("/api/mensa-garching/today"))).isTrue();
+    }
+
+    @Test
+    void shouldObserveEverythingElse() {
+        assertThat(predicate.test("recommendation.stage", new Observation.Context())).isTrue();
+    }
+
+    private static ServerRequestObservationContext request(String uri) {
+        return new ServerRequestObservationContext(new MockHttpServletRequest("GET", uri), new MockHttpServletResponse());
+    }
+}
@@ -0,0 +1,278 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.cache.TtlCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TtlCacheTest {
+
+    private MutableClock clock;
+    private SimpleMeterRegistry meterRegistry;
+    private TtlCache<String, String> cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(Instant.parse("2025-05-08T12:00:00Z"));
+        meterRegistry = new SimpleMeterRegistry();
+        // Run refreshes inline so the tests are deterministic
+        cache = new TtlCache<>("test", Duration.ofMinutes(10), Duration.ofMinutes(5), 2, Runnable::run, clock, meterRegistry);
+    }
+
+    @Test
+    void shouldServeCachedValueWithinTtl() {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get("a", k -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        clock.advance(Duration.ofMinutes(9));
+        assertThat(cache.get("a", k -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReportRemainingFreshness() {
+        assertThat(cache.freshFor("a")).isEqualTo(Duration.ZERO);
+        cache.get("a", k -> "v");
+
+        clock.advance(Duration.ofMinutes(4));
+        assertThat(cache.freshFor("a")).isEqualTo(Duration.ofMinutes(6));
+        clock.advance(Duration.ofMinutes(7));
+        assertThat(cache.freshFor("a")).isEqualTo(Duration.ZERO);
+    }
+
+    @Test
+    void shouldServeStaleValueAndRefreshInBackground() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("a", k -> "v" + loads.incrementAndGet());
+
+        clock.advance(Duration.ofMinutes(12));
+
+        // The stale value is returned, the inline refresh replaces it for the next caller
+        assertThat(cache.get("a", k -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(cache.get("a", k -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+        assertThat(meterRegistry.get("cache.refreshes").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldServeStaleValueWhenRefreshIsRejected() {
+        AtomicInteger loads = new AtomicInteger();
+        AtomicBoolean rejecting = new AtomicBoolean(true);
+        TtlCache<String, String> busy = new TtlCache<>("busy", Duration.ofMinutes(10), Duration.ofMinutes(5), 2, task -> {
+            if (rejecting.get()) {
+                throw new RejectedExecutionException("pool is full");
+            }
+            task.run();
+        }, clock, meterRegistry);
+        busy.get("a", k -> "v" + loads.incrementAndGet());
+
+        clock.advance(Duration.ofMinutes(12));
+
+        // Neither the refresh nor the caller loads, and the next caller may try again
+        assertThat(busy.get("a", k -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(loads).hasValue(1);
+        rejecting.set(false);
+        assertThat(busy.get("a", k -> "v" + loads.incrementAndGet())).isEqualTo("v1");
+        assertThat(busy.get("a", k -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+        assertThat(meterRegistry.get("cache.refreshes").tag("cache", "busy").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadAfterStaleWindow() {
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("a", k -> "v" + loads.incrementAndGet());
+
+        clock.advance(Duration.ofMinutes(16));
+
+        assertThat(cache.get("a", k -> "v" + loads.incrementAndGet())).isEqualTo("v2");
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEvictOldestEntryWhenFull() {
+        cache.get("a", k -> "a");
+        clock.advance(Duration.ofSeconds(1));
+        cache.get("b", k -> "b");
+        clock.advance(Duration.ofSeconds(1));
+        cache.get("c", k -> "c");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getIfPresent("a")).isNull();
+        assertThat(cache.getIfPresent("c")).isEqualTo("c");
+    }
+
+    @Test
+    void shouldEvictOldestEntriesWhenOverWeight() {
+        TtlCache<String, String> weighted = new TtlCache<>("weighted", Duration.ofMinutes(10), Duration.ZERO, 100,
+                10, String::length, Runnable::run, clock, meterRegistry);
+
+        weighted.put("a", "aaaa");
+        clock.advance(Duration.ofSeconds(1));
+        weighted.get("b", k -> "bbbb");
+        clock.advance(Duration.ofSeconds(1));
+        weighted.put("c", "cccc");
+
+        assertThat(weighted.size()).isEqualTo(2);
+        assertThat(weighted.weight()).isEqualTo(8);
+        assertThat(weighted.getIfPresent("a")).isNull();
+
+        weighted.invalidate("b");
+        assertThat(weighted.weight()).isEqualTo(4);
+    }
+
+    @Test
+    void shouldNotCacheLoadInvalidatedWhileInFlight() {
+        String value = cache.get("a", k -> {
+            cache.invalidate("a"); // a write landed while the old value was being loaded
+            return "old";
+        });
+
+        assertThat(value).isEqualTo("old");
+        assertThat(cache.getIfPresent("a")).isNull();
+    }
+
+    @Test
+    void shouldNotCacheNullValues() {
+        assertThat(cache.get("a", k -> null)).isNull();
+        assertThat(cache.get("a", k -> "v")).isEqualTo("v");
+    }
+
+    @Test
+    void shouldCoalesceConcurrentMisses() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] results = new Future<?>[8];
+            for (int i = 0; i < results.length; i++) {
+                results[i] = executor.submit(() -> cache.get("a", k -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "v";
+                }));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<?> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("v");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void shouldCountCallersWaitingForALoadAsCoalesced() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            List<Future<String>> waiting = new ArrayList<>();
+            String value = cache.get("a", k -> {
+                // Hold the load until another caller is waiting for it
+                waiting.add(executor.submit(() -> cache.get("a", key -> "never loaded")));
+                try {
+                    while (meterRegistry.get("cache.gets").tag("result", "coalesced").counter().count() == 0) {
+                        Thread.sleep(10);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "v";
+            });
+
+            assertThat(value).isEqualTo("v");
+            assertThat(waiting.getFirst().get(5, TimeUnit.SECONDS)).isEqualTo("v");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(meterRegistry.get("cache.gets").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "coalesced").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.gets").tag("result", "hit").counter().count()).isZero();
+    }
+
+    @Test
+    void shouldLoadMissingKeysInOneCall() {
+        List<List<String>> loads = new ArrayList<>();
+        cache.get("a", k -> "cached");
+
+        Map<String, String> values = cache.getAll(List.of("a", "b", "c"), keys -> {
+            loads.add(keys);
+            return keys.contains("b") ? Map.of("b", "loaded") : Map.of();
+        });
+
+        // Keys the loader has no value for are omitted and not cached
+        assertThat(values).containsOnly(Map.entry("a", "cached"), Map.entry("b", "loaded"));
+        assertThat(loads).singleElement().satisfies(keys -> assertThat(keys).containsExactlyInAnyOrder("b", "c"));
+        assertThat(cache.getIfPresent("b")).isEqualTo("loaded");
+        assertThat(cache.getIfPresent("c")).isNull();
+    }
+
+    @Test
+    void shouldNotCacheBulkLoadInvalidatedWhileLoading() {
+        Map<String, String> values = cache.getAll(List.of("a"), keys -> {
+            cache.invalidate("a");
+            return Map.of("a", "before write");
+        });
+
+        assertThat(values).containsEntry("a", "before write");
+        assertThat(cache.getIfPresent("a")).isNull();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        private MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.controller.UserPreferenceController;
+import de.tum.aet.devops25.w09.dto.PreferencesSnapshot;
+import de.tum.aet.devops25.w09.service.DishSearchIndex;
+import de.tum.aet.devops25.w09.service.UserPreferenceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(UserPreferenceController.class)
+@AutoConfigureMockMvc
+public class UserPreferenceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserPreferenceService userPreferenceService;
+
+    @MockitoBean
+    private DishSearchIndex searchIndex;
+
+    @Test
+    public void testGetPreferences_ReturnsNotModified_ForMatchingETag() throws Exception {
+        PreferencesSnapshot preferences = new PreferencesSnapshot("alice", List.of("Vegan Curry"));
+        when(userPreferenceService.getPreferences("alice")).thenReturn(preferences);
+
+        String etag = mockMvc.perform(get("/preferences/alice"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + preferences.version() + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+            .andExpect(jsonPath("$.favoriteMeals[0]").value("Vegan Curry"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/preferences/alice").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, etag))
+            .andExpect(content().string(""));
+    }
+
+    @Test
+    public void testGetPreferences_ChangesETag_AfterFavoriteIsAdded() throws Exception {
+        PreferencesSnapshot before = new PreferencesSnapshot("alice", List.of("Vegan Curry"));
+        PreferencesSnapshot after = new PreferencesSnapshot("alice", List.of("Vegan Curry", "Pizza"));
+        when(userPreferenceService.getPreferences("alice")).thenReturn(before, after);
+        when(userPreferenceService.addPreferences("alice", "Pizza")).thenReturn(after);
+
+        String etag = mockMvc.perform(get("/preferences/alice"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(post("/preferences/alice").param("meal", "Pizza"))
+            .andExpect(status().isOk());
+
+        // The client's copy is outdated, so the new preferences come with a new tag
+        String newEtag = mockMvc.perform(get("/preferences/alice").header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.favoriteMeals[1]").value("Pizza"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(newEtag).isNotEqualTo(etag);
+    }
+}
@@ -0,0 +1,169 @@
+package de.tum.aet.devops25.w09;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The native favorite statements under concurrency, against PostgreSQL
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+// Every statement commits on its own, like in the application, so concurrent threads see each other's writes
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserPreferenceRepositoryTest {
+
+    private static final int THREADS = 16;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:17");
+
+    @Autowired
+    private UserPreferenceRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from user_preferences_favorite_meals");
+        jdbcTemplate.update("delete from user_preferences");
+    }
+
+    @Test
+    void shouldKeepAllConcurrentAddsOfNewUser() throws Exception {
+        List<Callable<Integer>> adds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String meal = "Meal " + i;
+            adds.add(() -> repository.addFavoriteMeal("alice", meal));
+        }
+
+        List<Integer> results = runConcurrently(adds);
+
+        assertThat(results).containsOnly(1);
+        assertThat(favorites("alice")).hasSize(THREADS);
+    }
+
+    @Test
+    void shouldStoreConcurrentAddsOfSameMealOnce() throws Exception {
+        List<Callable<Integer>> adds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            adds.add(() -> repository.addFavoriteMeal("alice", "Pizza"));
+        }
+
+        List<Integer> results = runConcurrently(adds);
+
+        assertThat(results.stream().mapToInt(Integer::intValue).sum()).isEqualTo(1);
+        assertThat(favorites("alice")).containsExactly("Pizza");
+    }
+
+    @Test
+    void shouldReportExactEffectsOfConcurrentReplaceAddAndRemove() throws Exception {
+        repository.replaceFavoriteMeals("alice", new String[] {"Pizza", "Pasta", "Curry"});
+        // Net number of times each meal was reported added minus removed, starting from the seeded favorites
+        Map<String, AtomicInteger> net = new ConcurrentHashMap<>();
+        Set.of("Pizza", "Pasta", "Curry").forEach(meal -> net.put(meal, new AtomicInteger(1)));
+
+        List<Callable<Integer>> changes = new ArrayList<>();
+        changes.add(() -> {
+            for (UserPreferenceRepository.MealChange change : repository.replaceFavoriteMeals("alice", new String[] {"Curry", "Soup"})) {
+                if (change.getMeal() != null) {
+                    net.computeIfAbsent(change.getMeal(), meal -> new AtomicInteger()).addAndGet(change.getAdded() ? 1 : -1);
+                }
+            }
+            return 0;
+        });
+        for (int i = 0; i < THREADS; i++) {
+            String meal = i % 2 == 0 ? "Pizza" : "Salad";
+            boolean add = i % 4 < 2;
+            changes.add(() -> {
+                int changed = add ? repository.addFavoriteMeal("alice", meal) : repository.removeFavoriteMeal("alice", meal);
+                net.computeIfAbsent(meal, key -> new AtomicInteger()).addAndGet(add ? changed : -changed);
+                return changed;
+            });
+        }
+
+        runConcurrently(changes);
+
+        // Counting the reported effects, as DishPopularity does, ends with exactly the stored favorites
+        Set<String> stored = new HashSet<>(favorites("alice"));
+        assertThat(stored).contains("Curry", "Soup").doesNotContain("Pasta");
+        net.forEach((meal, count) -> assertThat(count.get()).as(meal).isEqualTo(stored.contains(meal) ? 1 : 0));
+    }
+
+    @Test
+    void shouldRemoveDuplicatesBeforeCreatingUniqueIndex() {
+        // A table from before the constraint, holding duplicates
+        jdbcTemplate.execute("drop index if exists uk_user_preferences_favorite_meals");
+        jdbcTemplate.update("insert into user_preferences (name) values ('alice')");
+        jdbcTemplate.update("insert into user_preferences_favorite_meals values ('alice', 'Pizza'), ('alice', 'Pizza'), ('alice', 'Curry')");
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+
+        assertThat(favorites("alice")).containsExactlyInAnyOrder("Pizza", "Curry");
+        assertThatThrownBy(() -> jdbcTemplate.update("insert into user_preferences_favorite_meals values ('alice', 'Pizza')"))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private List<String> favorites(String name) {
+        return jdbcTemplate.queryForList("select favorite_meals from user_preferences_favorite_meals where user_preferences_name = ?",
+                String.class, name);
+    }
+
+    private static <T> List<T> runConcurrently(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+            start.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
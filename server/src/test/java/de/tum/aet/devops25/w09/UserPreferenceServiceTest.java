@@ -0,0 +1,113 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.cache.TtlCache;
+import de.tum.aet.devops25.w09.dto.PreferencesSnapshot;
+import de.tum.aet.devops25.w09.entity.UserPreferences;
+import de.tum.aet.devops25.w09.service.DishPopularity;
+import de.tum.aet.devops25.w09.service.UserPreferenceService;
+import de.tum.aet.devops25.w09.service.UserPreferencesChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserPreferenceServiceTest {
+
+    @Mock
+    private UserPreferenceRepository repository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private DishPopularity popularity;
+    private UserPreferenceService userPreferenceService;
+
+    @BeforeEach
+    void setUp() {
+        TtlCache<String, Optional<PreferencesSnapshot>> cache = new TtlCache<>("test", Duration.ofMinutes(10), Duration.ZERO, 100,
+                Runnable::run, Clock.systemUTC(), new SimpleMeterRegistry());
+        popularity = new DishPopularity();
+        userPreferenceService = new UserPreferenceService(repository, eventPublisher, cache, popularity);
+    }
+
+    @Test
+    void shouldLoadOnlyUncachedUsersInBatch() {
+        when(repository.findAllWithFavoriteMealsByNameIn(List.of("alice")))
+                .thenReturn(List.of(new UserPreferences("alice", List.of("Pizza"))));
+        when(repository.findAllWithFavoriteMealsByNameIn(List.of("bob"))).thenReturn(List.of());
+
+        userPreferenceService.getPreferences("alice");
+        Map<String, List<String>> favorites = userPreferenceService.getFavoriteMeals(List.of("alice", "bob"));
+        userPreferenceService.getFavoriteMeals(List.of("alice", "bob"));
+
+        // Users without preferences are cached as absent as well
+        assertThat(favorites).containsExactly(Map.entry("alice", List.of("Pizza")));
+        verify(repository).findAllWithFavoriteMealsByNameIn(List.of("alice"));
+        verify(repository).findAllWithFavoriteMealsByNameIn(List.of("bob"));
+    }
+
+    @Test
+    void shouldNotCacheBatchLoadRacingWithInvalidation() {
+        AtomicInteger loads = new AtomicInteger();
+        when(repository.findAllWithFavoriteMealsByNameIn(List.of("alice"))).thenAnswer(invocation -> {
+            if (loads.incrementAndGet() == 1) {
+                // Another request changes the preferences after this query read them
+                userPreferenceService.evict("alice");
+                return List.of(new UserPreferences("alice", List.of("Pizza")));
+            }
+            return List.of(new UserPreferences("alice", List.of("Curry")));
+        });
+
+        assertThat(userPreferenceService.getFavoriteMeals(List.of("alice"))).containsEntry("alice", List.of("Pizza"));
+        assertThat(userPreferenceService.getFavoriteMeals(List.of("alice"))).containsEntry("alice", List.of("Curry"));
+        assertThat(userPreferenceService.getPreferences("alice").favoriteMeals()).containsExactly("Curry");
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void shouldInvalidateAndPublishOnChange() {
+        when(repository.findAllWithFavoriteMealsByNameIn(List.of("alice")))
+                .thenReturn(List.of(new UserPreferences("alice", List.of("Pizza"))))
+                .thenReturn(List.of(new UserPreferences("alice", List.of("Pizza", "Curry"))));
+        when(repository.addFavoriteMeal("alice", "Curry")).thenReturn(1);
+
+        userPreferenceService.getPreferences("alice");
+        PreferencesSnapshot updated = userPreferenceService.addPreferences("alice", "Curry");
+
+        assertThat(updated.favoriteMeals()).containsExactlyInAnyOrder("Pizza", "Curry");
+        assertThat(popularity.favorites("Curry")).isEqualTo(1);
+        verify(eventPublisher).publishEvent(new UserPreferencesChangedEvent("alice"));
+        verify(repository, times(2)).findAllWithFavoriteMealsByNameIn(List.of("alice"));
+    }
+
+    @Test
+    void shouldKeepCacheWhenNothingChanged() {
+        when(repository.findAllWithFavoriteMealsByNameIn(List.of("alice")))
+                .thenReturn(List.of(new UserPreferences("alice", List.of("Pizza"))));
+        when(repository.addFavoriteMeal("alice", "Pizza")).thenReturn(0);
+
+        userPreferenceService.getPreferences("alice");
+        userPreferenceService.addPreferences("alice", "Pizza");
+
+        assertThat(popularity.favorites("Pizza")).isZero();
+        verify(repository).findAllWithFavoriteMealsByNameIn(List.of("alice"));
+        verifyNoInteractions(eventPublisher);
+    }
+}
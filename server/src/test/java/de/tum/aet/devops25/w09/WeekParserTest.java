@@ -0,0 +1,65 @@
+package de.tum.aet.devops25.w09;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.WeekParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeekParserTest {
+
+    private static final String WEEK = """
+            {
+              "number": 19,
+              "year": 2025,
+              "version": "2.1",
+              "days": [
+                {
+                  "date": "2025-05-05",
+                  "dishes": [
+                    {
+                      "name": "Pasta mit Tomatensoße",
+                      "prices": {"students": {"base_price": 0.0, "price_per_unit": 0.83, "unit": "100g"}},
+                      "labels": ["VEGAN", "GLUTEN"],
+                      "dish_type": "Pasta"
+                    },
+                    {"name": "Salat", "labels": null, "dish_type": null}
+                  ]
+                },
+                {
+                  "dishes": [{"name": "Käsespätzle", "labels": ["VEGETARIAN", null], "dish_type": "Vegetarisch"}],
+                  "date": "2025-05-06"
+                },
+                {"date": "2025-05-07", "dishes": null},
+                {"date": "2025-05-08", "dishes": [{"name": "Schnitzel", "labels": [], "extra": [1, {"a": 2}]}]}
+              ]
+            }
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final WeekParser parser = new WeekParser(objectMapper);
+
+    @Test
+    void shouldParseWeekLikeDataBinding() throws IOException {
+        assertThat(parser.parseWeek(stream(WEEK))).isEqualTo(objectMapper.readValue(WEEK, Week.class));
+    }
+
+    @Test
+    void shouldHandleEmptyAndMalformedBodies() throws IOException {
+        assertThat(parser.parseWeek(stream(""))).isNull();
+        assertThat(parser.parseWeek(stream("{}"))).isEqualTo(new Week(0, 0, null));
+        assertThatThrownBy(() -> parser.parseWeek(stream("[1, 2]"))).isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> parser.parseWeek(stream("{\"days\": [{\"date\": \"2025-05-05\""))).isInstanceOf(IOException.class);
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,106 @@
+package de.tum.aet.devops25.w09;
+
+import de.tum.aet.devops25.w09.dto.Day;
+import de.tum.aet.devops25.w09.dto.Dish;
+import de.tum.aet.devops25.w09.dto.Week;
+import de.tum.aet.devops25.w09.service.CanteenService.WeekKey;
+import de.tum.aet.devops25.w09.service.DishCatalog;
+import de.tum.aet.devops25.w09.service.WeekSnapshotStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeekSnapshotStoreTest {
+
+    private static final WeekKey KEY = new WeekKey("mensa-garching", 2025, 19);
+
+    @TempDir
+    Path directory;
+
+    private WeekSnapshotStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new WeekSnapshotStore(directory.toString(), true, new DishCatalog(1000));
+    }
+
+    @Test
+    void shouldRoundTripWeek() {
+        Week week = new Week(19, 2025, List.of(
+                new Day(LocalDate.of(2025, 5, 8), List.of(
+                        new Dish("Vegetarian Pasta", "Pasta", List.of("VEGETARIAN", "GLUTEN")),
+                        new Dish("Süßkartoffel-Curry", null, null))),
+                new Day(LocalDate.of(2025, 5, 9), List.of())));
+
+        store.save(KEY, week, "\"abc\"", "Thu, 08 May 2025 06:00:00 GMT");
+
+        WeekSnapshotStore.Snapshot snapshot = store.load(KEY).orElseThrow();
+        assertThat(snapshot.week()).isEqualTo(week);
+        assertThat(snapshot.etag()).isEqualTo("\"abc\"");
+        assertThat(snapshot.lastModified()).isEqualTo("Thu, 08 May 2025 06:00:00 GMT");
+        assertThat(store.keys()).containsExactly(KEY);
+    }
+
+    @Test
+    void shouldShareDishesBetweenWeeks() {
+        Week first = new Week(19, 2025, List.of(new Day(LocalDate.of(2025, 5, 8),
+                List.of(new Dish(new String("Pizza"), "Main", List.of("VEGAN"))))));
+        Week second = new Week(20, 2025, List.of(new Day(LocalDate.of(2025, 5, 15),
+                List.of(new Dish(new String("Pizza"), "Main", List.of("VEGAN"))))));
+
+        Dish firstDish = store.save(KEY, first, null, null).days().getFirst().dishes().getFirst();
+        Dish secondDish = store.save(new WeekKey("mensa-garching", 2025, 20), second, null, null).days().getFirst().dishes().getFirst();
+
+        assertThat(secondDish).isSameAs(firstDish);
+        assertThat(store.load(KEY).orElseThrow().week().days().getFirst().dishes().getFirst()).isSameAs(firstDish);
+    }
+
+    @Test
+    void shouldIgnoreCorruptSnapshot() throws Exception {
+        Path file = directory.resolve("mensa-garching").resolve("2025-19.bin");
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[] {1, 2, 3});
+
+        assertThat(store.load(KEY)).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreSnapshotOfOtherVersion() throws Exception {
+        store.save(KEY, new Week(19, 2025, List.of()), null, null);
+        Path file = directory.resolve("mensa-garching").resolve("2025-19.bin");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[3] = '1';
+        Files.write(file, bytes);
+
+        assertThat(store.load(KEY)).isEmpty();
+    }
+
+    @Test
+    void shouldIgnoreSnapshotWithCountsBeyondItsSize() throws Exception {
+        Path file = directory.resolve("mensa-garching").resolve("2025-19.bin");
+        Files.createDirectories(file.getParent());
+        for (int count : new int[] {Integer.MAX_VALUE, -2}) {
+            // Header without validators, then a string table count the file cannot hold
+            ByteBuffer header = ByteBuffer.allocate(24).putInt(0x4D4E5532).putInt(19).putInt(2025).putInt(-1).putInt(-1).putInt(count);
+            Files.write(file, header.array());
+
+            assertThat(store.load(KEY)).as("count %d", count).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldNotWriteOutsideDirectory() {
+        store.save(new WeekKey("..", 2025, 19), new Week(19, 2025, List.of()), null, null);
+
+        assertThat(store.keys()).isEmpty();
+        assertThat(directory.getParent().resolve("2025-19.bin")).doesNotExist();
+    }
+}